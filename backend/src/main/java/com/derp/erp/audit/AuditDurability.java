@@ -0,0 +1,8 @@
+package com.derp.erp.audit;
+
+public enum AuditDurability {
+    // When the buffer is full the oldest entry is dropped; whatever is buffered at shutdown is lost
+    BEST_EFFORT,
+    // When the buffer is full the writing thread flushes a batch itself; the buffer is drained on shutdown
+    FLUSH_ON_SHUTDOWN
+}
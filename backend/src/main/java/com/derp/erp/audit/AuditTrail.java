@@ -0,0 +1,161 @@
+package com.derp.erp.audit;
+
+import com.derp.erp.models.AuditAction;
+import com.derp.erp.models.AuditEntry;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Write-behind audit log: mutating service calls append to a bounded in-memory buffer and return; a background
+// thread inserts the buffered entries into audit_log in batches.
+@Component
+@Slf4j
+public class AuditTrail implements DisposableBean {
+
+    private static final String SYSTEM_PRINCIPAL = "system";
+    private static final TypeReference<Map<String, Object>> SNAPSHOT_TYPE = new TypeReference<>() {
+    };
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<AuditEntry> buffer;
+    private final int flushSize;
+    private final long flushIntervalMillis;
+    private final AuditDurability durability;
+    private final ScheduledExecutorService flusher;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Counter flushed;
+    private final Counter dropped;
+
+    public AuditTrail(MongoTemplate mongoTemplate,
+                      ObjectMapper objectMapper,
+                      MeterRegistry meterRegistry,
+                      @Value("${derp.audit.buffer-size:10000}") int bufferSize,
+                      @Value("${derp.audit.flush-size:500}") int flushSize,
+                      @Value("${derp.audit.flush-interval-ms:1000}") long flushIntervalMillis,
+                      @Value("${derp.audit.durability:FLUSH_ON_SHUTDOWN}") AuditDurability durability) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.flushSize = flushSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.durability = durability;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "derp-audit-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flushed = Counter.builder("derp.audit.flushed").description("Audit entries written to audit_log").register(meterRegistry);
+        this.dropped = Counter.builder("derp.audit.dropped").description("Audit entries lost to a full buffer").register(meterRegistry);
+        Gauge.builder("derp.audit.buffer.size", buffer, BlockingQueue::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // before/after are snapshotted immediately (as JSON-like maps), so later changes to the objects are not recorded
+    public void record(AuditAction action, String entityType, String entityId, Object before, Object after) {
+        AuditEntry entry = new AuditEntry(Instant.now(), currentPrincipal(), action, entityType, entityId,
+                snapshot(before), snapshot(after));
+        if (!buffer.offer(entry)) {
+            if (durability == AuditDurability.FLUSH_ON_SHUTDOWN) {
+                flush(); // Back-pressure on the writer instead of losing entries
+            }
+            while (!buffer.offer(entry)) {
+                if (buffer.poll() != null) {
+                    dropped.increment();
+                }
+            }
+        }
+        if (buffer.size() >= flushSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        }
+    }
+
+    // Writes everything currently buffered. A failed batch is put back and retried on the next flush.
+    public int flush() {
+        flushLock.lock();
+        try {
+            int written = 0;
+            List<AuditEntry> batch = new ArrayList<>(flushSize);
+            while (buffer.drainTo(batch, flushSize) > 0) {
+                try {
+                    mongoTemplate.insert(batch, AuditEntry.class);
+                } catch (RuntimeException e) {
+                    log.warn("Could not write {} audit entries; will retry", batch.size(), e);
+                    requeue(batch);
+                    return written;
+                }
+                written += batch.size();
+                flushed.increment(batch.size());
+                batch.clear();
+            }
+            return written;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void requeue(List<AuditEntry> batch) {
+        for (AuditEntry entry : batch) {
+            if (!buffer.offer(entry)) {
+                dropped.increment();
+            }
+        }
+    }
+
+    private Map<String, Object> snapshot(Object value) {
+        return value == null ? null : objectMapper.convertValue(value, SNAPSHOT_TYPE);
+    }
+
+    private static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return SYSTEM_PRINCIPAL;
+        }
+        return authentication.getName();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        if (durability == AuditDurability.FLUSH_ON_SHUTDOWN) {
+            int written = flush();
+            if (!buffer.isEmpty()) {
+                log.warn("{} audit entries could not be written before shutdown", buffer.size());
+            } else if (written > 0) {
+                log.info("Flushed {} audit entries on shutdown", written);
+            }
+        }
+    }
+}
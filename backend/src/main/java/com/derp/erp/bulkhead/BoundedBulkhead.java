@@ -0,0 +1,130 @@
+package com.derp.erp.bulkhead;
+
+import com.derp.erp.exceptions.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// At most maxConcurrent requests of one kind at a time, and at most maxQueued more waiting up to queueTimeoutMillis
+// for a slot; anything beyond that, or anything while the circuit is open, is rejected at once with 503.
+public class BoundedBulkhead {
+
+    private final BulkheadType type;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long queueTimeoutMillis;
+    private final long deadlineMillis;
+    private final LatencyCircuitBreaker circuitBreaker;
+    // Fair, so queued requests are admitted in arrival order
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter rejectedFull;
+    private final Counter rejectedOpen;
+
+    public BoundedBulkhead(BulkheadType type, int maxConcurrent, int maxQueued, long queueTimeoutMillis,
+                           long deadlineMillis, LatencyCircuitBreaker circuitBreaker, MeterRegistry meterRegistry) {
+        this.type = type;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.deadlineMillis = deadlineMillis;
+        this.circuitBreaker = circuitBreaker;
+        this.permits = new Semaphore(maxConcurrent, true);
+
+        String name = type.name().toLowerCase(Locale.ROOT);
+        Gauge.builder("derp.bulkhead.active", this, BoundedBulkhead::active).tag("bulkhead", name)
+                .description("Requests running in the bulkhead").register(meterRegistry);
+        Gauge.builder("derp.bulkhead.queued", queued, AtomicInteger::get).tag("bulkhead", name)
+                .description("Requests waiting for a slot in the bulkhead").register(meterRegistry);
+        Gauge.builder("derp.bulkhead.max.concurrent", this, bulkhead -> bulkhead.maxConcurrent).tag("bulkhead", name)
+                .description("Slots in the bulkhead").register(meterRegistry);
+        Gauge.builder("derp.bulkhead.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal()).tag("bulkhead", name)
+                .description("0 closed, 1 half-open, 2 open").register(meterRegistry);
+        rejectedFull = Counter.builder("derp.bulkhead.rejected").tag("bulkhead", name).tag("reason", "full")
+                .description("Requests turned away because the bulkhead and its queue were full").register(meterRegistry);
+        rejectedOpen = Counter.builder("derp.bulkhead.rejected").tag("bulkhead", name).tag("reason", "circuit-open")
+                .description("Requests turned away while the bulkhead's circuit was open").register(meterRegistry);
+    }
+
+    public BulkheadType getType() {
+        return type;
+    }
+
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
+    public LatencyCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    // Every successful enter() must be followed by one exit() with the permission it returned
+    public LatencyCircuitBreaker.Permission enter() {
+        LatencyCircuitBreaker.Permission permission = circuitBreaker.acquirePermission();
+        if (permission == LatencyCircuitBreaker.Permission.DENIED) {
+            rejectedOpen.increment();
+            throw new ServiceUnavailableException("The database is responding slowly; " + describe()
+                    + " requests are paused.", circuitBreaker.retryAfterSeconds());
+        }
+        try {
+            acquireSlot();
+        } catch (ServiceUnavailableException e) {
+            releaseProbe(permission);
+            throw e;
+        }
+        return permission;
+    }
+
+    public void exit(LatencyCircuitBreaker.Permission permission) {
+        permits.release();
+        releaseProbe(permission);
+    }
+
+    // Only a request that finds no free slot takes a place in the queue. The timed tryAcquire(0) keeps the fair
+    // ordering; the untimed one would take a slot ahead of the requests already waiting.
+    private void acquireSlot() {
+        try {
+            if (permits.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+            if (queued.incrementAndGet() > maxQueued) {
+                queued.decrementAndGet();
+                throw full();
+            }
+            try {
+                if (!permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    throw full();
+                }
+            } finally {
+                queued.decrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw full();
+        }
+    }
+
+    private void releaseProbe(LatencyCircuitBreaker.Permission permission) {
+        if (permission == LatencyCircuitBreaker.Permission.PROBE) {
+            circuitBreaker.releaseProbe();
+        }
+    }
+
+    private int active() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    private ServiceUnavailableException full() {
+        rejectedFull.increment();
+        return new ServiceUnavailableException("Too many " + describe() + " requests in progress.", 1);
+    }
+
+    private String describe() {
+        return type.name().toLowerCase(Locale.ROOT);
+    }
+}
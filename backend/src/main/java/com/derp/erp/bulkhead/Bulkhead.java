@@ -0,0 +1,21 @@
+package com.derp.erp.bulkhead;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Runs a controller's endpoints (or one endpoint, which wins over its class) in the given bulkhead instead of the one
+// chosen by HTTP method: READ for GET and HEAD, WRITE for everything else.
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Bulkhead {
+
+    BulkheadType value();
+
+    // -1 uses the bulkhead's derp.bulkhead.<name>.deadline-ms; 0 runs without a deadline, for the synchronous jobs
+    // that scan whole collections and are already limited to one run at a time
+    long deadlineMillis() default -1;
+}
@@ -0,0 +1,38 @@
+package com.derp.erp.bulkhead;
+
+import java.util.concurrent.TimeUnit;
+
+// The bulkhead and deadline of the request the current thread is serving. Work the request hands to other threads
+// (background jobs, restore inserts) runs outside both.
+public final class BulkheadContext {
+
+    private static final ThreadLocal<Entry> CURRENT = new ThreadLocal<>();
+
+    private record Entry(BoundedBulkhead bulkhead, long deadlineNanos, boolean hasDeadline) {
+    }
+
+    private BulkheadContext() {
+    }
+
+    static void enter(BoundedBulkhead bulkhead, long deadlineMillis) {
+        CURRENT.set(new Entry(bulkhead, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis), deadlineMillis > 0));
+    }
+
+    static void exit() {
+        CURRENT.remove();
+    }
+
+    public static BoundedBulkhead currentBulkhead() {
+        Entry entry = CURRENT.get();
+        return entry == null ? null : entry.bulkhead();
+    }
+
+    // Milliseconds left before the current request's deadline (at least 1), or null when it has none
+    public static Long remainingMillis() {
+        Entry entry = CURRENT.get();
+        if (entry == null || !entry.hasDeadline()) {
+            return null;
+        }
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(entry.deadlineNanos() - System.nanoTime()));
+    }
+}
@@ -0,0 +1,78 @@
+package com.derp.erp.bulkhead;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Admits each API request to its bulkhead before the handler runs and releases it once the response is written, so
+// the slot and the deadline also cover bodies serialized after the handler returns (StreamedJsonArray). A rejection is
+// thrown from preHandle and rendered by GlobalExceptionHandler.
+public class BulkheadInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String ENTERED = BulkheadInterceptor.class.getName() + ".ENTERED";
+
+    private final Map<BulkheadType, BoundedBulkhead> bulkheads = new EnumMap<>(BulkheadType.class);
+    private final boolean enabled;
+
+    public BulkheadInterceptor(List<BoundedBulkhead> bulkheads, boolean enabled) {
+        bulkheads.forEach(bulkhead -> this.bulkheads.put(bulkhead.getType(), bulkhead));
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The async redispatch of a request that already went through here
+        if (!enabled || request.getDispatcherType() == DispatcherType.ASYNC || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        Bulkhead annotation = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), Bulkhead.class);
+        if (annotation == null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), Bulkhead.class);
+        }
+        BulkheadType type = annotation != null ? annotation.value() : typeOf(request);
+        BoundedBulkhead bulkhead = bulkheads.get(type);
+        long deadlineMillis = annotation != null && annotation.deadlineMillis() >= 0
+                ? annotation.deadlineMillis()
+                : bulkhead.getDeadlineMillis();
+
+        LatencyCircuitBreaker.Permission permission = bulkhead.enter();
+        request.setAttribute(ENTERED, new Entered(bulkhead, permission));
+        BulkheadContext.enter(bulkhead, deadlineMillis);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        release(request);
+    }
+
+    // The rest of the response is produced on another thread, outside the bulkhead
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        release(request);
+    }
+
+    private static void release(HttpServletRequest request) {
+        if (request.getAttribute(ENTERED) instanceof Entered entered) {
+            request.removeAttribute(ENTERED);
+            BulkheadContext.exit();
+            entered.bulkhead().exit(entered.permission());
+        }
+    }
+
+    private static BulkheadType typeOf(HttpServletRequest request) {
+        String method = request.getMethod();
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) ? BulkheadType.READ : BulkheadType.WRITE;
+    }
+
+    private record Entered(BoundedBulkhead bulkhead, LatencyCircuitBreaker.Permission permission) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.derp.erp.bulkhead;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+
+import java.util.concurrent.TimeUnit;
+
+// Feeds each command's latency to the circuit breaker of the bulkhead it ran in. The sync driver reports a command on
+// the thread that ran it, so the bulkhead is the current request's; commands of background jobs are not counted.
+public class BulkheadLatencyListener implements CommandListener {
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        record(event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        record(event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    private static void record(long elapsedNanos) {
+        BoundedBulkhead bulkhead = BulkheadContext.currentBulkhead();
+        if (bulkhead != null) {
+            bulkhead.getCircuitBreaker().record(elapsedNanos);
+        }
+    }
+}
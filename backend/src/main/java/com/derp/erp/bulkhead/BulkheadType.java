@@ -0,0 +1,8 @@
+package com.derp.erp.bulkhead;
+
+// The compartments requests are split into, so one kind of load cannot take the connection pool from the others
+public enum BulkheadType {
+    WRITE,
+    READ,
+    REPORTING
+}
@@ -0,0 +1,64 @@
+package com.derp.erp.bulkhead;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoDatabase;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.springframework.dao.support.PersistenceExceptionTranslator;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+
+import java.util.concurrent.TimeUnit;
+
+// MongoTemplate (and every repository on it) asks the factory for the database on each operation, so handing out the
+// database with the request's remaining time as its timeout puts a deadline on every operation the request runs. The
+// driver enforces it client-side (connection checkout, server selection, cursor lifetime) and sends the rest to the
+// server as maxTimeMS, so a slow query is also abandoned there. Wraps Boot's factory rather than replacing it, since
+// Boot only creates its MongoClient when it creates the factory too.
+public class DeadlineAwareMongoDatabaseFactory implements MongoDatabaseFactory {
+
+    private final MongoDatabaseFactory delegate;
+
+    public DeadlineAwareMongoDatabaseFactory(MongoDatabaseFactory delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public MongoDatabase getMongoDatabase() {
+        return withDeadline(delegate.getMongoDatabase());
+    }
+
+    @Override
+    public MongoDatabase getMongoDatabase(String dbName) {
+        return withDeadline(delegate.getMongoDatabase(dbName));
+    }
+
+    @Override
+    public PersistenceExceptionTranslator getExceptionTranslator() {
+        return delegate.getExceptionTranslator();
+    }
+
+    @Override
+    public CodecRegistry getCodecRegistry() {
+        return delegate.getCodecRegistry();
+    }
+
+    @Override
+    public ClientSession getSession(ClientSessionOptions options) {
+        return delegate.getSession(options);
+    }
+
+    @Override
+    public MongoDatabaseFactory withSession(ClientSession session) {
+        return new DeadlineAwareMongoDatabaseFactory(delegate.withSession(session));
+    }
+
+    @Override
+    public boolean isTransactionActive() {
+        return delegate.isTransactionActive();
+    }
+
+    private static MongoDatabase withDeadline(MongoDatabase database) {
+        Long remainingMillis = BulkheadContext.remainingMillis();
+        return remainingMillis == null ? database : database.withTimeout(remainingMillis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,122 @@
+package com.derp.erp.bulkhead;
+
+import java.util.concurrent.TimeUnit;
+
+// Opens when too many of one bulkhead's Mongo commands are slow, so its requests fail fast instead of queueing on a
+// database that is not keeping up. Commands are counted in fixed windows; once the window has minimumCalls commands
+// and at least slowCallRate of them took slowCallMillis or longer, the circuit opens for openSeconds. After that it
+// runs half-open: at most halfOpenCalls probe requests are let through at a time, each holding its probe slot until it
+// finishes, and halfOpenCalls fast commands close the circuit again while a slow one reopens it.
+public class LatencyCircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    public enum Permission {
+        DENIED,
+        ADMITTED,
+        // Admitted while half-open; hand it back through releaseProbe() once the request is done
+        PROBE
+    }
+
+    private final long slowCallNanos;
+    private final double slowCallRate;
+    private final int minimumCalls;
+    private final long windowNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    private State state = State.CLOSED;
+    private long windowStart = System.nanoTime();
+    private int calls;
+    private int slowCalls;
+    private long openedAt;
+    // Probe requests still running; not reset between half-open periods, since each is released exactly once
+    private int probesInFlight;
+
+    public LatencyCircuitBreaker(long slowCallMillis, double slowCallRate, int minimumCalls, long windowSeconds,
+                                 long openSeconds, int halfOpenCalls) {
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.slowCallRate = slowCallRate;
+        this.minimumCalls = minimumCalls;
+        this.windowNanos = TimeUnit.SECONDS.toNanos(windowSeconds);
+        this.openNanos = TimeUnit.SECONDS.toNanos(openSeconds);
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    public synchronized Permission acquirePermission() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            resetWindow(System.nanoTime());
+        }
+        return switch (state) {
+            case CLOSED -> Permission.ADMITTED;
+            case OPEN -> Permission.DENIED;
+            case HALF_OPEN -> {
+                if (probesInFlight >= halfOpenCalls) {
+                    yield Permission.DENIED;
+                }
+                probesInFlight++;
+                yield Permission.PROBE;
+            }
+        };
+    }
+
+    public synchronized void releaseProbe() {
+        probesInFlight--;
+    }
+
+    public synchronized void record(long elapsedNanos) {
+        long now = System.nanoTime();
+        boolean slow = elapsedNanos >= slowCallNanos;
+        switch (state) {
+            case OPEN -> {
+                // Commands of requests admitted before the circuit opened; they say nothing new
+            }
+            case HALF_OPEN -> {
+                if (slow) {
+                    open(now);
+                } else if (++calls >= halfOpenCalls) {
+                    state = State.CLOSED;
+                    resetWindow(now);
+                }
+            }
+            case CLOSED -> {
+                if (now - windowStart >= windowNanos) {
+                    resetWindow(now);
+                }
+                calls++;
+                if (slow) {
+                    slowCalls++;
+                }
+                if (calls >= minimumCalls && slowCalls >= slowCallRate * calls) {
+                    open(now);
+                }
+            }
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    // Until the circuit goes half-open, rounded up to whole seconds
+    public synchronized long retryAfterSeconds() {
+        long remaining = openNanos - (System.nanoTime() - openedAt);
+        return Math.max(1, (remaining + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private void open(long now) {
+        state = State.OPEN;
+        openedAt = now;
+    }
+
+    private void resetWindow(long now) {
+        windowStart = now;
+        calls = 0;
+        slowCalls = 0;
+    }
+}
@@ -0,0 +1,19 @@
+package com.derp.erp.coalescing;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Concurrent calls with equal arguments share one execution and its result (or exception).
+// Only for reads whose result does not depend on the caller; the result object is shared, so callers must not mutate it.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Coalesce {
+
+    // How long a completed result keeps being served to new callers; -1 uses derp.coalesce.default-ttl-ms (default 0,
+    // i.e. only calls overlapping the in-flight one are coalesced). Writes are not seen until it expires.
+    long ttlMillis() default -1;
+}
@@ -0,0 +1,70 @@
+package com.derp.erp.coalescing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Applies @Coalesce. Runs outside the transaction advice so followers never open their own.
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CoalescingAspect {
+
+    private final SingleFlight singleFlight = new SingleFlight();
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter[]> counters = new ConcurrentHashMap<>();
+
+    @Value("${derp.coalesce.default-ttl-ms:0}")
+    private long defaultTtlMillis;
+
+    @Value("${derp.coalesce.enabled:true}")
+    private boolean enabled;
+
+    public CoalescingAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("derp.coalesce.in.flight", singleFlight, SingleFlight::inFlight)
+                .description("Keys with an in-flight or cached coalesced call")
+                .register(meterRegistry);
+    }
+
+    @Around("@annotation(coalesce)")
+    public Object coalesce(ProceedingJoinPoint joinPoint, Coalesce coalesce) throws Throwable {
+        if (!enabled) {
+            return joinPoint.proceed();
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        String methodName = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        Key key = new Key(method, Arrays.asList(joinPoint.getArgs()));
+        long ttlMillis = coalesce.ttlMillis() >= 0 ? coalesce.ttlMillis() : defaultTtlMillis;
+
+        SingleFlight.Result result = singleFlight.execute(key, ttlMillis, joinPoint::proceed);
+        countersFor(methodName)[result.coalesced() ? 1 : 0].increment();
+        return result.value();
+    }
+
+    private Counter[] countersFor(String methodName) {
+        return counters.computeIfAbsent(methodName, name -> new Counter[] {
+                Counter.builder("derp.coalesce.calls").tag("method", name).tag("outcome", "executed")
+                        .description("Calls that ran the underlying method").register(meterRegistry),
+                Counter.builder("derp.coalesce.calls").tag("method", name).tag("outcome", "coalesced")
+                        .description("Calls served from another call's in-flight or recent result").register(meterRegistry)
+        });
+    }
+
+    private record Key(Method method, List<Object> arguments) {
+    }
+}
@@ -0,0 +1,84 @@
+package com.derp.erp.coalescing;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// Per-key single-flight: the first caller for a key runs the supplier, callers arriving while it runs (or within
+// the TTL after it finished) wait for and receive the same outcome.
+public class SingleFlight {
+
+    private final ConcurrentMap<Object, Flight> flights = new ConcurrentHashMap<>();
+
+    public Result execute(Object key, long ttlMillis, Call call) throws Throwable {
+        Flight flight = new Flight();
+        while (true) {
+            Flight existing = flights.putIfAbsent(key, flight);
+            if (existing == null) {
+                return new Result(lead(key, flight, ttlMillis, call), false);
+            }
+            if (!existing.isExpired()) {
+                return new Result(await(existing), true);
+            }
+            flights.remove(key, existing);
+        }
+    }
+
+    public int inFlight() {
+        return flights.size();
+    }
+
+    private Object lead(Object key, Flight flight, long ttlMillis, Call call) throws Throwable {
+        try {
+            Object value = call.run();
+            flight.complete(value, ttlMillis);
+            return value;
+        } catch (Throwable t) {
+            flight.future.completeExceptionally(t);
+            throw t;
+        } finally {
+            if (ttlMillis <= 0 || flight.future.isCompletedExceptionally()) {
+                flights.remove(key, flight);
+            } else {
+                CompletableFuture.delayedExecutor(ttlMillis, TimeUnit.MILLISECONDS).execute(() -> flights.remove(key, flight));
+            }
+        }
+    }
+
+    private static Object await(Flight flight) throws Throwable {
+        try {
+            return flight.future.get();
+        } catch (ExecutionException | CompletionException e) {
+            throw e.getCause() != null ? e.getCause() : e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Call {
+        Object run() throws Throwable;
+    }
+
+    public record Result(Object value, boolean coalesced) {
+    }
+
+    private static final class Flight {
+
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+        private volatile long expiresAtNanos = Long.MAX_VALUE;
+
+        void complete(Object value, long ttlMillis) {
+            expiresAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(ttlMillis, 0));
+            future.complete(value);
+        }
+
+        boolean isExpired() {
+            return future.isDone() && System.nanoTime() - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.derp.erp.config;
+
+import com.derp.erp.bulkhead.BoundedBulkhead;
+import com.derp.erp.bulkhead.BulkheadInterceptor;
+import com.derp.erp.bulkhead.BulkheadType;
+import com.derp.erp.bulkhead.LatencyCircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+// The three request bulkheads. Their slots (72 by default) stay below the driver's 100 pooled connections, so the
+// background jobs and the authentication lookups always find a connection, and a burst of reports or reads can no
+// longer hold every connection while attendance is being taken.
+@Configuration
+public class BulkheadConfig {
+
+    // Shared by the three circuit breakers; only the slow-call threshold differs per bulkhead
+    @Value("${derp.bulkhead.circuit.slow-call-rate:0.5}")
+    private double slowCallRate;
+
+    @Value("${derp.bulkhead.circuit.minimum-calls:20}")
+    private int minimumCalls;
+
+    @Value("${derp.bulkhead.circuit.window-seconds:10}")
+    private long windowSeconds;
+
+    @Value("${derp.bulkhead.circuit.open-seconds:5}")
+    private long openSeconds;
+
+    @Value("${derp.bulkhead.circuit.half-open-calls:10}")
+    private int halfOpenCalls;
+
+    // Attendance and grade entry: short deadlines, so a stalled database is reported while the class is still there
+    @Bean
+    public BoundedBulkhead writeBulkhead(@Value("${derp.bulkhead.write.max-concurrent:32}") int maxConcurrent,
+                                         @Value("${derp.bulkhead.write.max-queued:64}") int maxQueued,
+                                         @Value("${derp.bulkhead.write.queue-timeout-ms:1000}") long queueTimeoutMillis,
+                                         @Value("${derp.bulkhead.write.deadline-ms:5000}") long deadlineMillis,
+                                         @Value("${derp.bulkhead.write.slow-call-ms:250}") long slowCallMillis,
+                                         MeterRegistry meterRegistry) {
+        return bulkhead(BulkheadType.WRITE, maxConcurrent, maxQueued, queueTimeoutMillis, deadlineMillis, slowCallMillis, meterRegistry);
+    }
+
+    @Bean
+    public BoundedBulkhead readBulkhead(@Value("${derp.bulkhead.read.max-concurrent:32}") int maxConcurrent,
+                                        @Value("${derp.bulkhead.read.max-queued:128}") int maxQueued,
+                                        @Value("${derp.bulkhead.read.queue-timeout-ms:1000}") long queueTimeoutMillis,
+                                        @Value("${derp.bulkhead.read.deadline-ms:10000}") long deadlineMillis,
+                                        @Value("${derp.bulkhead.read.slow-call-ms:500}") long slowCallMillis,
+                                        MeterRegistry meterRegistry) {
+        return bulkhead(BulkheadType.READ, maxConcurrent, maxQueued, queueTimeoutMillis, deadlineMillis, slowCallMillis, meterRegistry);
+    }
+
+    // Reports, analytics and the synchronous maintenance jobs: few at a time, slow by nature
+    @Bean
+    public BoundedBulkhead reportingBulkhead(@Value("${derp.bulkhead.reporting.max-concurrent:8}") int maxConcurrent,
+                                             @Value("${derp.bulkhead.reporting.max-queued:16}") int maxQueued,
+                                             @Value("${derp.bulkhead.reporting.queue-timeout-ms:2000}") long queueTimeoutMillis,
+                                             @Value("${derp.bulkhead.reporting.deadline-ms:60000}") long deadlineMillis,
+                                             @Value("${derp.bulkhead.reporting.slow-call-ms:5000}") long slowCallMillis,
+                                             MeterRegistry meterRegistry) {
+        return bulkhead(BulkheadType.REPORTING, maxConcurrent, maxQueued, queueTimeoutMillis, deadlineMillis, slowCallMillis, meterRegistry);
+    }
+
+    @Bean
+    public BulkheadInterceptor bulkheadInterceptor(List<BoundedBulkhead> bulkheads,
+                                                   @Value("${derp.bulkhead.enabled:true}") boolean enabled) {
+        return new BulkheadInterceptor(bulkheads, enabled);
+    }
+
+    @Bean
+    public WebMvcConfigurer bulkheadWebMvcConfigurer(BulkheadInterceptor bulkheadInterceptor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(bulkheadInterceptor).addPathPatterns("/api/**");
+            }
+        };
+    }
+
+    private BoundedBulkhead bulkhead(BulkheadType type, int maxConcurrent, int maxQueued, long queueTimeoutMillis,
+                                     long deadlineMillis, long slowCallMillis, MeterRegistry meterRegistry) {
+        LatencyCircuitBreaker circuitBreaker = new LatencyCircuitBreaker(slowCallMillis, slowCallRate, minimumCalls,
+                windowSeconds, openSeconds, halfOpenCalls);
+        return new BoundedBulkhead(type, maxConcurrent, maxQueued, queueTimeoutMillis, deadlineMillis, circuitBreaker, meterRegistry);
+    }
+}
@@ -0,0 +1,26 @@
+package com.derp.erp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String ROOM_UTILIZATION = "roomUtilization";
+    public static final String INSTRUCTOR_LOAD = "instructorLoad";
+    public static final String ROSTER = "roster";
+    public static final String GRADE_RANKING = "gradeRanking";
+
+    // Entries are evicted explicitly on writes; the expiry only bounds how stale a missed eviction can get.
+    @Bean
+    public CacheManager cacheManager(@Value("${derp.cache.spec:maximumSize=1000,expireAfterWrite=30m,recordStats}") String spec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(ROOM_UTILIZATION, INSTRUCTOR_LOAD, ROSTER, GRADE_RANKING);
+        cacheManager.setCacheSpecification(spec);
+        return cacheManager;
+    }
+}
@@ -0,0 +1,101 @@
+package com.derp.erp.config;
+
+import com.derp.erp.bulkhead.BulkheadLatencyListener;
+import com.derp.erp.bulkhead.DeadlineAwareMongoDatabaseFactory;
+import com.derp.erp.models.Weekday;
+import com.derp.erp.querycount.MongoCommandCountFilter;
+import com.derp.erp.querycount.MongoCommandCounter;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.time.DayOfWeek;
+import java.util.List;
+
+@Configuration
+@EnableMongoAuditing
+public class MongoConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "derp.mongo.slow-query-log.enabled", havingValue = "true", matchIfMissing = true)
+    public MongoClientSettingsBuilderCustomizer slowQueryLoggerCustomizer(
+            @Value("${derp.mongo.slow-query-log.threshold-ms:100}") long thresholdMillis,
+            @Value("${derp.mongo.slow-query-log.sample-rate:0.1}") double sampleRate,
+            @Value("${derp.mongo.slow-query-log.max-tracked:1000}") int maxTracked) {
+        SlowQueryLogger slowQueryLogger = new SlowQueryLogger(thresholdMillis, sampleRate, maxTracked);
+        return builder -> builder.addCommandListener(slowQueryLogger);
+    }
+
+    @Bean
+    public MongoCommandCounter mongoCommandCounter() {
+        return new MongoCommandCounter();
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoCommandCounterCustomizer(MongoCommandCounter mongoCommandCounter) {
+        return builder -> builder.addCommandListener(mongoCommandCounter);
+    }
+
+    // Registered after the security filter chain, so the user lookup for authentication is not counted
+    @Bean
+    public MongoCommandCountFilter mongoCommandCountFilter(MongoCommandCounter mongoCommandCounter,
+                                                           MeterRegistry meterRegistry,
+                                                           @Value("${derp.mongo.command-count.header:false}") boolean headerEnabled) {
+        return new MongoCommandCountFilter(mongoCommandCounter, meterRegistry, headerEnabled);
+    }
+
+    // Puts each request's deadline on the operations it runs through Boot's factory
+    @Bean
+    public static BeanPostProcessor deadlineAwareMongoDatabaseFactory() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof MongoDatabaseFactory factory && !(bean instanceof DeadlineAwareMongoDatabaseFactory)
+                        ? new DeadlineAwareMongoDatabaseFactory(factory)
+                        : bean;
+            }
+        };
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer bulkheadLatencyCustomizer() {
+        return builder -> builder.addCommandListener(new BulkheadLatencyListener());
+    }
+
+    // A scheduled class whose free-text day the migration could not read reads as having no day, instead of failing
+    // every query that loads the timetable
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(new LenientDayOfWeekReader()));
+    }
+
+    // Output of async report jobs
+    @Bean
+    public GridFSBucket reportResultsBucket(MongoDatabaseFactory mongoDatabaseFactory) {
+        return GridFSBuckets.create(mongoDatabaseFactory.getMongoDatabase(), "report_results");
+    }
+
+    @ReadingConverter
+    static class LenientDayOfWeekReader implements Converter<String, DayOfWeek> {
+
+        @Override
+        public DayOfWeek convert(String source) {
+            try {
+                return Weekday.parse(source);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+}
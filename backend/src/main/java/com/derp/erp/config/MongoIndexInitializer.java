@@ -0,0 +1,63 @@
+package com.derp.erp.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+// Auto index creation is off by default in Spring Data MongoDB, so the @Indexed/@CompoundIndex
+// definitions on the models are applied here, off the startup path.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MongoIndexInitializer {
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+    private final TaskScheduler taskScheduler;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        taskScheduler.schedule(() -> {
+            try {
+                ensureIndexes();
+            } catch (RuntimeException e) {
+                log.warn("Could not ensure MongoDB indexes", e);
+            }
+        }, Instant.now());
+    }
+
+    public void ensureIndexes() {
+        IndexResolver indexResolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(Document.class)) {
+                continue;
+            }
+            IndexOperations indexOps = mongoTemplate.indexOps(entity.getType());
+            indexResolver.resolveIndexFor(entity.getType()).forEach(indexOps::createIndex);
+        }
+        log.info("MongoDB indexes ensured for {} collection(s)", mappingContext.getPersistentEntities().size());
+    }
+
+    // Applies the indexes of the entity stored in collectionName to another collection, e.g. a staging copy
+    public void ensureIndexes(String collectionName, String targetCollectionName) {
+        IndexResolver indexResolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        IndexOperations indexOps = mongoTemplate.indexOps(targetCollectionName);
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (entity.isAnnotationPresent(Document.class) && collectionName.equals(entity.getCollection())) {
+                indexResolver.resolveIndexFor(entity.getType()).forEach(indexOps::createIndex);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.derp.erp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    // Background jobs (cascade cleanup, etc.) sleep between batches and several start together once the application is
+    // ready (index creation, migrations, at-risk tallies, standings, attendance rollups), so one thread is not enough.
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${derp.scheduling.pool-size:6}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("derp-scheduler-");
+        // By default the context's stop phase waits for running jobs, and a job stuck in server selection holds up
+        // shutdown for the whole lifecycle timeout. Skipping that wait lets destroy() interrupt them right away;
+        // each job resumes from its watermark or its job record on the next start.
+        scheduler.setAcceptTasksAfterContextClose(true);
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        scheduler.setDaemon(true);
+        return scheduler;
+    }
+}
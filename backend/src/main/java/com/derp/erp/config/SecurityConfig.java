@@ -1,7 +1,20 @@
 package com.derp.erp.config;
 
+import com.derp.erp.idempotency.IdempotencyFilter;
+import com.derp.erp.idempotency.IdempotencyStore;
+import com.derp.erp.models.Role;
+import com.derp.erp.querycount.MongoCommandCountFilter;
 import com.derp.erp.repositories.UserRepository;
+import com.derp.erp.security.BcryptWorkFactor;
+import com.derp.erp.security.BoundedPasswordEncoder;
+import com.derp.erp.security.DerpUserDetails;
+import com.derp.erp.security.LoginRateLimiter;
+import com.derp.erp.security.LoginThrottleFilter;
+import com.derp.erp.security.VerifiedPasswordCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -10,17 +23,23 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.springframework.security.config.Customizer.withDefaults;
 
@@ -28,24 +47,54 @@ import static org.springframework.security.config.Customizer.withDefaults;
 @EnableWebSecurity
 @EnableMethodSecurity(prePostEnabled = true)
 @RequiredArgsConstructor
+@Slf4j
 public class SecurityConfig {
 
     private final UserRepository userRepository;
+    private final LoginRateLimiter loginRateLimiter;
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
 
     @Bean
     public UserDetailsService userDetailsService() {
         return username -> userRepository.findByUsername(username)
-                .map(user -> org.springframework.security.core.userdetails.User.builder()
-                        .username(user.getUsername())
-                        .password(user.getPassword())
-                        .roles(user.getRoles().stream().map(role -> role.name().replace("ROLE_", "")).toArray(String[]::new))
-                        .build())
+                .map(user -> new DerpUserDetails(user.getUsername(), user.getPassword(),
+                        AuthorityUtils.createAuthorityList(user.getRoles().stream().map(Role::name).toArray(String[]::new)),
+                        user.getStudentId()))
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
     }
 
+    // BCrypt runs on a bounded pool so a burst of logins cannot take every core from the rest of the API.
+    // The strength is calibrated to ~250 ms, which HTTP Basic would otherwise pay on every request (and rehash-on-login
+    // moves every account to it). The verified-password cache limits that to once per user per
+    // derp.auth.verified-cache.ttl-seconds; a shorter TTL or a higher target-ms buys offline-attack resistance
+    // with more per-request CPU, and with the cache disabled (ttl-seconds=0) target-ms should come down to ~50.
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder(@Value("${derp.auth.hashing.threads:0}") int threads,
+                                                  @Value("${derp.auth.hashing.queue-capacity:64}") int queueCapacity,
+                                                  @Value("${derp.auth.hashing.timeout-ms:5000}") long timeoutMillis,
+                                                  @Value("${derp.auth.hashing.retry-after-seconds:2}") long retryAfterSeconds,
+                                                  @Value("${derp.auth.bcrypt.strength:0}") int configuredStrength,
+                                                  @Value("${derp.auth.bcrypt.target-ms:250}") long targetMillis,
+                                                  @Value("${derp.auth.bcrypt.min-strength:10}") int minStrength,
+                                                  @Value("${derp.auth.bcrypt.max-strength:14}") int maxStrength,
+                                                  @Value("${derp.auth.verified-cache.ttl-seconds:300}") long verifiedTtlSeconds,
+                                                  @Value("${derp.auth.verified-cache.max-size:10000}") long verifiedMaxSize) {
+        int strength = configuredStrength > 0
+                ? configuredStrength
+                : BcryptWorkFactor.calibrate(targetMillis, minStrength, maxStrength);
+        log.info("Using BCrypt strength {} ({})", strength, configuredStrength > 0 ? "configured" : "calibrated for " + targetMillis + " ms");
+
+        // New hashes are stored as {bcrypt}...; legacy unprefixed hashes still verify and are upgraded on next login,
+        // as are hashes created with a lower strength.
+        PasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        DelegatingPasswordEncoder delegatingEncoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        delegatingEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        int hashingThreads = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        VerifiedPasswordCache verifiedPasswordCache = new VerifiedPasswordCache(Duration.ofSeconds(verifiedTtlSeconds), verifiedMaxSize);
+        return new BoundedPasswordEncoder(delegatingEncoder, verifiedPasswordCache, hashingThreads, queueCapacity,
+                timeoutMillis, retryAfterSeconds);
     }
 
     @Bean
@@ -58,8 +107,8 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(List.of("http://localhost:3000")); // Allow your frontend origin
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "HEAD"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With", "accept", "Origin", "Access-Control-Request-Method", "Access-Control-Request-Headers"));
-        configuration.setExposedHeaders(Arrays.asList("Access-Control-Allow-Headers", "Authorization", "Content-Type", "X-Requested-With", "accept", "Origin", "Access-Control-Request-Method", "Access-Control-Request-Headers"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With", "accept", "Origin", "Access-Control-Request-Method", "Access-Control-Request-Headers", IdempotencyFilter.HEADER));
+        configuration.setExposedHeaders(Arrays.asList("Access-Control-Allow-Headers", "Authorization", "Content-Type", "X-Requested-With", "accept", "Origin", "Access-Control-Request-Method", "Access-Control-Request-Headers", "Retry-After", IdempotencyFilter.REPLAYED_HEADER, MongoCommandCountFilter.HEADER));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L); // How long the results of a preflight request can be cached
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -75,8 +124,12 @@ public class SecurityConfig {
                 .authorizeHttpRequests(authorizeRequests ->
                         authorizeRequests
                                 .requestMatchers("/api/auth/register", "/api/auth/login", "/h2-console/**").permitAll()
+                                // Probes carry no credentials; details stay hidden from anonymous callers
+                                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
                                 .anyRequest().authenticated()
                 )
+                .addFilterBefore(new LoginThrottleFilter(loginRateLimiter, objectMapper), BasicAuthenticationFilter.class)
+                .addFilterAfter(new IdempotencyFilter(idempotencyStore, objectMapper), AuthorizationFilter.class)
                 .httpBasic(withDefaults());
         // For H2 console to work properly with Spring Security
         http.headers(headers -> headers.frameOptions(frameOptions -> frameOptions.sameOrigin()));
@@ -0,0 +1,66 @@
+package com.derp.erp.config;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Logs a sample of Mongo commands that exceed the latency threshold, with their (truncated) command body.
+@Slf4j
+public class SlowQueryLogger implements CommandListener {
+
+    private static final int MAX_COMMAND_LENGTH = 2000;
+
+    private final long thresholdMillis;
+    private final double sampleRate;
+    private final int maxTrackedCommands;
+
+    // The driver only exposes the command body on the started event, so sampled bodies are kept until completion.
+    private final ConcurrentMap<Integer, String> sampledCommands = new ConcurrentHashMap<>();
+
+    public SlowQueryLogger(long thresholdMillis, double sampleRate, int maxTrackedCommands) {
+        this.thresholdMillis = thresholdMillis;
+        this.sampleRate = sampleRate;
+        this.maxTrackedCommands = maxTrackedCommands;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (sampledCommands.size() >= maxTrackedCommands || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        String command = event.getCommand().toJson();
+        if (command.length() > MAX_COMMAND_LENGTH) {
+            command = command.substring(0, MAX_COMMAND_LENGTH) + "...";
+        }
+        sampledCommands.put(event.getRequestId(), command);
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        logIfSlow(event.getRequestId(), event.getCommandName(), event.getDatabaseName(), event.getElapsedTime(TimeUnit.MILLISECONDS), null);
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        logIfSlow(event.getRequestId(), event.getCommandName(), event.getDatabaseName(), event.getElapsedTime(TimeUnit.MILLISECONDS), event.getThrowable());
+    }
+
+    private void logIfSlow(int requestId, String commandName, String databaseName, long elapsedMillis, Throwable failure) {
+        String command = sampledCommands.remove(requestId);
+        if (command == null || elapsedMillis < thresholdMillis) {
+            return;
+        }
+        if (failure != null) {
+            log.warn("Slow Mongo command '{}' on {} failed after {} ms: {} ({})", commandName, databaseName, elapsedMillis, command, failure.getMessage());
+        } else {
+            log.warn("Slow Mongo command '{}' on {} took {} ms: {}", commandName, databaseName, elapsedMillis, command);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.derp.erp.controllers;
+
+import com.derp.erp.bulkhead.Bulkhead;
+import com.derp.erp.bulkhead.BulkheadType;
+import com.derp.erp.dtos.AttendanceHeatmapCellDto;
+import com.derp.erp.dtos.AttendanceRollupResultDto;
+import com.derp.erp.dtos.AttendanceTrendPointDto;
+import com.derp.erp.services.AttendanceAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@Bulkhead(BulkheadType.REPORTING)
+@RequestMapping("/api/analytics/attendance")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class AttendanceAnalyticsController {
+
+    private final AttendanceAnalyticsService attendanceAnalyticsService;
+
+    @GetMapping("/trend")
+    public ResponseEntity<List<AttendanceTrendPointDto>> getTrend(
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String courseId,
+            @RequestParam(required = false) String department) {
+        List<AttendanceTrendPointDto> trend = attendanceAnalyticsService.getTrend(granularity, from, to, courseId, department);
+        return ResponseEntity.ok(trend);
+    }
+
+    @GetMapping("/heatmap")
+    public ResponseEntity<List<AttendanceHeatmapCellDto>> getHeatmap(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String courseId,
+            @RequestParam(required = false) String department) {
+        List<AttendanceHeatmapCellDto> heatmap = attendanceAnalyticsService.getHeatmap(from, to, courseId, department);
+        return ResponseEntity.ok(heatmap);
+    }
+
+    @PostMapping("/rollups/refresh")
+    @Bulkhead(value = BulkheadType.REPORTING, deadlineMillis = 0)
+    public ResponseEntity<AttendanceRollupResultDto> refreshRollups() {
+        AttendanceRollupResultDto result = attendanceAnalyticsService.rollUpNow();
+        return ResponseEntity.ok(result);
+    }
+}
@@ -1,14 +1,25 @@
 package com.derp.erp.controllers;
 
+import com.derp.erp.bulkhead.Bulkhead;
+import com.derp.erp.bulkhead.BulkheadType;
+import com.derp.erp.dtos.AtRiskRefreshResultDto;
+import com.derp.erp.dtos.AtRiskStudentDto;
 import com.derp.erp.dtos.AttendanceRecordRequestDto;
 import com.derp.erp.dtos.AttendanceRecordResponseDto;
+import com.derp.erp.dtos.BulkAttendanceRequestDto;
+import com.derp.erp.dtos.BulkOperationResultDto;
+import com.derp.erp.query.ListQuerySpec;
+import com.derp.erp.security.DerpUserDetails;
+import com.derp.erp.services.AtRiskAttendanceService;
 import com.derp.erp.services.AttendanceService;
+import com.derp.erp.streaming.StreamedJsonArray;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
@@ -21,6 +32,7 @@ import java.util.List;
 public class AttendanceController {
 
     private final AttendanceService attendanceService;
+    private final AtRiskAttendanceService atRiskAttendanceService;
 
     @PostMapping
     public ResponseEntity<AttendanceRecordResponseDto> recordAttendance(@Valid @RequestBody AttendanceRecordRequestDto requestDto) {
@@ -29,9 +41,14 @@ public class AttendanceController {
     }
 
     @GetMapping
-    public ResponseEntity<List<AttendanceRecordResponseDto>> getAllAttendanceRecords() {
-        List<AttendanceRecordResponseDto> responseDtos = attendanceService.getAllAttendanceRecords();
-        return ResponseEntity.ok(responseDtos);
+    public ResponseEntity<?> getAllAttendanceRecords(
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String sort) {
+        if (ListQuerySpec.isRequested(fields, filter, sort)) {
+            return ResponseEntity.ok(attendanceService.queryAttendanceRecords(fields, filter, sort));
+        }
+        return ResponseEntity.ok(attendanceService.getAllAttendanceRecords());
     }
 
     @GetMapping("/{id}")
@@ -53,30 +70,70 @@ public class AttendanceController {
         return ResponseEntity.noContent().build();
     }
 
+    // preview=true reports the counts without writing
+    @PostMapping("/bulk/status")
+    public ResponseEntity<BulkOperationResultDto> bulkUpdateAttendanceStatus(
+            @Valid @RequestBody BulkAttendanceRequestDto requestDto,
+            @RequestParam(defaultValue = "false") boolean preview) {
+        BulkOperationResultDto result = attendanceService.bulkUpdateAttendanceStatus(requestDto, preview);
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<BulkOperationResultDto> bulkDeleteAttendance(
+            @Valid @RequestBody BulkAttendanceRequestDto requestDto,
+            @RequestParam(defaultValue = "false") boolean preview) {
+        BulkOperationResultDto result = attendanceService.bulkDeleteAttendance(requestDto, preview);
+        return ResponseEntity.ok(result);
+    }
+
     @GetMapping("/student/{studentId}")
-    public ResponseEntity<List<AttendanceRecordResponseDto>> getAttendanceByStudent(@PathVariable String studentId) {
-        List<AttendanceRecordResponseDto> responseDtos = attendanceService.getAttendanceByStudent(studentId);
-        return ResponseEntity.ok(responseDtos);
+    public ResponseEntity<StreamedJsonArray> getAttendanceByStudent(@PathVariable String studentId) {
+        StreamedJsonArray records = attendanceService.getAttendanceByStudent(studentId);
+        return ResponseEntity.ok(records);
     }
 
     @GetMapping("/student/{studentId}/course/{courseId}")
-    public ResponseEntity<List<AttendanceRecordResponseDto>> getAttendanceByStudentAndCourse(
+    public ResponseEntity<StreamedJsonArray> getAttendanceByStudentAndCourse(
             @PathVariable String studentId, @PathVariable String courseId) {
-        List<AttendanceRecordResponseDto> responseDtos = attendanceService.getAttendanceByStudentAndCourse(studentId, courseId);
-        return ResponseEntity.ok(responseDtos);
+        StreamedJsonArray records = attendanceService.getAttendanceByStudentAndCourse(studentId, courseId);
+        return ResponseEntity.ok(records);
     }
 
     @GetMapping("/course/{courseId}")
-    public ResponseEntity<List<AttendanceRecordResponseDto>> getAttendanceByCourse(@PathVariable String courseId) {
-        List<AttendanceRecordResponseDto> responseDtos = attendanceService.getAttendanceByCourse(courseId);
-        return ResponseEntity.ok(responseDtos);
+    public ResponseEntity<StreamedJsonArray> getAttendanceByCourse(@PathVariable String courseId) {
+        StreamedJsonArray records = attendanceService.getAttendanceByCourse(courseId);
+        return ResponseEntity.ok(records);
     }
 
     @GetMapping("/course/{courseId}/date/{dateString}")
-    public ResponseEntity<List<AttendanceRecordResponseDto>> getAttendanceByCourseAndDate(
+    public ResponseEntity<StreamedJsonArray> getAttendanceByCourseAndDate(
             @PathVariable String courseId, 
             @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateString) {
-        List<AttendanceRecordResponseDto> responseDtos = attendanceService.getAttendanceByCourseAndDate(courseId, dateString);
+        StreamedJsonArray records = attendanceService.getAttendanceByCourseAndDate(courseId, dateString);
+        return ResponseEntity.ok(records);
+    }
+
+    @GetMapping("/at-risk")
+    public ResponseEntity<List<AtRiskStudentDto>> getAtRiskStudents(@RequestParam(required = false) String courseId) {
+        List<AtRiskStudentDto> responseDtos = atRiskAttendanceService.getAtRiskStudents(courseId);
         return ResponseEntity.ok(responseDtos);
     }
-} 
\ No newline at end of file
+
+    @PostMapping("/at-risk/refresh")
+    @Bulkhead(value = BulkheadType.REPORTING, deadlineMillis = 0)
+    public ResponseEntity<AtRiskRefreshResultDto> refreshAtRiskStudents() {
+        AtRiskRefreshResultDto result = atRiskAttendanceService.refreshNow();
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("/my-attendance")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ResponseEntity<StreamedJsonArray> getMyAttendance(@AuthenticationPrincipal DerpUserDetails principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        StreamedJsonArray records = attendanceService.getOwnAttendance(principal.requireStudentId());
+        return ResponseEntity.ok(records);
+    }
+}
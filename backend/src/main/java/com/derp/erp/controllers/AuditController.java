@@ -0,0 +1,38 @@
+package com.derp.erp.controllers;
+
+import com.derp.erp.bulkhead.Bulkhead;
+import com.derp.erp.bulkhead.BulkheadType;
+import com.derp.erp.dtos.AuditEntryResponseDto;
+import com.derp.erp.services.AuditService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.List;
+
+@RestController
+@Bulkhead(BulkheadType.REPORTING)
+@RequestMapping("/api/audit")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class AuditController {
+
+    private final AuditService auditService;
+
+    @GetMapping
+    public ResponseEntity<List<AuditEntryResponseDto>> getEntries(
+            @RequestParam(required = false) String entityType,
+            @RequestParam(required = false) String entityId,
+            @RequestParam(required = false) String principal,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(auditService.getEntries(entityType, entityId, principal, from, to, limit));
+    }
+}
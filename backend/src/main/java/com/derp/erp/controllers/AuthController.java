@@ -4,6 +4,7 @@ import com.derp.erp.dtos.RegisterRequest;
 import com.derp.erp.models.Role;
 import com.derp.erp.models.User;
 import com.derp.erp.repositories.UserRepository;
+import com.derp.erp.services.StudentAccountService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -19,10 +20,13 @@ public class AuthController {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final StudentAccountService studentAccountService;
 
-    public AuthController(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public AuthController(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                          StudentAccountService studentAccountService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.studentAccountService = studentAccountService;
     }
 
     @PostMapping("/register")
@@ -52,6 +56,9 @@ public class AuthController {
             }
         }
         user.setRoles(roles);
+        if (roles.contains(Role.ROLE_STUDENT)) {
+            user.setStudentId(studentAccountService.findStudentId(user.getUsername()));
+        }
         User savedUser = userRepository.save(user);
 
         return ResponseEntity.ok("User registered successfully!");
@@ -0,0 +1,42 @@
+package com.derp.erp.controllers;
+
+import com.derp.erp.bulkhead.Bulkhead;
+import com.derp.erp.bulkhead.BulkheadType;
+import com.derp.erp.dtos.CascadeJobResponseDto;
+import com.derp.erp.models.CascadeJobStatus;
+import com.derp.erp.services.CascadeDeleteService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/cascade-jobs")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class CascadeJobController {
+
+    private final CascadeDeleteService cascadeDeleteService;
+
+    @GetMapping
+    public ResponseEntity<List<CascadeJobResponseDto>> getJobs(@RequestParam(required = false) CascadeJobStatus status) {
+        List<CascadeJobResponseDto> jobs = cascadeDeleteService.getJobs(status);
+        return ResponseEntity.ok(jobs);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<CascadeJobResponseDto> getJobById(@PathVariable String id) {
+        CascadeJobResponseDto job = cascadeDeleteService.getJobById(id);
+        return ResponseEntity.ok(job);
+    }
+
+    @PostMapping("/sweep-orphans")
+    @Bulkhead(value = BulkheadType.REPORTING, deadlineMillis = 0)
+    public ResponseEntity<List<CascadeJobResponseDto>> sweepOrphans() {
+        List<CascadeJobResponseDto> enqueued = cascadeDeleteService.sweepOrphans();
+        return new ResponseEntity<>(enqueued, HttpStatus.ACCEPTED);
+    }
+}
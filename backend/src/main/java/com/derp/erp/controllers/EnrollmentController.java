@@ -0,0 +1,99 @@
+package com.derp.erp.controllers;
+
+import com.derp.erp.dtos.BulkEnrollmentRequestDto;
+import com.derp.erp.dtos.BulkEnrollmentResultDto;
+import com.derp.erp.dtos.EnrollmentRequestDto;
+import com.derp.erp.dtos.EnrollmentResponseDto;
+import com.derp.erp.dtos.GradebookDto;
+import com.derp.erp.dtos.RollCallEntryDto;
+import com.derp.erp.dtos.ScheduledClassResponseDto;
+import com.derp.erp.security.DerpUserDetails;
+import com.derp.erp.services.EnrollmentService;
+import com.derp.erp.services.RosterService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/enrollments")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class EnrollmentController {
+
+    private final EnrollmentService enrollmentService;
+    private final RosterService rosterService;
+
+    @PostMapping
+    public ResponseEntity<EnrollmentResponseDto> enroll(@Valid @RequestBody EnrollmentRequestDto requestDto) {
+        EnrollmentResponseDto responseDto = enrollmentService.enroll(requestDto);
+        return new ResponseEntity<>(responseDto, HttpStatus.CREATED);
+    }
+
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkEnrollmentResultDto> bulkEnroll(@Valid @RequestBody BulkEnrollmentRequestDto requestDto) {
+        BulkEnrollmentResultDto result = enrollmentService.bulkEnroll(requestDto);
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<EnrollmentResponseDto> getEnrollmentById(@PathVariable String id) {
+        EnrollmentResponseDto responseDto = enrollmentService.getEnrollmentById(id);
+        return ResponseEntity.ok(responseDto);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> unenroll(@PathVariable String id) {
+        enrollmentService.unenroll(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/course/{courseId}")
+    public ResponseEntity<List<EnrollmentResponseDto>> getRoster(@PathVariable String courseId) {
+        List<EnrollmentResponseDto> responseDtos = enrollmentService.getRoster(courseId);
+        return ResponseEntity.ok(responseDtos);
+    }
+
+    @GetMapping("/course/{courseId}/roll-call")
+    public ResponseEntity<List<RollCallEntryDto>> getRollCall(
+            @PathVariable String courseId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        List<RollCallEntryDto> responseDtos = rosterService.getRollCall(courseId, date);
+        return ResponseEntity.ok(responseDtos);
+    }
+
+    @GetMapping("/course/{courseId}/gradebook")
+    public ResponseEntity<GradebookDto> getGradebook(@PathVariable String courseId) {
+        GradebookDto gradebook = rosterService.getGradebook(courseId);
+        return ResponseEntity.ok(gradebook);
+    }
+
+    @GetMapping("/student/{studentId}")
+    public ResponseEntity<List<EnrollmentResponseDto>> getEnrollmentsByStudent(@PathVariable String studentId) {
+        List<EnrollmentResponseDto> responseDtos = enrollmentService.getEnrollmentsByStudent(studentId);
+        return ResponseEntity.ok(responseDtos);
+    }
+
+    @GetMapping("/student/{studentId}/schedule")
+    public ResponseEntity<List<ScheduledClassResponseDto>> getStudentSchedule(@PathVariable String studentId) {
+        List<ScheduledClassResponseDto> responseDtos = rosterService.getStudentSchedule(studentId);
+        return ResponseEntity.ok(responseDtos);
+    }
+
+    @GetMapping("/my-schedule")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ResponseEntity<List<ScheduledClassResponseDto>> getMySchedule(@AuthenticationPrincipal DerpUserDetails principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        List<ScheduledClassResponseDto> responseDtos = rosterService.getOwnSchedule(principal.requireStudentId());
+        return ResponseEntity.ok(responseDtos);
+    }
+}
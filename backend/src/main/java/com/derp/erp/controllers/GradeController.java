@@ -1,18 +1,23 @@
 package com.derp.erp.controllers;
 
+import com.derp.erp.dtos.BulkGradeDeleteRequestDto;
+import com.derp.erp.dtos.BulkOperationResultDto;
+import com.derp.erp.dtos.GradeCurveRequestDto;
+import com.derp.erp.dtos.GradeCurveResultDto;
+import com.derp.erp.dtos.GradeRankDto;
 import com.derp.erp.dtos.GradeRequestDto;
 import com.derp.erp.dtos.GradeResponseDto;
-import com.derp.erp.exceptions.ResourceNotFoundException;
-import com.derp.erp.models.Student;
-import com.derp.erp.repositories.StudentRepository;
+import com.derp.erp.query.ListQuerySpec;
+import com.derp.erp.security.DerpUserDetails;
+import com.derp.erp.services.GradeRankingService;
 import com.derp.erp.services.GradeService;
+import com.derp.erp.streaming.StreamedJsonArray;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -23,7 +28,7 @@ import java.util.List;
 public class GradeController {
 
     private final GradeService gradeService;
-    private final StudentRepository studentRepository;
+    private final GradeRankingService gradeRankingService;
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -41,9 +46,14 @@ public class GradeController {
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<GradeResponseDto>> getAllGrades() {
-        List<GradeResponseDto> grades = gradeService.getAllGrades();
-        return ResponseEntity.ok(grades);
+    public ResponseEntity<?> getAllGrades(
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String sort) {
+        if (ListQuerySpec.isRequested(fields, filter, sort)) {
+            return ResponseEntity.ok(gradeService.queryGrades(fields, filter, sort));
+        }
+        return ResponseEntity.ok(gradeService.getAllGrades());
     }
 
     @PutMapping("/{id}")
@@ -60,41 +70,64 @@ public class GradeController {
         return ResponseEntity.noContent().build();
     }
 
+    // preview=true reports the counts without deleting
+    @PostMapping("/bulk/delete")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkOperationResultDto> bulkDeleteGrades(
+            @Valid @RequestBody BulkGradeDeleteRequestDto requestDto,
+            @RequestParam(defaultValue = "false") boolean preview) {
+        BulkOperationResultDto result = gradeService.bulkDeleteGrades(requestDto, preview);
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("/ranking")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<GradeRankDto>> getRanking(@RequestParam String courseId, @RequestParam String assessmentType) {
+        List<GradeRankDto> ranking = gradeRankingService.getRanking(courseId, assessmentType);
+        return ResponseEntity.ok(ranking);
+    }
+
+    // preview=true reports the outcome without writing
+    @PostMapping("/curve")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<GradeCurveResultDto> applyCurve(
+            @Valid @RequestBody GradeCurveRequestDto requestDto,
+            @RequestParam(defaultValue = "false") boolean preview) {
+        GradeCurveResultDto result = gradeRankingService.applyCurve(requestDto, preview);
+        return ResponseEntity.ok(result);
+    }
+
     // Additional endpoints for querying grades
     @GetMapping("/student/{studentId}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<GradeResponseDto>> getGradesByStudent(@PathVariable String studentId) {
-        List<GradeResponseDto> grades = gradeService.getGradesByStudentId(studentId);
+    public ResponseEntity<StreamedJsonArray> getGradesByStudent(@PathVariable String studentId) {
+        StreamedJsonArray grades = gradeService.getGradesByStudentId(studentId);
         return ResponseEntity.ok(grades);
     }
 
     @GetMapping("/course/{courseId}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<GradeResponseDto>> getGradesByCourse(@PathVariable String courseId) {
-        List<GradeResponseDto> grades = gradeService.getGradesByCourseId(courseId);
+    public ResponseEntity<StreamedJsonArray> getGradesByCourse(@PathVariable String courseId) {
+        StreamedJsonArray grades = gradeService.getGradesByCourseId(courseId);
         return ResponseEntity.ok(grades);
     }
 
     @GetMapping("/student/{studentId}/course/{courseId}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<GradeResponseDto>> getGradesByStudentAndCourse(
+    public ResponseEntity<StreamedJsonArray> getGradesByStudentAndCourse(
             @PathVariable String studentId, @PathVariable String courseId) {
-        List<GradeResponseDto> grades = gradeService.getGradesByStudentIdAndCourseId(studentId, courseId);
+        StreamedJsonArray grades = gradeService.getGradesByStudentIdAndCourseId(studentId, courseId);
         return ResponseEntity.ok(grades);
     }
 
     // New endpoint for students to get their own grades
     @GetMapping("/my-grades")
     @PreAuthorize("hasRole('STUDENT')")
-    public ResponseEntity<List<GradeResponseDto>> getMyGrades(@AuthenticationPrincipal UserDetails userDetails) {
-        if (userDetails == null) {
+    public ResponseEntity<StreamedJsonArray> getMyGrades(@AuthenticationPrincipal DerpUserDetails principal) {
+        if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        String email = userDetails.getUsername();
-        Student student = studentRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("Student profile not found for the logged-in user."));
-        
-        List<GradeResponseDto> grades = gradeService.getGradesByStudentId(student.getId());
+        StreamedJsonArray grades = gradeService.getOwnGrades(principal.requireStudentId());
         return ResponseEntity.ok(grades);
     }
 } 
\ No newline at end of file
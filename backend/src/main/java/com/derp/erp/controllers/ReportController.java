@@ -0,0 +1,58 @@
+package com.derp.erp.controllers;
+
+import com.derp.erp.bulkhead.Bulkhead;
+import com.derp.erp.bulkhead.BulkheadType;
+import com.derp.erp.dtos.ReportJobResponseDto;
+import com.derp.erp.models.ReportJobStatus;
+import com.derp.erp.services.ReportJobService;
+import com.mongodb.client.gridfs.GridFSDownloadStream;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@Bulkhead(BulkheadType.REPORTING)
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class ReportController {
+
+    private final ReportJobService reportJobService;
+
+    @PostMapping("/{type}")
+    public ResponseEntity<ReportJobResponseDto> requestReport(@PathVariable String type, @AuthenticationPrincipal UserDetails userDetails) {
+        ReportJobResponseDto job = reportJobService.enqueue(type, userDetails != null ? userDetails.getUsername() : null);
+        return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ReportJobResponseDto>> getJobs(@RequestParam(required = false) ReportJobStatus status) {
+        return ResponseEntity.ok(reportJobService.getJobs(status));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ReportJobResponseDto> getJobById(@PathVariable String id) {
+        return ResponseEntity.ok(reportJobService.getJobById(id));
+    }
+
+    @GetMapping("/{id}/result")
+    public ResponseEntity<InputStreamResource> getResult(@PathVariable String id) {
+        GridFSDownloadStream download = reportJobService.openResult(id);
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv"))
+                .contentLength(download.getGridFSFile().getLength())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(download.getGridFSFile().getFilename()).build().toString())
+                .body(new InputStreamResource(download));
+    }
+}
@@ -0,0 +1,36 @@
+package com.derp.erp.controllers;
+
+import com.derp.erp.dtos.ScheduledClassResponseDto;
+import com.derp.erp.services.ScheduledClassService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/schedule")
+@RequiredArgsConstructor
+public class ScheduleController {
+
+    private final ScheduledClassService scheduledClassService;
+
+    @GetMapping("/now")
+    @PreAuthorize("hasAnyRole('ADMIN', 'STUDENT')")
+    public ResponseEntity<List<ScheduledClassResponseDto>> getClassesNow() {
+        return ResponseEntity.ok(scheduledClassService.getScheduledClassesNow());
+    }
+
+    @GetMapping("/at")
+    @PreAuthorize("hasAnyRole('ADMIN', 'STUDENT')")
+    public ResponseEntity<List<ScheduledClassResponseDto>> getClassesAt(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime time) {
+        return ResponseEntity.ok(scheduledClassService.getScheduledClassesAt(time));
+    }
+}
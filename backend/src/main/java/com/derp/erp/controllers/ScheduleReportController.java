@@ -0,0 +1,36 @@
+package com.derp.erp.controllers;
+
+import com.derp.erp.bulkhead.Bulkhead;
+import com.derp.erp.bulkhead.BulkheadType;
+import com.derp.erp.dtos.InstructorLoadDto;
+import com.derp.erp.dtos.RoomUtilizationDto;
+import com.derp.erp.services.ScheduleReportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@Bulkhead(BulkheadType.REPORTING)
+@RequestMapping("/api/reports/schedule")
+@RequiredArgsConstructor
+public class ScheduleReportController {
+
+    private final ScheduleReportService scheduleReportService;
+
+    @GetMapping("/room-utilization")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<RoomUtilizationDto>> getRoomUtilization() {
+        return ResponseEntity.ok(scheduleReportService.getRoomUtilization());
+    }
+
+    @GetMapping("/instructor-load")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<InstructorLoadDto>> getInstructorLoad() {
+        return ResponseEntity.ok(scheduleReportService.getInstructorLoad());
+    }
+}
@@ -2,6 +2,7 @@ package com.derp.erp.controllers;
 
 import com.derp.erp.dtos.ScheduledClassRequestDto;
 import com.derp.erp.dtos.ScheduledClassResponseDto;
+import com.derp.erp.query.ListQuerySpec;
 import com.derp.erp.services.ScheduledClassService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -35,9 +36,14 @@ public class ScheduledClassController {
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'STUDENT')")
-    public ResponseEntity<List<ScheduledClassResponseDto>> getAllScheduledClasses() {
-        List<ScheduledClassResponseDto> responseDtos = scheduledClassService.getAllScheduledClasses();
-        return ResponseEntity.ok(responseDtos);
+    public ResponseEntity<List<?>> getAllScheduledClasses(
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String sort) {
+        if (ListQuerySpec.isRequested(fields, filter, sort)) {
+            return ResponseEntity.ok(scheduledClassService.queryScheduledClasses(fields, filter, sort));
+        }
+        return ResponseEntity.ok(scheduledClassService.getAllScheduledClasses());
     }
 
     @GetMapping("/course/{courseId}")
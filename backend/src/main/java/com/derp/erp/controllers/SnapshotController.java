@@ -0,0 +1,49 @@
+package com.derp.erp.controllers;
+
+import com.derp.erp.bulkhead.Bulkhead;
+import com.derp.erp.bulkhead.BulkheadType;
+import com.derp.erp.dtos.SnapshotRestoreResultDto;
+import com.derp.erp.snapshot.SnapshotService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+@RestController
+@Bulkhead(value = BulkheadType.REPORTING, deadlineMillis = 0)
+@RequestMapping(SnapshotController.PATH)
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class SnapshotController {
+
+    public static final String PATH = "/api/admin/snapshot";
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private final SnapshotService snapshotService;
+
+    // Written straight to the response as it is read; an interrupted download fails its checksum on restore
+    @GetMapping
+    public void downloadSnapshot(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("derp-snapshot-" + FILE_TIMESTAMP.format(Instant.now()) + ".bson.gz").build().toString());
+        snapshotService.writeSnapshot(response.getOutputStream());
+    }
+
+    @PostMapping(value = "/restore", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<SnapshotRestoreResultDto> restoreSnapshot(HttpServletRequest request) throws IOException {
+        SnapshotRestoreResultDto result = snapshotService.restore(request.getInputStream());
+        return ResponseEntity.ok(result);
+    }
+}
@@ -0,0 +1,43 @@
+package com.derp.erp.controllers;
+
+import com.derp.erp.bulkhead.Bulkhead;
+import com.derp.erp.bulkhead.BulkheadType;
+import com.derp.erp.dtos.StandingRecomputeResultDto;
+import com.derp.erp.dtos.StudentStandingDto;
+import com.derp.erp.services.StudentStandingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/standings")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class StandingController {
+
+    private final StudentStandingService studentStandingService;
+
+    @GetMapping("/student/{studentId}")
+    public ResponseEntity<StudentStandingDto> getStanding(@PathVariable String studentId) {
+        StudentStandingDto standing = studentStandingService.getStanding(studentId);
+        return ResponseEntity.ok(standing);
+    }
+
+    @GetMapping("/top")
+    public ResponseEntity<List<StudentStandingDto>> getTopStudents(
+            @RequestParam(required = false) String program,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<StudentStandingDto> standings = studentStandingService.getTopStudents(program, limit);
+        return ResponseEntity.ok(standings);
+    }
+
+    @PostMapping("/recompute")
+    @Bulkhead(value = BulkheadType.REPORTING, deadlineMillis = 0)
+    public ResponseEntity<StandingRecomputeResultDto> recompute() {
+        StandingRecomputeResultDto result = studentStandingService.recomputeNow();
+        return ResponseEntity.ok(result);
+    }
+}
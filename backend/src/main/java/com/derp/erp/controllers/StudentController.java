@@ -2,12 +2,16 @@ package com.derp.erp.controllers;
 
 import com.derp.erp.dtos.StudentRequestDto;
 import com.derp.erp.dtos.StudentResponseDto;
+import com.derp.erp.dtos.StudentSummaryDto;
+import com.derp.erp.security.DerpUserDetails;
 import com.derp.erp.services.StudentService;
+import com.derp.erp.services.StudentSummaryService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -18,6 +22,7 @@ import java.util.List;
 public class StudentController {
 
     private final StudentService studentService;
+    private final StudentSummaryService studentSummaryService;
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -53,4 +58,14 @@ public class StudentController {
         studentService.deleteStudent(id);
         return ResponseEntity.noContent().build();
     }
-} 
\ No newline at end of file
+
+    @GetMapping("/my-summary")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ResponseEntity<StudentSummaryDto> getMySummary(@AuthenticationPrincipal DerpUserDetails principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        StudentSummaryDto summary = studentSummaryService.getSummary(principal.requireStudentId());
+        return ResponseEntity.ok(summary);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.derp.erp.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+public class AtRiskRefreshResultDto {
+    private boolean fullScan; // True on the first run, when there is no watermark yet
+    private long changedRecords;
+    private long pairsRecomputed;
+    private long atRiskCount;
+    private Instant watermark;
+}
@@ -0,0 +1,19 @@
+package com.derp.erp.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class AtRiskStudentDto {
+    private String studentId;
+    private String studentIdNumber;
+    private String studentFirstName;
+    private String studentLastName;
+    private String courseId;
+    private String courseCode;
+    private String courseName;
+    private long attended; // PRESENT + LATE
+    private long counted; // All sessions except EXCUSED
+    private double attendanceRate;
+}
@@ -0,0 +1,19 @@
+package com.derp.erp.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.DayOfWeek;
+
+@Getter
+@Setter
+public class AttendanceHeatmapCellDto {
+    private DayOfWeek dayOfWeek;
+    private String startTime; // HH:mm of the scheduled class slot
+    private long courseDays; // Course/day pairs counted in this cell
+    private long present;
+    private long late;
+    private long absent;
+    private long excused;
+    private Double attendanceRate;
+}
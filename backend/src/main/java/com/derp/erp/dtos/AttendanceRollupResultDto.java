@@ -0,0 +1,15 @@
+package com.derp.erp.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+public class AttendanceRollupResultDto {
+    private boolean fullRollup; // True on the first run, when no day has been rolled up yet
+    private long daysRolledUp; // Course/day rollups written or removed
+    private LocalDate closedBefore; // Days before this one are answered from rollups
+    private long durationMillis;
+}
@@ -0,0 +1,17 @@
+package com.derp.erp.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+public class AttendanceTrendPointDto {
+    private LocalDate periodStart; // The day, the Monday of the week or the first of the month
+    private long present;
+    private long late;
+    private long absent;
+    private long excused;
+    private Double attendanceRate; // (present + late) / (sessions not excused); null when none were counted
+}
@@ -0,0 +1,21 @@
+package com.derp.erp.dtos;
+
+import com.derp.erp.models.AuditAction;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Getter
+@Setter
+public class AuditEntryResponseDto {
+    private String id;
+    private Instant timestamp;
+    private String principal;
+    private AuditAction action;
+    private String entityType;
+    private String entityId;
+    private Map<String, Object> before;
+    private Map<String, Object> after;
+}
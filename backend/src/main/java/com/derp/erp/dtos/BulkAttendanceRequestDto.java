@@ -0,0 +1,28 @@
+package com.derp.erp.dtos;
+
+import com.derp.erp.models.AttendanceStatus;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+public class BulkAttendanceRequestDto {
+    @NotBlank(message = "Course ID cannot be blank")
+    private String courseId;
+
+    @NotNull(message = "Attendance date cannot be null")
+    private LocalDate attendanceDate;
+
+    private AttendanceStatus matchStatus; // Optional: only records currently in this status
+
+    @Size(max = 1000, message = "At most 1000 students can be selected per request")
+    private List<@NotBlank String> studentIds; // Optional: only these students; all of the session when omitted
+
+    private AttendanceStatus status; // The new status; required for a status update, ignored by a delete
+}
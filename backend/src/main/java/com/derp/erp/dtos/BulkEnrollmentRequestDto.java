@@ -0,0 +1,20 @@
+package com.derp.erp.dtos;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class BulkEnrollmentRequestDto {
+    @NotBlank(message = "Course ID cannot be blank")
+    private String courseId;
+
+    @NotEmpty(message = "Student IDs cannot be empty")
+    @Size(max = 1000, message = "At most 1000 students can be enrolled per request")
+    private List<@NotBlank String> studentIds;
+}
@@ -0,0 +1,15 @@
+package com.derp.erp.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class BulkEnrollmentResultDto {
+    private String courseId;
+    private List<String> enrolled; // Student IDs newly enrolled by this request
+    private List<String> alreadyEnrolled;
+    private List<String> notFound; // Student IDs with no matching student; skipped
+}
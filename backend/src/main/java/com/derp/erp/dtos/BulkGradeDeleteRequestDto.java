@@ -0,0 +1,21 @@
+package com.derp.erp.dtos;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class BulkGradeDeleteRequestDto {
+    @NotBlank(message = "Course ID cannot be blank")
+    private String courseId;
+
+    @NotBlank(message = "Assessment type cannot be blank")
+    private String assessmentType;
+
+    @Size(max = 1000, message = "At most 1000 students can be selected per request")
+    private List<@NotBlank String> studentIds; // Optional: only these students; everyone's grade when omitted
+}
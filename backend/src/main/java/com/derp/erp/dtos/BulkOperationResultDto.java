@@ -0,0 +1,12 @@
+package com.derp.erp.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class BulkOperationResultDto {
+    private boolean preview; // True when nothing was written
+    private long matchedCount; // Records selected by the filter
+    private long affectedCount; // Records changed or deleted; in a preview, the number that would be
+}
@@ -0,0 +1,24 @@
+package com.derp.erp.dtos;
+
+import com.derp.erp.models.CascadeJobStatus;
+import com.derp.erp.models.CascadeTarget;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Getter
+@Setter
+public class CascadeJobResponseDto {
+    private String id;
+    private CascadeTarget targetType;
+    private String targetId;
+    private CascadeJobStatus status;
+    private Map<String, Long> removedCounts;
+    private int attempts;
+    private String lastError;
+    private Instant createdAt;
+    private Instant updatedAt;
+    private Instant completedAt;
+}
@@ -0,0 +1,18 @@
+package com.derp.erp.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class CourseAttendanceDto {
+    private String courseId;
+    private String courseCode;
+    private String courseName;
+    private long present;
+    private long late;
+    private long absent;
+    private long excused;
+    private double attendanceRate;
+    private boolean atRisk;
+}
@@ -25,4 +25,7 @@ public class CourseRequestDto {
     @NotNull(message = "Credits cannot be null")
     @Min(value = 0, message = "Credits must be a positive value or zero")
     private Integer credits;
+
+    @Size(max = 100, message = "Department cannot exceed 100 characters")
+    private String department;
 } 
\ No newline at end of file
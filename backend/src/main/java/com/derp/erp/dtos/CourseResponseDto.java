@@ -11,4 +11,5 @@ public class CourseResponseDto {
     private String courseName;
     private String description;
     private Integer credits;
+    private String department;
 } 
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.derp.erp.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class CourseStandingDto {
+    private String courseId;
+    private String courseCode;
+    private String courseName;
+    private int credits;
+    private int gradedAssessments;
+    private Double averagePoints;
+    private boolean passed;
+}
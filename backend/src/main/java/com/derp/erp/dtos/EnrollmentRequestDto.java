@@ -0,0 +1,15 @@
+package com.derp.erp.dtos;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class EnrollmentRequestDto {
+    @NotBlank(message = "Student ID cannot be blank")
+    private String studentId;
+
+    @NotBlank(message = "Course ID cannot be blank")
+    private String courseId;
+}
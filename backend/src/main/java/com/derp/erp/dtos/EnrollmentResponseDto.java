@@ -0,0 +1,20 @@
+package com.derp.erp.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+public class EnrollmentResponseDto {
+    private String id;
+    private String studentId;
+    private String studentIdNumber;
+    private String studentFirstName;
+    private String studentLastName;
+    private String courseId;
+    private String courseCode;
+    private String courseName;
+    private Instant enrolledAt;
+}
@@ -0,0 +1,23 @@
+package com.derp.erp.dtos;
+
+import com.derp.erp.models.CurveMethod;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class GradeCurveRequestDto {
+    @NotBlank(message = "Course ID cannot be blank")
+    private String courseId;
+
+    @NotBlank(message = "Assessment type cannot be blank")
+    private String assessmentType;
+
+    @NotNull(message = "Curve method cannot be null")
+    private CurveMethod method;
+
+    @NotNull(message = "Curve value cannot be null")
+    private Double value; // Points to add (ADD_POINTS) or the new top score (SCALE_TO_TOP)
+}
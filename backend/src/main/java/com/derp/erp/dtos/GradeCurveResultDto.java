@@ -0,0 +1,14 @@
+package com.derp.erp.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class GradeCurveResultDto {
+    private boolean preview; // True when nothing was written
+    private long matchedCount; // Grades with a numeric score
+    private long affectedCount; // Grades whose value changed (or would change, in a preview)
+    private Double meanBefore;
+    private Double meanAfter;
+}
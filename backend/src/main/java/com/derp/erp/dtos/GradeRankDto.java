@@ -0,0 +1,18 @@
+package com.derp.erp.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class GradeRankDto {
+    private String gradeId;
+    private String studentId;
+    private String studentIdNumber;
+    private String studentFirstName;
+    private String studentLastName;
+    private String gradeValue;
+    private double score;
+    private long rank; // 1 is the top score; equal scores share a rank
+    private double percentile; // Share of scores below this one, counting equal scores as half, in percent
+}
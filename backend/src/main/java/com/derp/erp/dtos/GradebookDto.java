@@ -0,0 +1,16 @@
+package com.derp.erp.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class GradebookDto {
+    private String courseId;
+    private String courseCode;
+    private String courseName;
+    private List<String> assessmentTypes; // Column order for the rows' grades
+    private List<GradebookRowDto> rows;
+}
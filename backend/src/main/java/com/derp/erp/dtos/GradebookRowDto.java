@@ -0,0 +1,16 @@
+package com.derp.erp.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Map;
+
+@Getter
+@Setter
+public class GradebookRowDto {
+    private String studentId;
+    private String studentIdNumber;
+    private String studentFirstName;
+    private String studentLastName;
+    private Map<String, String> grades; // Assessment type -> grade value; absent when not graded yet
+}
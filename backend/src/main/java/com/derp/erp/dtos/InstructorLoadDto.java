@@ -0,0 +1,14 @@
+package com.derp.erp.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class InstructorLoadDto {
+    private String instructorName;
+    private long sections;
+    private long courses;
+    private long contactMinutes;
+    private double contactHours;
+}
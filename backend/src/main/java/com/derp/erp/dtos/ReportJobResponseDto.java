@@ -0,0 +1,25 @@
+package com.derp.erp.dtos;
+
+import com.derp.erp.models.ReportJobStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+public class ReportJobResponseDto {
+    private String id;
+    private String type;
+    private ReportJobStatus status;
+    private String requestedBy;
+    private long processedItems;
+    private long totalItems;
+    private String resultFileName;
+    private int attempts;
+    private String lastError;
+    private Instant createdAt;
+    private Instant updatedAt;
+    private Instant startedAt;
+    private Instant completedAt;
+}
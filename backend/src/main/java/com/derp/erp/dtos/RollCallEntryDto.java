@@ -0,0 +1,16 @@
+package com.derp.erp.dtos;
+
+import com.derp.erp.models.AttendanceStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class RollCallEntryDto {
+    private String studentId;
+    private String studentIdNumber;
+    private String studentFirstName;
+    private String studentLastName;
+    private String attendanceRecordId; // Null until attendance is recorded for the date
+    private AttendanceStatus status;
+}
@@ -0,0 +1,14 @@
+package com.derp.erp.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class RoomUtilizationDto {
+    private String roomNumber;
+    private long sections;
+    private long occupiedMinutes;
+    private long availableMinutes;
+    private double utilizationPercent; // Above 100 means overlapping bookings
+}
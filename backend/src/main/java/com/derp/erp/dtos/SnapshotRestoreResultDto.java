@@ -0,0 +1,16 @@
+package com.derp.erp.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Getter
+@Setter
+public class SnapshotRestoreResultDto {
+    private Instant snapshotCreatedAt;
+    private Map<String, Long> documents; // Documents restored per collection
+    private long totalDocuments;
+    private long durationMillis;
+}
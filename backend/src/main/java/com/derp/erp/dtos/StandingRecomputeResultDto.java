@@ -0,0 +1,13 @@
+package com.derp.erp.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class StandingRecomputeResultDto {
+    private long gradesRead;
+    private long unreadableGrades; // Grade values GradePoints cannot interpret; left out of standings
+    private long studentsRecomputed;
+    private long durationMillis;
+}
@@ -26,4 +26,7 @@ public class StudentRequestDto {
     @NotBlank(message = "Student ID number cannot be blank")
     @Size(max = 20, message = "Student ID number cannot exceed 20 characters")
     private String studentIdNumber;
+
+    @Size(max = 100, message = "Program cannot exceed 100 characters")
+    private String program; // Optional, can be null
 } 
\ No newline at end of file
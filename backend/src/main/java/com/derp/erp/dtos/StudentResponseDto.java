@@ -11,4 +11,5 @@ public class StudentResponseDto {
     private String lastName;
     private String email;
     private String studentIdNumber;
+    private String program;
 } 
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.derp.erp.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.List;
+
+@Getter
+@Setter
+public class StudentStandingDto {
+    private String studentId;
+    private String studentIdNumber;
+    private String studentFirstName;
+    private String studentLastName;
+    private String program;
+    private int creditsAttempted;
+    private int creditsEarned;
+    private Double gpa; // Rounded to two decimals; null without any graded course that carries points
+    private List<CourseStandingDto> courses; // Only on the single-student lookup
+    private Instant updatedAt;
+}
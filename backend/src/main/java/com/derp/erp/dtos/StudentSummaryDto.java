@@ -0,0 +1,14 @@
+package com.derp.erp.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class StudentSummaryDto {
+    private StudentStandingDto standing; // Credits, GPA and the per-course results
+    private int enrolledCourses;
+    private List<CourseAttendanceDto> attendance; // From the attendance tallies, so as of their last refresh
+}
@@ -0,0 +1,20 @@
+package com.derp.erp.exceptions;
+
+import lombok.Getter;
+
+// Thrown when the password hashing pool is saturated; surfaced to clients as 429 with Retry-After.
+@Getter
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public PasswordHashingRejectedException(String message, long retryAfterSeconds, Throwable cause) {
+        super(message, cause);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
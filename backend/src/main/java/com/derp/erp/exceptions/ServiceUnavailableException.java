@@ -0,0 +1,15 @@
+package com.derp.erp.exceptions;
+
+import lombok.Getter;
+
+// Thrown when a bulkhead is full or its circuit is open; surfaced to clients as 503 with Retry-After.
+@Getter
+public class ServiceUnavailableException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,154 @@
+package com.derp.erp.idempotency;
+
+import com.derp.erp.controllers.SnapshotController;
+import com.derp.erp.models.IdempotencyRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Honors the Idempotency-Key header on POST requests: the first request with a key runs normally and its response
+// is stored; retries with the same key and the same request get that response back without reaching a controller.
+// Runs after authorization so keys are scoped to the authenticated user and rejected requests never claim a key.
+// Anonymous requests (registration, login) have no user to scope a key to and are passed through without one.
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+
+    public IdempotencyFilter(IdempotencyStore idempotencyStore, ObjectMapper objectMapper) {
+        this.idempotencyStore = idempotencyStore;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Snapshot restores are streamed and may be gigabytes; caching their body would defeat that
+        return !HttpMethod.POST.matches(request.getMethod()) || request.getHeader(HEADER) == null
+                || request.getRequestURI().startsWith(SnapshotController.PATH) || currentPrincipal() == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(request, response, HttpStatus.BAD_REQUEST, HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters.");
+            return;
+        }
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String id = sha256(currentPrincipal() + "\n" + key);
+        String fingerprint = sha256(request.getMethod() + " " + request.getRequestURI() + "?" + request.getQueryString() + "\n",
+                cachedRequest.getBody());
+
+        IdempotencyStore.Claim claim = idempotencyStore.claim(id, fingerprint);
+        if (claim.existing() != null && claim.outcome() != IdempotencyStore.Claim.Outcome.ACQUIRED
+                && !fingerprint.equals(claim.existing().getFingerprint())) {
+            writeError(request, response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    HEADER + " was already used for a different request.");
+            return;
+        }
+        switch (claim.outcome()) {
+            case COMPLETED -> replay(claim.existing(), response);
+            case IN_PROGRESS -> {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                writeError(request, response, HttpStatus.CONFLICT, "A request with this " + HEADER + " is still being processed.");
+            }
+            case ACQUIRED -> execute(cachedRequest, response, filterChain, id);
+        }
+    }
+
+    private void execute(CachedBodyRequest request, HttpServletResponse response, FilterChain filterChain, String id)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(request, cachingResponse);
+            // Server errors are not stored, so a retry gets another chance
+            if (cachingResponse.getStatus() < 500) {
+                idempotencyStore.complete(id, cachingResponse.getStatus(), cachingResponse.getContentType(),
+                        cachingResponse.getHeader(HttpHeaders.LOCATION), cachingResponse.getContentAsByteArray());
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                idempotencyStore.release(id);
+            }
+        }
+        cachingResponse.copyBodyToResponse();
+    }
+
+    private void replay(IdempotencyRecord record, HttpServletResponse response) throws IOException {
+        response.setStatus(record.getResponseStatus());
+        if (record.getResponseContentType() != null) {
+            response.setContentType(record.getResponseContentType());
+        }
+        if (record.getResponseLocation() != null) {
+            response.setHeader(HttpHeaders.LOCATION, record.getResponseLocation());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        byte[] body = record.getResponseBody();
+        if (body != null) {
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+
+    // null for anonymous requests, whose AnonymousAuthenticationToken all share one name
+    private static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken) ? authentication.getName() : null;
+    }
+
+    private static String sha256(String text, byte[]... extra) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(text.getBytes(StandardCharsets.UTF_8));
+            for (byte[] bytes : extra) {
+                digest.update(bytes);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void writeError(HttpServletRequest request, HttpServletResponse response, HttpStatus status, String message)
+            throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", message);
+        body.put("path", request.getRequestURI());
+
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
@@ -0,0 +1,122 @@
+package com.derp.erp.idempotency;
+
+import com.derp.erp.models.IdempotencyRecord;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+// idempotency_keys (TTL-indexed) with an LRU of completed records in front, so hot retries skip Mongo entirely.
+// Claiming a key is a unique insert, which makes concurrent duplicates race on the _id rather than on service logic.
+@Component
+@Slf4j
+public class IdempotencyStore {
+
+    // Matches the TTL index on IdempotencyRecord.createdAt
+    private static final Duration RETENTION = Duration.ofHours(24);
+    // Each failed attempt means the key was released or expired right after a duplicate insert
+    private static final int MAX_CLAIM_ATTEMPTS = 3;
+
+    private final MongoTemplate mongoTemplate;
+    private final Cache<String, IdempotencyRecord> completed;
+    private final Duration lockTimeout;
+
+    public IdempotencyStore(MongoTemplate mongoTemplate,
+                            @Value("${derp.idempotency.cache-size:10000}") long cacheSize,
+                            @Value("${derp.idempotency.lock-timeout-ms:60000}") long lockTimeoutMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(RETENTION)
+                .build();
+        this.lockTimeout = Duration.ofMillis(lockTimeoutMillis);
+    }
+
+    public Claim claim(String id, String fingerprint) {
+        IdempotencyRecord cached = completed.getIfPresent(id);
+        if (cached != null) {
+            return new Claim(Claim.Outcome.COMPLETED, cached);
+        }
+        for (int attempt = 0; attempt < MAX_CLAIM_ATTEMPTS; attempt++) {
+            Claim claim = tryClaim(id, fingerprint);
+            if (claim != null) {
+                return claim;
+            }
+        }
+        // The key keeps being released and claimed again by concurrent attempts; the client retries later
+        return new Claim(Claim.Outcome.IN_PROGRESS, null);
+    }
+
+    // null when the key vanished between the insert and the read, so the claim can be tried again
+    private Claim tryClaim(String id, String fingerprint) {
+        try {
+            mongoTemplate.insert(new IdempotencyRecord(id, fingerprint));
+            return new Claim(Claim.Outcome.ACQUIRED, null);
+        } catch (DuplicateKeyException e) {
+            // Someone holds or has finished this key
+        }
+        IdempotencyRecord existing = mongoTemplate.findById(id, IdempotencyRecord.class);
+        if (existing == null) {
+            return null;
+        }
+        if (existing.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+            completed.put(id, existing);
+            return new Claim(Claim.Outcome.COMPLETED, existing);
+        }
+        if (fingerprint.equals(existing.getFingerprint())) {
+            // The attempt holding the key may have died without releasing it; take over once it is stale
+            Query stale = new Query(Criteria.where("id").is(id)
+                    .and("status").is(IdempotencyRecord.Status.IN_PROGRESS)
+                    .and("lockedAt").lt(Instant.now().minus(lockTimeout)));
+            IdempotencyRecord reclaimed = mongoTemplate.findAndModify(stale, new Update().set("lockedAt", Instant.now()),
+                    FindAndModifyOptions.options().returnNew(true), IdempotencyRecord.class);
+            if (reclaimed != null) {
+                return new Claim(Claim.Outcome.ACQUIRED, null);
+            }
+        }
+        return new Claim(Claim.Outcome.IN_PROGRESS, existing);
+    }
+
+    public void complete(String id, int status, String contentType, String location, byte[] body) {
+        Update update = new Update()
+                .set("status", IdempotencyRecord.Status.COMPLETED)
+                .set("responseStatus", status)
+                .set("responseContentType", contentType)
+                .set("responseLocation", location)
+                .set("responseBody", body);
+        IdempotencyRecord record = mongoTemplate.findAndModify(new Query(Criteria.where("id").is(id)), update,
+                FindAndModifyOptions.options().returnNew(true), IdempotencyRecord.class);
+        if (record != null) {
+            completed.put(id, record);
+        }
+    }
+
+    // Frees the key after a failed attempt so the client's retry runs again
+    public void release(String id) {
+        try {
+            mongoTemplate.remove(new Query(Criteria.where("id").is(id).and("status").is(IdempotencyRecord.Status.IN_PROGRESS)),
+                    IdempotencyRecord.class);
+        } catch (RuntimeException e) {
+            log.warn("Could not release idempotency key {}; it frees up after the lock timeout", id, e);
+        }
+    }
+
+    public record Claim(Outcome outcome, IdempotencyRecord existing) {
+
+        public enum Outcome {
+            ACQUIRED,
+            COMPLETED,
+            IN_PROGRESS
+        }
+    }
+}
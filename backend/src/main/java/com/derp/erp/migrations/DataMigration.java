@@ -0,0 +1,10 @@
+package com.derp.erp.migrations;
+
+// A one-off, idempotent data fix applied once per database by DataMigrationRunner.
+public interface DataMigration {
+
+    String name();
+
+    // Returns the number of documents changed
+    long apply();
+}
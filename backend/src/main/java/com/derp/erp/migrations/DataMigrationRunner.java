@@ -0,0 +1,45 @@
+package com.derp.erp.migrations;
+
+import com.derp.erp.models.DataMigrationRecord;
+import com.derp.erp.repositories.DataMigrationRecordRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+// Runs pending migrations in the background once the application is up, recording each in data_migrations.
+// Migrations must be idempotent: a crash between apply() and the record means it runs again on next start.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DataMigrationRunner {
+
+    private final List<DataMigration> migrations;
+    private final DataMigrationRecordRepository dataMigrationRecordRepository;
+    private final TaskScheduler taskScheduler;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        taskScheduler.schedule(this::runPendingMigrations, Instant.now());
+    }
+
+    public void runPendingMigrations() {
+        for (DataMigration migration : migrations) {
+            try {
+                if (dataMigrationRecordRepository.existsById(migration.name())) {
+                    continue;
+                }
+                long migrated = migration.apply();
+                dataMigrationRecordRepository.save(new DataMigrationRecord(migration.name(), Instant.now(), migrated));
+                log.info("Applied data migration {} ({} document(s))", migration.name(), migrated);
+            } catch (RuntimeException e) {
+                log.warn("Data migration {} failed; it will be retried on next start", migration.name(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.derp.erp.migrations;
+
+import com.derp.erp.models.GradePoints;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Backfills Grade.score from gradeValue for grades written before it existed. Non-numeric values get an explicit
+// null, so every grade ends up with the field and a rerun finds nothing left to do.
+@Component
+@Order(2)
+@RequiredArgsConstructor
+public class GradeScoresMigration implements DataMigration {
+
+    private static final String COLLECTION = "grades";
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public String name() {
+        return "2026-10-grade-scores";
+    }
+
+    @Override
+    public long apply() {
+        long migrated = 0;
+        Object lastId = null;
+        while (true) {
+            Criteria criteria = Criteria.where("score").exists(false);
+            if (lastId != null) {
+                criteria = criteria.and("_id").gt(lastId);
+            }
+            Query batchQuery = new Query(criteria).limit(BATCH_SIZE).with(Sort.by("_id"));
+            batchQuery.fields().include("gradeValue");
+            List<Document> batch = mongoTemplate.find(batchQuery, Document.class, COLLECTION);
+            if (batch.isEmpty()) {
+                return migrated;
+            }
+            BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+            for (Document document : batch) {
+                Double score = GradePoints.percent(document.getString("gradeValue")).orElse(null);
+                bulkOps.updateOne(new Query(Criteria.where("_id").is(document.get("_id")).and("score").exists(false)),
+                        new Update().set("score", score));
+            }
+            migrated += bulkOps.execute().getModifiedCount();
+            lastId = batch.get(batch.size() - 1).get("_id");
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.derp.erp.migrations;
+
+import com.derp.erp.models.MinuteOfDay;
+import com.derp.erp.models.Weekday;
+import com.derp.erp.services.ScheduleChangedEvent;
+import com.mongodb.client.model.ReplaceOptions;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+// Converts scheduled classes from string times ("09:00") to minute-of-day integers and normalizes the free-text
+// dayOfWeek to a DayOfWeek name. A class whose day cannot be read at all is moved to scheduled_classes_quarantine,
+// so it cannot break the timetable reads, and logged for someone to fix by hand.
+@Component
+@Order(1)
+@RequiredArgsConstructor
+@Slf4j
+public class ScheduleTimesMigration implements DataMigration {
+
+    private static final String COLLECTION = "scheduled_classes";
+    private static final String QUARANTINE = "scheduled_classes_quarantine";
+    private static final int BATCH_SIZE = 500;
+    private static final List<String> DAY_NAMES = Arrays.stream(DayOfWeek.values()).map(Enum::name).toList();
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public String name() {
+        return "2025-06-schedule-typed-times";
+    }
+
+    @Override
+    public long apply() {
+        long migrated = 0;
+        Object lastId = null;
+        while (true) {
+            Criteria criteria = new Criteria().orOperator(
+                    Criteria.where("startTime").exists(true),
+                    Criteria.where("dayOfWeek").exists(true).nin(DAY_NAMES));
+            if (lastId != null) {
+                criteria = criteria.and("_id").gt(lastId);
+            }
+            // Paged by _id so documents skipped as unparseable are not fetched again
+            Query batchQuery = new Query(criteria).limit(BATCH_SIZE).with(Sort.by("_id"));
+            List<Document> batch = mongoTemplate.find(batchQuery, Document.class, COLLECTION);
+            if (batch.isEmpty()) {
+                if (migrated > 0) {
+                    eventPublisher.publishEvent(new ScheduleChangedEvent("schedule times migrated"));
+                }
+                return migrated;
+            }
+            BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+            int queued = 0;
+            for (Document document : batch) {
+                Update update = toTypedUpdate(document);
+                if (update == null) {
+                    migrated += quarantine(document);
+                } else if (!update.getUpdateObject().isEmpty()) {
+                    bulkOps.updateOne(new Query(Criteria.where("_id").is(document.get("_id"))), update);
+                    queued++;
+                }
+            }
+            if (queued > 0) {
+                migrated += bulkOps.execute().getModifiedCount();
+            }
+            lastId = batch.get(batch.size() - 1).get("_id");
+        }
+    }
+
+    // null when the day cannot be read; unparseable times are left as they are and read as no times
+    private Update toTypedUpdate(Document document) {
+        Update update = new Update();
+        Object dayOfWeek = document.get("dayOfWeek");
+        if (dayOfWeek != null) {
+            try {
+                update.set("dayOfWeek", Weekday.parse(dayOfWeek.toString()).name());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        try {
+            int startMinute = MinuteOfDay.parse(document.getString("startTime"));
+            int endMinute = MinuteOfDay.parse(document.getString("endTime"));
+            update.set("startMinute", startMinute)
+                    .set("endMinute", endMinute)
+                    .unset("startTime")
+                    .unset("endTime");
+        } catch (IllegalArgumentException e) {
+            log.warn("Scheduled class {} keeps its unparseable times: {}", document.get("_id"), e.getMessage());
+        }
+        return update;
+    }
+
+    // Upserted first, so a crash before the delete leaves a copy in both rather than in neither
+    private long quarantine(Document document) {
+        log.warn("Moving scheduled class {} to {}: unreadable dayOfWeek '{}'", document.get("_id"), QUARANTINE,
+                document.get("dayOfWeek"));
+        Document copy = new Document(document).append("quarantinedAt", Instant.now())
+                .append("quarantineReason", "unreadable dayOfWeek");
+        mongoTemplate.getCollection(QUARANTINE).replaceOne(new Document("_id", document.get("_id")), copy,
+                new ReplaceOptions().upsert(true));
+        return mongoTemplate.remove(new Query(Criteria.where("_id").is(document.get("_id"))), COLLECTION).getDeletedCount();
+    }
+}
@@ -0,0 +1,59 @@
+package com.derp.erp.migrations;
+
+import com.derp.erp.models.Role;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Links the student accounts created before User.studentId existed to their students, matching the username to the
+// student's email the way the self-service endpoints used to on every request.
+@Component
+@Order(3)
+@RequiredArgsConstructor
+public class UserStudentLinksMigration implements DataMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public String name() {
+        return "2026-10-user-student-links";
+    }
+
+    @Override
+    public long apply() {
+        long migrated = 0;
+        Object lastId = null;
+        while (true) {
+            Criteria criteria = Criteria.where("email").exists(true);
+            if (lastId != null) {
+                criteria = criteria.and("_id").gt(lastId);
+            }
+            Query batchQuery = new Query(criteria).limit(BATCH_SIZE).with(Sort.by("_id"));
+            batchQuery.fields().include("email");
+            List<Document> batch = mongoTemplate.find(batchQuery, Document.class, "students");
+            if (batch.isEmpty()) {
+                return migrated;
+            }
+            BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "users");
+            for (Document student : batch) {
+                bulkOps.updateOne(new Query(Criteria.where("username").is(student.getString("email"))
+                                .and("roles").is(Role.ROLE_STUDENT.name())
+                                .and("studentId").exists(false)),
+                        new Update().set("studentId", student.get("_id").toString()));
+            }
+            migrated += bulkOps.execute().getModifiedCount();
+            lastId = batch.get(batch.size() - 1).get("_id");
+        }
+    }
+}
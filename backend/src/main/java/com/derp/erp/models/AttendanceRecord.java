@@ -4,10 +4,13 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 
+import java.time.Instant;
 import java.time.LocalDate;
 
 @Document(collection = "attendance_records")
@@ -15,6 +18,9 @@ import java.time.LocalDate;
 @Setter
 @NoArgsConstructor
 @CompoundIndex(name = "student_course_date_unique_idx", def = "{'student': 1, 'course': 1, 'attendanceDate': 1}", unique = true)
+// Derived queries filter on the DBRef ids (student.$id, course.$id), which the index above cannot serve
+@CompoundIndex(name = "student_id_course_id_date_idx", def = "{'student.$id': 1, 'course.$id': 1, 'attendanceDate': 1}")
+@CompoundIndex(name = "course_id_date_idx", def = "{'course.$id': 1, 'attendanceDate': 1}")
 public class AttendanceRecord {
 
     @Id
@@ -31,6 +37,11 @@ public class AttendanceRecord {
     // @Enumerated(EnumType.STRING) // Removed, Spring Data MongoDB handles Enum to String by default
     private AttendanceStatus status;
 
+    // Lets the at-risk detector read only records changed since its last run
+    @LastModifiedDate
+    @Indexed
+    private Instant lastModifiedAt;
+
     public AttendanceRecord(Student student, Course course, LocalDate attendanceDate, AttendanceStatus status) {
         this.student = student;
         this.course = course;
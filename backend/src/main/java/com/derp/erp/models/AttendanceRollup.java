@@ -0,0 +1,47 @@
+package com.derp.erp.models;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+// Attendance counts of one course on one closed day, maintained by AttendanceAnalyticsService.
+@Document(collection = "attendance_rollups")
+@Getter
+@Setter
+@NoArgsConstructor
+@CompoundIndex(name = "course_date_unique_idx", def = "{'courseId': 1, 'date': 1}", unique = true)
+@CompoundIndex(name = "date_idx", def = "{'date': 1}")
+public class AttendanceRollup {
+
+    @Id
+    private String id;
+
+    // Stored as an ObjectId, like the DBRef ids in attendance_records
+    @Field(targetType = FieldType.OBJECT_ID)
+    private String courseId;
+
+    private LocalDate date;
+
+    private long present;
+
+    private long late;
+
+    private long absent;
+
+    private long excused;
+
+    // Set when a record of this day is deleted, since deletions leave no lastModifiedAt behind
+    @Indexed(sparse = true)
+    private Instant dirtyAt;
+
+    private Instant updatedAt;
+}
@@ -0,0 +1,52 @@
+package com.derp.erp.models;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.time.Instant;
+
+// Running attendance counts for one student in one course, maintained by AtRiskAttendanceService.
+@Document(collection = "attendance_tallies")
+@Getter
+@Setter
+@NoArgsConstructor
+@CompoundIndex(name = "student_course_unique_idx", def = "{'studentId': 1, 'courseId': 1}", unique = true)
+@CompoundIndex(name = "course_idx", def = "{'courseId': 1}")
+@CompoundIndex(name = "at_risk_rate_idx", def = "{'atRisk': 1, 'attendanceRate': 1}")
+public class AttendanceTally {
+
+    @Id
+    private String id;
+
+    // Stored as ObjectIds, like the DBRef ids in attendance_records
+    @Field(targetType = FieldType.OBJECT_ID)
+    private String studentId;
+
+    @Field(targetType = FieldType.OBJECT_ID)
+    private String courseId;
+
+    private long present;
+
+    private long late;
+
+    private long absent;
+
+    private long excused;
+
+    private double attendanceRate; // (present + late) / (sessions not excused)
+
+    private boolean atRisk;
+
+    // Set when a record for this pair is deleted, since deletions leave no lastModifiedAt behind
+    @Indexed(sparse = true)
+    private Instant dirtyAt;
+
+    private Instant updatedAt;
+}
@@ -0,0 +1,7 @@
+package com.derp.erp.models;
+
+public enum AuditAction {
+    CREATE,
+    UPDATE,
+    DELETE
+}
@@ -0,0 +1,49 @@
+package com.derp.erp.models;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Document(collection = "audit_log")
+@Getter
+@Setter
+@NoArgsConstructor
+@CompoundIndex(name = "entity_timestamp_idx", def = "{'entityType': 1, 'entityId': 1, 'timestamp': -1}")
+@CompoundIndex(name = "principal_timestamp_idx", def = "{'principal': 1, 'timestamp': -1}")
+@CompoundIndex(name = "timestamp_idx", def = "{'timestamp': -1}")
+public class AuditEntry {
+
+    @Id
+    private String id;
+
+    private Instant timestamp; // When the change was made, not when the entry was flushed
+
+    private String principal;
+
+    private AuditAction action;
+
+    private String entityType; // e.g. "Grade", "AttendanceRecord"
+
+    private String entityId;
+
+    private Map<String, Object> before; // Null for CREATE
+
+    private Map<String, Object> after; // Null for DELETE
+
+    public AuditEntry(Instant timestamp, String principal, AuditAction action, String entityType, String entityId,
+                      Map<String, Object> before, Map<String, Object> after) {
+        this.timestamp = timestamp;
+        this.principal = principal;
+        this.action = action;
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.before = before;
+        this.after = after;
+    }
+}
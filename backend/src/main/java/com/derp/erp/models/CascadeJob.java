@@ -0,0 +1,51 @@
+package com.derp.erp.models;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Document(collection = "cascade_jobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@CompoundIndex(name = "status_created_idx", def = "{'status': 1, 'createdAt': 1}")
+@CompoundIndex(name = "target_status_idx", def = "{'targetType': 1, 'targetId': 1, 'status': 1}")
+public class CascadeJob {
+
+    @Id
+    private String id;
+
+    private CascadeTarget targetType;
+
+    private String targetId; // Id of the deleted student or course
+
+    private CascadeJobStatus status;
+
+    // Dependent collection name -> number of documents removed so far
+    private Map<String, Long> removedCounts = new LinkedHashMap<>();
+
+    private int attempts;
+
+    private String lastError;
+
+    private Instant createdAt;
+
+    private Instant updatedAt;
+
+    private Instant completedAt;
+
+    public CascadeJob(CascadeTarget targetType, String targetId) {
+        this.targetType = targetType;
+        this.targetId = targetId;
+        this.status = CascadeJobStatus.PENDING;
+        this.createdAt = Instant.now();
+        this.updatedAt = this.createdAt;
+    }
+}
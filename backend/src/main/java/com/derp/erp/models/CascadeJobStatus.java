@@ -0,0 +1,8 @@
+package com.derp.erp.models;
+
+public enum CascadeJobStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
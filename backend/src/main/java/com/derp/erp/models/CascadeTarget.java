@@ -0,0 +1,6 @@
+package com.derp.erp.models;
+
+public enum CascadeTarget {
+    STUDENT,
+    COURSE
+}
@@ -25,6 +25,10 @@ public class Course {
 
     private Integer credits;
 
+    // Optional; groups courses in the attendance analytics
+    @Indexed(sparse = true)
+    private String department;
+
     public Course(String courseCode, String courseName, String description, Integer credits) {
         this.courseCode = courseCode;
         this.courseName = courseName;
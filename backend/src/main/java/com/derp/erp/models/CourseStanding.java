@@ -0,0 +1,25 @@
+package com.derp.erp.models;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+// One course's contribution to a StudentStanding, rebuilt from that student's grades in the course.
+@Getter
+@Setter
+@NoArgsConstructor
+public class CourseStanding {
+
+    @Field(targetType = FieldType.OBJECT_ID)
+    private String courseId;
+
+    private int credits;
+
+    private int gradedAssessments; // Assessments with a readable grade value
+
+    private Double averagePoints; // Mean over assessments with points; null when all are pass/fail
+
+    private boolean passed;
+}
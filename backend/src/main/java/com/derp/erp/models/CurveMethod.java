@@ -0,0 +1,7 @@
+package com.derp.erp.models;
+
+// How GradeRankingService.applyCurve adjusts an assessment's scores; results are capped at 100.
+public enum CurveMethod {
+    ADD_POINTS,   // Every score plus the given number of points
+    SCALE_TO_TOP  // Every score scaled so the top score becomes the given value
+}
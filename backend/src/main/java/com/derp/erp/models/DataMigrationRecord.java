@@ -0,0 +1,29 @@
+package com.derp.erp.models;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(collection = "data_migrations")
+@Getter
+@Setter
+@NoArgsConstructor
+public class DataMigrationRecord {
+
+    @Id
+    private String id; // Migration name
+
+    private Instant appliedAt;
+
+    private long documentsMigrated;
+
+    public DataMigrationRecord(String id, Instant appliedAt, long documentsMigrated) {
+        this.id = id;
+        this.appliedAt = appliedAt;
+        this.documentsMigrated = documentsMigrated;
+    }
+}
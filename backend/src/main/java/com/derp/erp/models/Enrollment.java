@@ -0,0 +1,41 @@
+package com.derp.erp.models;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.time.Instant;
+
+// A student's place in a course. Plain ids rather than @DBRefs, so a roster is one indexed query plus one
+// batched student lookup instead of a reference resolved per row.
+@Document(collection = "enrollments")
+@Getter
+@Setter
+@NoArgsConstructor
+@CompoundIndex(name = "course_student_unique_idx", def = "{'courseId': 1, 'studentId': 1}", unique = true)
+@CompoundIndex(name = "student_course_idx", def = "{'studentId': 1, 'courseId': 1}")
+public class Enrollment {
+
+    @Id
+    private String id;
+
+    // Stored as ObjectIds, like the DBRef ids in grades and attendance_records
+    @Field(targetType = FieldType.OBJECT_ID)
+    private String studentId;
+
+    @Field(targetType = FieldType.OBJECT_ID)
+    private String courseId;
+
+    private Instant enrolledAt;
+
+    public Enrollment(String studentId, String courseId) {
+        this.studentId = studentId;
+        this.courseId = courseId;
+        this.enrolledAt = Instant.now();
+    }
+}
@@ -15,6 +15,9 @@ import java.time.LocalDate;
 @Setter
 @NoArgsConstructor
 @CompoundIndex(name = "student_course_assessment_unique_idx", def = "{'student': 1, 'course': 1, 'assessmentType': 1}", unique = true)
+// Derived queries filter on the DBRef ids (student.$id, course.$id), which the index above cannot serve
+@CompoundIndex(name = "student_id_course_id_assessment_idx", def = "{'student.$id': 1, 'course.$id': 1, 'assessmentType': 1}")
+@CompoundIndex(name = "course_id_assessment_idx", def = "{'course.$id': 1, 'assessmentType': 1}")
 public class Grade {
 
     @Id
@@ -30,6 +33,9 @@ public class Grade {
 
     private String gradeValue; // e.g., "A+", "85%", "Pass"
 
+    // gradeValue as a percentage (GradePoints.percent), or null when it is not numeric; ranked and curved by
+    private Double score;
+
     private LocalDate assessmentDate;
 
     private String comments;
@@ -0,0 +1,76 @@
+package com.derp.erp.models;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Reads a free-text grade value ("A-", "85%", "42/50", "Pass") as points on a 4.0 scale.
+// Pass/fail grades carry no points; values that cannot be read are left out of standings.
+public record GradePoints(Double points, boolean passed) {
+
+    private static final Map<String, Double> LETTER_POINTS = Map.ofEntries(
+            Map.entry("A+", 4.0), Map.entry("A", 4.0), Map.entry("A-", 3.7),
+            Map.entry("B+", 3.3), Map.entry("B", 3.0), Map.entry("B-", 2.7),
+            Map.entry("C+", 2.3), Map.entry("C", 2.0), Map.entry("C-", 1.7),
+            Map.entry("D+", 1.3), Map.entry("D", 1.0), Map.entry("D-", 0.7),
+            Map.entry("F", 0.0));
+
+    // Lower bound of each percentage band, highest first, with the letter grade's points
+    private static final double[][] PERCENT_BANDS = {
+            {93, 4.0}, {90, 3.7}, {87, 3.3}, {83, 3.0}, {80, 2.7}, {77, 2.3},
+            {73, 2.0}, {70, 1.7}, {67, 1.3}, {63, 1.0}, {60, 0.7}};
+
+    private static final Pattern PERCENT = Pattern.compile("^(\\d+(?:\\.\\d+)?)\\s*%?$");
+    private static final Pattern FRACTION = Pattern.compile("^(\\d+(?:\\.\\d+)?)\\s*/\\s*(\\d+(?:\\.\\d+)?)$");
+
+    public static Optional<GradePoints> parse(String gradeValue) {
+        if (gradeValue == null || gradeValue.isBlank()) {
+            return Optional.empty();
+        }
+        String value = gradeValue.trim().toUpperCase(Locale.ROOT);
+        Double letter = LETTER_POINTS.get(value);
+        if (letter != null) {
+            return Optional.of(new GradePoints(letter, letter > 0));
+        }
+        if (value.startsWith("PASS") || value.equals("P") || value.equals("S")) {
+            return Optional.of(new GradePoints(null, true));
+        }
+        if (value.equals("FAIL") || value.equals("U")) {
+            return Optional.of(new GradePoints(null, false));
+        }
+        return percent(value).flatMap(GradePoints::fromPercent);
+    }
+
+    // The value as a percentage when it is written as one ("85%", "85") or as a fraction ("42/50"); letter and
+    // pass/fail grades have none. Used as the numeric score grades are ranked and curved by.
+    public static Optional<Double> percent(String gradeValue) {
+        if (gradeValue == null) {
+            return Optional.empty();
+        }
+        String value = gradeValue.trim();
+        Matcher percent = PERCENT.matcher(value);
+        if (percent.matches()) {
+            return Optional.of(Double.parseDouble(percent.group(1)));
+        }
+        Matcher fraction = FRACTION.matcher(value);
+        if (fraction.matches()) {
+            double outOf = Double.parseDouble(fraction.group(2));
+            return outOf == 0 ? Optional.empty() : Optional.of(Double.parseDouble(fraction.group(1)) * 100 / outOf);
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<GradePoints> fromPercent(double percent) {
+        if (percent > 100) {
+            return Optional.empty();
+        }
+        for (double[] band : PERCENT_BANDS) {
+            if (percent >= band[0]) {
+                return Optional.of(new GradePoints(band[1], true));
+            }
+        }
+        return Optional.of(new GradePoints(0.0, false));
+    }
+}
@@ -0,0 +1,51 @@
+package com.derp.erp.models;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// Outcome of a POST made with an Idempotency-Key, replayed to retries of the same request.
+@Document(collection = "idempotency_keys")
+@Getter
+@Setter
+@NoArgsConstructor
+public class IdempotencyRecord {
+
+    public enum Status {
+        IN_PROGRESS,
+        COMPLETED
+    }
+
+    @Id
+    private String id; // Hash of principal and key, so keys are scoped per user
+
+    private String fingerprint; // Hash of method, path and body; a reused key with a different request is rejected
+
+    private Status status;
+
+    private Instant lockedAt; // When the current IN_PROGRESS attempt started
+
+    private int responseStatus;
+
+    private String responseContentType;
+
+    private String responseLocation;
+
+    private byte[] responseBody;
+
+    @Indexed(name = "created_ttl_idx", expireAfter = "24h")
+    private Instant createdAt;
+
+    public IdempotencyRecord(String id, String fingerprint) {
+        this.id = id;
+        this.fingerprint = fingerprint;
+        this.status = Status.IN_PROGRESS;
+        this.createdAt = Instant.now();
+        this.lockedAt = this.createdAt;
+    }
+}
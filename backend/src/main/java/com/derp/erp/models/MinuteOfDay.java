@@ -0,0 +1,22 @@
+package com.derp.erp.models;
+
+// Schedule times are stored as minutes since midnight (e.g. 540 for "09:00") so they can be indexed and compared.
+public final class MinuteOfDay {
+
+    private MinuteOfDay() {
+    }
+
+    public static int parse(String time) {
+        if (time == null || !time.matches("^([01]\\d|2[0-3]):([0-5]\\d)$")) {
+            throw new IllegalArgumentException("Time must be in HH:mm format: " + time);
+        }
+        return Integer.parseInt(time.substring(0, 2)) * 60 + Integer.parseInt(time.substring(3, 5));
+    }
+
+    public static String format(Integer minuteOfDay) {
+        if (minuteOfDay == null) {
+            return null;
+        }
+        return String.format("%02d:%02d", minuteOfDay / 60, minuteOfDay % 60);
+    }
+}
@@ -0,0 +1,56 @@
+package com.derp.erp.models;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(collection = "report_jobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@CompoundIndex(name = "type_status_created_idx", def = "{'type': 1, 'status': 1, 'createdAt': 1}")
+@CompoundIndex(name = "status_completed_idx", def = "{'status': 1, 'completedAt': 1}")
+public class ReportJob {
+
+    @Id
+    private String id;
+
+    private ReportType type;
+
+    private ReportJobStatus status;
+
+    private String requestedBy;
+
+    private long processedItems;
+
+    private long totalItems;
+
+    private String resultFileId; // GridFS file id in the report_results bucket
+
+    private String resultFileName;
+
+    private int attempts;
+
+    private String lastError;
+
+    private Instant createdAt;
+
+    private Instant updatedAt; // Also the worker heartbeat while RUNNING
+
+    private Instant startedAt;
+
+    private Instant completedAt;
+
+    public ReportJob(ReportType type, String requestedBy) {
+        this.type = type;
+        this.requestedBy = requestedBy;
+        this.status = ReportJobStatus.PENDING;
+        this.createdAt = Instant.now();
+        this.updatedAt = this.createdAt;
+    }
+}
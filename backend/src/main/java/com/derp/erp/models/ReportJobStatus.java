@@ -0,0 +1,8 @@
+package com.derp.erp.models;
+
+public enum ReportJobStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
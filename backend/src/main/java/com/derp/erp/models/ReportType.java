@@ -0,0 +1,22 @@
+package com.derp.erp.models;
+
+import java.util.Locale;
+
+public enum ReportType {
+    TRANSCRIPTS,
+    ATTENDANCE_AUDIT;
+
+    // Path form used by the API, e.g. "attendance-audit"
+    public String pathName() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    public static ReportType fromPathName(String pathName) {
+        for (ReportType type : values()) {
+            if (type.pathName().equalsIgnoreCase(pathName) || type.name().equalsIgnoreCase(pathName)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown report type: " + pathName);
+    }
+}
@@ -4,13 +4,20 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.DayOfWeek;
+
 @Document(collection = "scheduled_classes")
 @Getter
 @Setter
 @NoArgsConstructor
+@CompoundIndex(name = "course_id_idx", def = "{'course.$id': 1}")
+@CompoundIndex(name = "day_room_idx", def = "{'dayOfWeek': 1, 'roomNumber': 1}")
+@CompoundIndex(name = "day_start_end_idx", def = "{'dayOfWeek': 1, 'startMinute': 1, 'endMinute': 1}")
 public class ScheduledClass {
 
     @Id
@@ -19,22 +26,23 @@ public class ScheduledClass {
     @DBRef
     private Course course;
 
-    private String dayOfWeek; // e.g., "MONDAY", "TUESDAY"
+    private DayOfWeek dayOfWeek; // Stored as "MONDAY", "TUESDAY", ...
 
-    private String startTime; // e.g., "09:00"
+    private Integer startMinute; // Minutes since midnight, e.g. 540 for 09:00
 
-    private String endTime;   // e.g., "10:30"
+    private Integer endMinute;   // e.g. 630 for 10:30
 
     private String roomNumber;
 
+    @Indexed
     private String instructorName;
 
-    public ScheduledClass(Course course, String dayOfWeek, String startTime, String endTime, String roomNumber, String instructorName) {
+    public ScheduledClass(Course course, DayOfWeek dayOfWeek, Integer startMinute, Integer endMinute, String roomNumber, String instructorName) {
         this.course = course;
         this.dayOfWeek = dayOfWeek;
-        this.startTime = startTime;
-        this.endTime = endTime;
+        this.startMinute = startMinute;
+        this.endMinute = endMinute;
         this.roomNumber = roomNumber;
         this.instructorName = instructorName;
     }
-} 
\ No newline at end of file
+}
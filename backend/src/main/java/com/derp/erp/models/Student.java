@@ -26,6 +26,8 @@ public class Student {
     @Indexed(unique = true)
     private String studentIdNumber;
 
+    private String program; // Optional, e.g. "Computer Science"; ranks in student_standings are kept per program
+
     public Student(String firstName, String lastName, String email, String studentIdNumber) {
         this.firstName = firstName;
         this.lastName = lastName;
@@ -0,0 +1,49 @@
+package com.derp.erp.models;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// Cumulative credits and GPA for one student (the _id is the student's id), maintained by StudentStandingService.
+@Document(collection = "student_standings")
+@Getter
+@Setter
+@NoArgsConstructor
+@CompoundIndex(name = "program_gpa_idx", def = "{'program': 1, 'gpa': -1}")
+@CompoundIndex(name = "gpa_idx", def = "{'gpa': -1}")
+@CompoundIndex(name = "course_idx", def = "{'courses.courseId': 1}")
+public class StudentStanding {
+
+    @Id
+    private String id;
+
+    private String program; // Copied from the student so ranked lists need no join
+
+    private List<CourseStanding> courses = new ArrayList<>();
+
+    private int creditsAttempted;
+
+    private int creditsEarned;
+
+    private int gpaCredits; // Credits of the courses with points; pass/fail courses are excluded
+
+    private Double gpa; // Credit-weighted mean of the courses' average points; null without any
+
+    private Instant updatedAt;
+
+    // Grade writes for the same student race; a stale save is retried against the latest document
+    @Version
+    private Long version;
+
+    public StudentStanding(String id) {
+        this.id = id;
+    }
+}
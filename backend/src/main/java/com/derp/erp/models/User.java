@@ -27,6 +27,11 @@ public class User {
     // No special annotations needed for a Set of Enums with Spring Data MongoDB
     private Set<Role> roles = new HashSet<>();
 
+    // The Student this account belongs to (a student account's username is the student's email); kept in step by
+    // StudentAccountService and carried in the authenticated principal, so self-service requests need no lookup
+    @Indexed(sparse = true)
+    private String studentId;
+
     public User(String username, String password) {
         this.username = username;
         this.password = password;
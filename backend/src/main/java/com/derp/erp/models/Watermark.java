@@ -0,0 +1,30 @@
+package com.derp.erp.models;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// High-water mark of an incremental background job, keyed by job name.
+@Document(collection = "watermarks")
+@Getter
+@Setter
+@NoArgsConstructor
+public class Watermark {
+
+    @Id
+    private String id;
+
+    private Instant value;
+
+    private Instant updatedAt;
+
+    public Watermark(String id, Instant value) {
+        this.id = id;
+        this.value = value;
+        this.updatedAt = Instant.now();
+    }
+}
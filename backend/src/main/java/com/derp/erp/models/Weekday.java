@@ -0,0 +1,35 @@
+package com.derp.erp.models;
+
+import java.time.DayOfWeek;
+import java.util.Locale;
+
+// Reads the free-text dayOfWeek of older scheduled classes: full names in any case, and abbreviations such as "Mon",
+// "Tues" or "thurs." that start a single day's name.
+public final class Weekday {
+
+    private Weekday() {
+    }
+
+    public static DayOfWeek parse(String text) {
+        String name = text == null ? "" : text.trim().toUpperCase(Locale.ROOT);
+        if (name.endsWith(".")) {
+            name = name.substring(0, name.length() - 1);
+        }
+        DayOfWeek match = null;
+        if (name.length() >= 2) {
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if (day.name().startsWith(name)) {
+                    if (match != null) {
+                        match = null;
+                        break;
+                    }
+                    match = day;
+                }
+            }
+        }
+        if (match == null) {
+            throw new IllegalArgumentException("Invalid day of week: " + text);
+        }
+        return match;
+    }
+}
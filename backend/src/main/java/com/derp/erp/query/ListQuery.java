@@ -0,0 +1,32 @@
+package com.derp.erp.query;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// A parsed list request: the Mongo query to run and the response fields asked for (null means all).
+public record ListQuery(Query query, List<String> fields) {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    // Full DTOs when no fields were requested, otherwise maps holding only the requested fields
+    public List<?> shape(List<?> dtos, ObjectMapper objectMapper) {
+        if (fields == null) {
+            return dtos;
+        }
+        return dtos.stream()
+                .map(dto -> {
+                    Map<String, Object> all = objectMapper.convertValue(dto, MAP_TYPE);
+                    Map<String, Object> selected = new LinkedHashMap<>();
+                    fields.forEach(field -> selected.put(field, all.get(field)));
+                    return selected;
+                })
+                .collect(Collectors.toList());
+    }
+}
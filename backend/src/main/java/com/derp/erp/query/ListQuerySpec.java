@@ -0,0 +1,209 @@
+package com.derp.erp.query;
+
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+// Whitelist for the ?fields=, ?filter= and ?sort= parameters of one list endpoint, and their translation into a
+// single Mongo Query with a projection.
+//
+//   fields=id,status,attendanceDate
+//   filter=courseId:eq:<id>,attendanceDate:gte:2025-01-01,attendanceDate:lt:2025-02-01,status:in:ABSENT|LATE
+//   sort=-attendanceDate,status
+//
+// Any filter or sort must include an eq/in clause on an anchor field (the leading field of an index), so every
+// accepted query can be answered from an index rather than a collection scan.
+public final class ListQuerySpec {
+
+    private static final Set<String> OPERATORS = Set.of("eq", "ne", "in", "gt", "gte", "lt", "lte");
+
+    private final Map<String, FilterField> filterFields;
+    private final Map<String, String> sortFields;
+    private final Map<String, List<String>> selectableFields;
+
+    private ListQuerySpec(Builder builder) {
+        this.filterFields = Map.copyOf(builder.filterFields);
+        this.sortFields = Map.copyOf(builder.sortFields);
+        this.selectableFields = new LinkedHashMap<>(builder.selectableFields);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static boolean isRequested(String fields, String filter, String sort) {
+        return fields != null || filter != null || sort != null;
+    }
+
+    public ListQuery parse(String fields, String filter, String sort) {
+        Query query = new Query();
+        boolean anchored = applyFilter(query, filter);
+        applySort(query, sort);
+        if ((filter != null || sort != null) && !anchored) {
+            throw new IllegalArgumentException("filter must include an eq or in clause on one of " + anchorNames() + ".");
+        }
+        List<String> selected = applyFields(query, fields);
+        return new ListQuery(query, selected);
+    }
+
+    private boolean applyFilter(Query query, String filter) {
+        if (filter == null || filter.isBlank()) {
+            return false;
+        }
+        Map<String, List<String[]>> clausesByField = new LinkedHashMap<>();
+        for (String clause : filter.split(",")) {
+            String[] parts = clause.trim().split(":", 3);
+            if (parts.length != 3 || parts[2].isEmpty()) {
+                throw new IllegalArgumentException("Invalid filter clause '" + clause + "'; expected field:operator:value.");
+            }
+            if (!filterFields.containsKey(parts[0])) {
+                throw new IllegalArgumentException("Cannot filter on '" + parts[0] + "'; allowed: " + filterFields.keySet() + ".");
+            }
+            String operator = parts[1].toLowerCase(Locale.ROOT);
+            if (!OPERATORS.contains(operator)) {
+                throw new IllegalArgumentException("Unknown filter operator '" + parts[1] + "'; allowed: " + OPERATORS + ".");
+            }
+            clausesByField.computeIfAbsent(parts[0], name -> new ArrayList<>()).add(new String[] {operator, parts[2]});
+        }
+
+        boolean anchored = false;
+        for (Map.Entry<String, List<String[]>> entry : clausesByField.entrySet()) {
+            FilterField field = filterFields.get(entry.getKey());
+            Criteria criteria = Criteria.where(field.path());
+            for (String[] clause : entry.getValue()) {
+                String operator = clause[0];
+                if ("eq".equals(operator) && entry.getValue().size() > 1) {
+                    throw new IllegalArgumentException("'" + entry.getKey() + ":eq' cannot be combined with other clauses on the same field.");
+                }
+                switch (operator) {
+                    case "eq" -> criteria.is(field.parse(clause[1]));
+                    case "ne" -> criteria.ne(field.parse(clause[1]));
+                    case "in" -> criteria.in(Arrays.stream(clause[1].split("\\|")).map(field::parse).toList());
+                    case "gt" -> criteria.gt(field.parse(clause[1]));
+                    case "gte" -> criteria.gte(field.parse(clause[1]));
+                    case "lt" -> criteria.lt(field.parse(clause[1]));
+                    case "lte" -> criteria.lte(field.parse(clause[1]));
+                    default -> throw new IllegalStateException(operator);
+                }
+                anchored |= field.anchor() && ("eq".equals(operator) || "in".equals(operator));
+            }
+            query.addCriteria(criteria);
+        }
+        return anchored;
+    }
+
+    private void applySort(Query query, String sort) {
+        if (sort == null || sort.isBlank()) {
+            return;
+        }
+        List<Sort.Order> orders = new ArrayList<>();
+        for (String item : sort.split(",")) {
+            String name = item.trim();
+            boolean descending = name.startsWith("-");
+            name = descending || name.startsWith("+") ? name.substring(1) : name;
+            String path = sortFields.get(name);
+            if (path == null) {
+                throw new IllegalArgumentException("Cannot sort on '" + name + "'; allowed: " + sortFields.keySet() + ".");
+            }
+            orders.add(descending ? Sort.Order.desc(path) : Sort.Order.asc(path));
+        }
+        query.with(Sort.by(orders));
+    }
+
+    private List<String> applyFields(Query query, String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        Set<String> paths = new LinkedHashSet<>();
+        for (String item : fields.split(",")) {
+            String name = item.trim();
+            List<String> sourcePaths = selectableFields.get(name);
+            if (sourcePaths == null) {
+                throw new IllegalArgumentException("Unknown field '" + name + "'; allowed: " + selectableFields.keySet() + ".");
+            }
+            selected.add(name);
+            paths.addAll(sourcePaths);
+        }
+        // Leaving out a @DBRef field also skips resolving it
+        paths.forEach(path -> query.fields().include(path));
+        return List.copyOf(selected);
+    }
+
+    private List<String> anchorNames() {
+        return filterFields.values().stream().filter(FilterField::anchor).map(FilterField::name).sorted().toList();
+    }
+
+    // DBRef ids are stored as ObjectIds whenever the string id is a valid one
+    public static Object objectId(String value) {
+        return ObjectId.isValid(value) ? new ObjectId(value) : value;
+    }
+
+    // The id a reference in a raw document points to, decoded as a DBRef or as a {$ref, $id} document
+    public static String refId(Object ref) {
+        if (ref instanceof DBRef dbRef) {
+            return dbRef.getId().toString();
+        }
+        if (ref instanceof Document document && document.get("$id") != null) {
+            return document.get("$id").toString();
+        }
+        return null;
+    }
+
+    private record FilterField(String name, String path, Function<String, Object> parser, boolean anchor) {
+
+        Object parse(String value) {
+            try {
+                return parser.apply(value);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid value '" + value + "' for '" + name + "'.");
+            }
+        }
+    }
+
+    public static final class Builder {
+
+        private final Map<String, FilterField> filterFields = new LinkedHashMap<>();
+        private final Map<String, String> sortFields = new LinkedHashMap<>();
+        private final Map<String, List<String>> selectableFields = new LinkedHashMap<>();
+
+        // Leading field of an index; filters and sorts require an eq/in clause on one of these
+        public Builder anchor(String name, String path, Function<String, Object> parser) {
+            filterFields.put(name, new FilterField(name, path, parser, true));
+            return this;
+        }
+
+        public Builder filter(String name, String path, Function<String, Object> parser) {
+            filterFields.put(name, new FilterField(name, path, parser, false));
+            return this;
+        }
+
+        public Builder sort(String name, String path) {
+            sortFields.put(name, path);
+            return this;
+        }
+
+        // A response field and the document paths it is built from
+        public Builder select(String name, String... paths) {
+            selectableFields.put(name, List.of(paths));
+            return this;
+        }
+
+        public ListQuerySpec build() {
+            return new ListQuerySpec(this);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.derp.erp.querycount;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+// Records how many Mongo commands each request sent, per route, as derp.mongo.commands.per.request. With the
+// header enabled (dev) the count is also returned as X-Mongo-Commands; it is set when the body starts, so commands
+// sent while the body is being written only show up in the metric.
+public class MongoCommandCountFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Mongo-Commands";
+
+    private final MongoCommandCounter counter;
+    private final MeterRegistry meterRegistry;
+    private final boolean headerEnabled;
+
+    public MongoCommandCountFilter(MongoCommandCounter counter, MeterRegistry meterRegistry, boolean headerEnabled) {
+        this.counter = counter;
+        this.meterRegistry = meterRegistry;
+        this.headerEnabled = headerEnabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        MongoCommandCounter.Scope scope = counter.open();
+        HttpServletResponse countedResponse = headerEnabled ? new CountHeaderResponse(response, scope) : response;
+        try {
+            filterChain.doFilter(request, countedResponse);
+        } finally {
+            scope.close();
+            if (headerEnabled && !response.isCommitted()) {
+                response.setIntHeader(HEADER, scope.count());
+            }
+            Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("derp.mongo.commands.per.request")
+                    .description("Mongo commands sent while handling one request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", route != null ? route.toString() : "UNKNOWN")
+                    .register(meterRegistry)
+                    .record(scope.count());
+        }
+    }
+
+    private static class CountHeaderResponse extends HttpServletResponseWrapper {
+
+        private final MongoCommandCounter.Scope scope;
+
+        CountHeaderResponse(HttpServletResponse response, MongoCommandCounter.Scope scope) {
+            super(response);
+            this.scope = scope;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            setCountHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            setCountHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            setCountHeader();
+            super.flushBuffer();
+        }
+
+        private void setCountHeader() {
+            if (!isCommitted()) {
+                setIntHeader(HEADER, scope.count());
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.derp.erp.querycount;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+
+// Counts the Mongo commands sent by the current thread while a scope is open. The sync driver publishes command
+// events on the calling thread, so a scope sees every command its code sends, including DBRef resolution and
+// cursor getMores, and nothing from other requests.
+public class MongoCommandCounter implements CommandListener {
+
+    private final ThreadLocal<Scope> currentScope = new ThreadLocal<>();
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        Scope scope = currentScope.get();
+        if (scope != null) {
+            scope.count++;
+        }
+    }
+
+    // Scopes nest; commands count towards the innermost one and are added to its parent when it closes
+    public Scope open() {
+        Scope scope = new Scope(currentScope.get());
+        currentScope.set(scope);
+        return scope;
+    }
+
+    public final class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private int count;
+        private boolean closed;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        public int count() {
+            return count;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (parent != null) {
+                parent.count += count;
+                currentScope.set(parent);
+            } else {
+                currentScope.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.derp.erp.reports;
+
+import com.derp.erp.models.Course;
+import com.derp.erp.models.ReportType;
+import com.derp.erp.models.Student;
+import com.derp.erp.query.ListQuerySpec;
+import com.derp.erp.repositories.AttendanceRecordRepository;
+import com.derp.erp.repositories.CourseRepository;
+import com.derp.erp.repositories.StudentRepository;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Every attendance record with the student and course it belongs to, in insertion (_id) order.
+@Component
+@RequiredArgsConstructor
+public class AttendanceAuditReportGenerator implements ReportGenerator {
+
+    private final AttendanceRecordRepository attendanceRecordRepository;
+    private final StudentRepository studentRepository;
+    private final CourseRepository courseRepository;
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${derp.reports.chunk-size:500}")
+    private int chunkSize;
+
+    @Override
+    public ReportType type() {
+        return ReportType.ATTENDANCE_AUDIT;
+    }
+
+    @Override
+    public long countItems() {
+        return attendanceRecordRepository.count();
+    }
+
+    @Override
+    public void write(Writer out, ReportProgress progress) throws IOException {
+        Map<String, Course> courses = courseRepository.findAll().stream()
+                .collect(Collectors.toMap(Course::getId, Function.identity()));
+        CsvWriter csv = new CsvWriter(out);
+        csv.row("recordId", "attendanceDate", "studentIdNumber", "studentName", "courseCode", "courseName", "status");
+
+        long processed = 0;
+        Object lastId = null;
+        while (true) {
+            Document filter = lastId == null ? new Document() : new Document("_id", new Document("$gt", lastId));
+            List<Document> records = mongoTemplate.getCollection("attendance_records")
+                    .find(filter)
+                    .sort(new Document("_id", 1))
+                    .limit(chunkSize)
+                    .into(new ArrayList<>());
+            if (records.isEmpty()) {
+                return;
+            }
+            Map<String, Student> students = findStudents(records);
+            for (Document record : records) {
+                Student student = students.get(ListQuerySpec.refId(record.get("student")));
+                Course course = courses.get(ListQuerySpec.refId(record.get("course")));
+                csv.row(record.get("_id"),
+                        ReportSupport.toLocalDate(mongoTemplate, record.get("attendanceDate")),
+                        student != null ? student.getStudentIdNumber() : null,
+                        student != null ? student.getFirstName() + " " + student.getLastName() : null,
+                        course != null ? course.getCourseCode() : null,
+                        course != null ? course.getCourseName() : null,
+                        record.getString("status"));
+            }
+            processed += records.size();
+            progress.update(processed);
+            lastId = records.get(records.size() - 1).get("_id");
+        }
+    }
+
+    private Map<String, Student> findStudents(List<Document> records) {
+        Set<String> studentIds = new LinkedHashSet<>();
+        for (Document record : records) {
+            String studentId = ListQuerySpec.refId(record.get("student"));
+            if (studentId != null) {
+                studentIds.add(studentId);
+            }
+        }
+        Map<String, Student> students = new HashMap<>();
+        studentRepository.findAllById(studentIds).forEach(student -> students.put(student.getId(), student));
+        return students;
+    }
+}
@@ -0,0 +1,17 @@
+package com.derp.erp.reports;
+
+import com.derp.erp.models.ReportType;
+
+import java.io.IOException;
+import java.io.Writer;
+
+// Produces one report type as CSV. Implementations must read in chunks and report progress after each one;
+// the progress callback doubles as the job heartbeat and throws if the job was taken over by another worker.
+public interface ReportGenerator {
+
+    ReportType type();
+
+    long countItems();
+
+    void write(Writer out, ReportProgress progress) throws IOException;
+}
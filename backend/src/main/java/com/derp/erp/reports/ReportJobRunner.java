@@ -0,0 +1,215 @@
+package com.derp.erp.reports;
+
+import com.derp.erp.models.ReportJob;
+import com.derp.erp.models.ReportJobStatus;
+import com.derp.erp.models.ReportType;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSUploadStream;
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Claims report jobs from report_jobs and runs them on a bounded pool, streaming output into GridFS.
+// Concurrency is capped by semaphores (overall and per report type) rather than by the pool itself, so the
+// executor can be swapped for a thread-per-task one without changing how much work runs at once.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReportJobRunner implements DisposableBean {
+
+    private final MongoTemplate mongoTemplate;
+    private final GridFSBucket reportResultsBucket;
+    private final List<ReportGenerator> generators;
+
+    @Value("${derp.reports.workers:2}")
+    private int workers;
+
+    @Value("${derp.reports.max-concurrent-per-type:1}")
+    private int maxConcurrentPerType;
+
+    @Value("${derp.reports.max-attempts:3}")
+    private int maxAttempts;
+
+    // A RUNNING job without a heartbeat for this long is assumed orphaned (e.g. by a restart) and re-run
+    @Value("${derp.reports.stale-after-ms:120000}")
+    private long staleAfterMillis;
+
+    private final Map<ReportType, ReportGenerator> generatorsByType = new EnumMap<>(ReportType.class);
+    private final Map<ReportType, Semaphore> typePermits = new EnumMap<>(ReportType.class);
+    private Semaphore workerPermits;
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        for (ReportGenerator generator : generators) {
+            generatorsByType.put(generator.type(), generator);
+            typePermits.put(generator.type(), new Semaphore(maxConcurrentPerType));
+        }
+        workerPermits = new Semaphore(workers);
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "derp-report-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Scheduled(initialDelayString = "${derp.reports.initial-delay-ms:15000}", fixedDelayString = "${derp.reports.poll-interval-ms:2000}")
+    public void dispatch() {
+        for (Map.Entry<ReportType, ReportGenerator> entry : generatorsByType.entrySet()) {
+            Semaphore typePermit = typePermits.get(entry.getKey());
+            while (workerPermits.tryAcquire()) {
+                if (!typePermit.tryAcquire()) {
+                    workerPermits.release();
+                    break;
+                }
+                ReportJob job = claimNextJob(entry.getKey());
+                if (job == null) {
+                    typePermit.release();
+                    workerPermits.release();
+                    break;
+                }
+                try {
+                    executor.execute(() -> {
+                        try {
+                            runJob(job, entry.getValue());
+                        } finally {
+                            typePermit.release();
+                            workerPermits.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Shutting down; the job goes stale and is picked up again after restart
+                    typePermit.release();
+                    workerPermits.release();
+                    return;
+                }
+            }
+        }
+    }
+
+    private ReportJob claimNextJob(ReportType type) {
+        Instant now = Instant.now();
+        Query query = new Query(Criteria.where("type").is(type).orOperator(
+                Criteria.where("status").is(ReportJobStatus.PENDING),
+                Criteria.where("status").is(ReportJobStatus.RUNNING)
+                        .and("updatedAt").lt(now.minus(Duration.ofMillis(staleAfterMillis)))))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt"));
+        Update update = new Update()
+                .set("status", ReportJobStatus.RUNNING)
+                .set("updatedAt", now)
+                .set("startedAt", now)
+                .set("processedItems", 0L)
+                .inc("attempts", 1);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), ReportJob.class);
+    }
+
+    private void runJob(ReportJob job, ReportGenerator generator) {
+        String fileName = job.getType().pathName() + "-" + job.getId() + ".csv";
+        GridFSUploadOptions options = new GridFSUploadOptions()
+                .metadata(new Document("jobId", job.getId()).append("contentType", "text/csv"));
+        GridFSUploadStream upload = null;
+        boolean stored = false;
+        try {
+            heartbeat(job, new Update().set("totalItems", generator.countItems()));
+            upload = reportResultsBucket.openUploadStream(fileName, options);
+            Writer out = new BufferedWriter(new OutputStreamWriter(upload, StandardCharsets.UTF_8));
+            generator.write(out, processed -> heartbeat(job, new Update().set("processedItems", processed)));
+            out.flush();
+            upload.close();
+            stored = true;
+
+            Update completed = new Update()
+                    .set("status", ReportJobStatus.COMPLETED)
+                    .set("resultFileId", upload.getObjectId().toHexString())
+                    .set("resultFileName", fileName)
+                    .set("completedAt", Instant.now())
+                    .unset("lastError");
+            if (updateIfOwned(job, completed)) {
+                log.info("Report job {} ({}) completed", job.getId(), job.getType());
+            } else {
+                discard(upload, true);
+            }
+        } catch (CancellationException e) {
+            discard(upload, stored);
+            log.info("Report job {} was taken over by another worker", job.getId());
+        } catch (Exception e) {
+            discard(upload, stored);
+            log.warn("Report job {} ({}) failed on attempt {}", job.getId(), job.getType(), job.getAttempts(), e);
+            boolean exhausted = job.getAttempts() >= maxAttempts;
+            Update failed = new Update()
+                    .set("status", exhausted ? ReportJobStatus.FAILED : ReportJobStatus.PENDING)
+                    .set("lastError", e.getMessage());
+            if (exhausted) {
+                failed.set("completedAt", Instant.now());
+            }
+            updateIfOwned(job, failed);
+        }
+    }
+
+    // Progress updates double as the heartbeat; losing ownership stops the generator.
+    private void heartbeat(ReportJob job, Update update) {
+        if (!updateIfOwned(job, update)) {
+            throw new CancellationException("Report job " + job.getId() + " is no longer owned by this worker");
+        }
+    }
+
+    // Applies the update only while this worker still owns the job (same attempt, still RUNNING).
+    private boolean updateIfOwned(ReportJob job, Update update) {
+        Query owned = new Query(Criteria.where("id").is(job.getId())
+                .and("status").is(ReportJobStatus.RUNNING)
+                .and("attempts").is(job.getAttempts()));
+        return mongoTemplate.updateFirst(owned, update.set("updatedAt", Instant.now()), ReportJob.class)
+                .getMatchedCount() > 0;
+    }
+
+    private void discard(GridFSUploadStream upload, boolean stored) {
+        if (upload == null) {
+            return;
+        }
+        try {
+            if (stored) {
+                reportResultsBucket.delete(upload.getObjectId());
+            } else {
+                upload.abort();
+            }
+        } catch (RuntimeException e) {
+            log.debug("Could not discard partial report output", e);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
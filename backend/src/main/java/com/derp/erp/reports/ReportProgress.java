@@ -0,0 +1,7 @@
+package com.derp.erp.reports;
+
+@FunctionalInterface
+public interface ReportProgress {
+
+    void update(long processedItems);
+}
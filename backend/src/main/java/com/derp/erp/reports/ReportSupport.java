@@ -0,0 +1,17 @@
+package com.derp.erp.reports;
+
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.LocalDate;
+
+// Helpers for generators that read raw documents to avoid resolving a DBRef per row.
+final class ReportSupport {
+
+    private ReportSupport() {
+    }
+
+    // Dates are read back through the converter so they match what the repositories return
+    static LocalDate toLocalDate(MongoTemplate mongoTemplate, Object value) {
+        return value == null ? null : mongoTemplate.getConverter().getConversionService().convert(value, LocalDate.class);
+    }
+}
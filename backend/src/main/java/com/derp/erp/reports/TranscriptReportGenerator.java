@@ -0,0 +1,107 @@
+package com.derp.erp.reports;
+
+import com.derp.erp.models.Course;
+import com.derp.erp.models.ReportType;
+import com.derp.erp.models.Student;
+import com.derp.erp.query.ListQuerySpec;
+import com.derp.erp.repositories.CourseRepository;
+import com.derp.erp.repositories.StudentRepository;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Every student's grades, one row per assessment (or one empty row for a student with no grades).
+@Component
+@RequiredArgsConstructor
+public class TranscriptReportGenerator implements ReportGenerator {
+
+    private final StudentRepository studentRepository;
+    private final CourseRepository courseRepository;
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${derp.reports.chunk-size:500}")
+    private int chunkSize;
+
+    @Override
+    public ReportType type() {
+        return ReportType.TRANSCRIPTS;
+    }
+
+    @Override
+    public long countItems() {
+        return studentRepository.count();
+    }
+
+    @Override
+    public void write(Writer out, ReportProgress progress) throws IOException {
+        Map<String, Course> courses = courseRepository.findAll().stream()
+                .collect(Collectors.toMap(Course::getId, Function.identity()));
+        CsvWriter csv = new CsvWriter(out);
+        csv.row("studentIdNumber", "lastName", "firstName", "email", "courseCode", "courseName", "credits",
+                "assessmentType", "gradeValue", "assessmentDate");
+
+        long processed = 0;
+        String lastId = null;
+        while (true) {
+            Query chunkQuery = new Query().with(Sort.by("id")).limit(chunkSize);
+            if (lastId != null) {
+                chunkQuery.addCriteria(Criteria.where("id").gt(lastId));
+            }
+            List<Student> students = mongoTemplate.find(chunkQuery, Student.class);
+            if (students.isEmpty()) {
+                return;
+            }
+            Map<String, List<Document>> gradesByStudent = findGrades(students);
+            for (Student student : students) {
+                List<Document> grades = gradesByStudent.getOrDefault(student.getId(), List.of());
+                if (grades.isEmpty()) {
+                    csv.row(student.getStudentIdNumber(), student.getLastName(), student.getFirstName(), student.getEmail(),
+                            null, null, null, null, null, null);
+                }
+                for (Document grade : grades) {
+                    Course course = courses.get(ListQuerySpec.refId(grade.get("course")));
+                    csv.row(student.getStudentIdNumber(), student.getLastName(), student.getFirstName(), student.getEmail(),
+                            course != null ? course.getCourseCode() : null,
+                            course != null ? course.getCourseName() : null,
+                            course != null ? course.getCredits() : null,
+                            grade.getString("assessmentType"),
+                            grade.getString("gradeValue"),
+                            ReportSupport.toLocalDate(mongoTemplate, grade.get("assessmentDate")));
+                }
+            }
+            processed += students.size();
+            progress.update(processed);
+            lastId = students.get(students.size() - 1).getId();
+        }
+    }
+
+    // One query per chunk of students, ordered to match student_id_course_id_assessment_idx
+    private Map<String, List<Document>> findGrades(List<Student> students) {
+        List<Object> studentIds = new ArrayList<>(students.size());
+        for (Student student : students) {
+            studentIds.add(ListQuerySpec.objectId(student.getId()));
+        }
+        Map<String, List<Document>> gradesByStudent = new LinkedHashMap<>();
+        mongoTemplate.getCollection("grades")
+                .find(new Document("student.$id", new Document("$in", studentIds)))
+                .sort(new Document("student.$id", 1).append("course.$id", 1).append("assessmentType", 1))
+                .forEach(grade -> gradesByStudent
+                        .computeIfAbsent(ListQuerySpec.refId(grade.get("student")), id -> new ArrayList<>())
+                        .add(grade));
+        return gradesByStudent;
+    }
+}
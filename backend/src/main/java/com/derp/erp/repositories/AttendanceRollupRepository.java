@@ -0,0 +1,13 @@
+package com.derp.erp.repositories;
+
+import com.derp.erp.models.AttendanceRollup;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AttendanceRollupRepository extends MongoRepository<AttendanceRollup, String> {
+
+    List<AttendanceRollup> findByDirtyAtNotNull();
+}
@@ -0,0 +1,21 @@
+package com.derp.erp.repositories;
+
+import com.derp.erp.models.AttendanceTally;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AttendanceTallyRepository extends MongoRepository<AttendanceTally, String> {
+
+    List<AttendanceTally> findByAtRiskTrueOrderByAttendanceRateAsc();
+
+    List<AttendanceTally> findByAtRiskTrueAndCourseIdOrderByAttendanceRateAsc(String courseId);
+
+    List<AttendanceTally> findByDirtyAtNotNull();
+
+    List<AttendanceTally> findByStudentId(String studentId);
+
+    long countByAtRiskTrue();
+}
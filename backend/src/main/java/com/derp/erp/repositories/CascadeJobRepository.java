@@ -0,0 +1,20 @@
+package com.derp.erp.repositories;
+
+import com.derp.erp.models.CascadeJob;
+import com.derp.erp.models.CascadeJobStatus;
+import com.derp.erp.models.CascadeTarget;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CascadeJobRepository extends MongoRepository<CascadeJob, String> {
+
+    List<CascadeJob> findByStatusOrderByCreatedAtDesc(CascadeJobStatus status);
+
+    List<CascadeJob> findAllByOrderByCreatedAtDesc();
+
+    boolean existsByTargetTypeAndTargetIdAndStatusIn(CascadeTarget targetType, String targetId, Collection<CascadeJobStatus> statuses);
+}
@@ -0,0 +1,9 @@
+package com.derp.erp.repositories;
+
+import com.derp.erp.models.DataMigrationRecord;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DataMigrationRecordRepository extends MongoRepository<DataMigrationRecord, String> {
+}
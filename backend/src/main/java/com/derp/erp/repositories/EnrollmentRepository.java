@@ -0,0 +1,20 @@
+package com.derp.erp.repositories;
+
+import com.derp.erp.models.Enrollment;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EnrollmentRepository extends MongoRepository<Enrollment, String> {
+
+    List<Enrollment> findByCourseId(String courseId);
+
+    List<Enrollment> findByStudentId(String studentId);
+
+    List<Enrollment> findByCourseIdAndStudentIdIn(String courseId, Collection<String> studentIds);
+
+    boolean existsByStudentIdAndCourseId(String studentId, String courseId);
+}
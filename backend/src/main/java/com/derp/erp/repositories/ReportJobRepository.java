@@ -0,0 +1,20 @@
+package com.derp.erp.repositories;
+
+import com.derp.erp.models.ReportJob;
+import com.derp.erp.models.ReportJobStatus;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ReportJobRepository extends MongoRepository<ReportJob, String> {
+
+    List<ReportJob> findAllByOrderByCreatedAtDesc();
+
+    List<ReportJob> findByStatusOrderByCreatedAtDesc(ReportJobStatus status);
+
+    List<ReportJob> findByStatusInAndCompletedAtBefore(Collection<ReportJobStatus> statuses, Instant completedBefore);
+}
@@ -4,6 +4,8 @@ import com.derp.erp.models.ScheduledClass;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.DayOfWeek;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -11,10 +13,12 @@ public interface ScheduledClassRepository extends MongoRepository<ScheduledClass
 
     List<ScheduledClass> findByCourse_Id(String courseId);
 
-    List<ScheduledClass> findByDayOfWeek(String dayOfWeek);
+    List<ScheduledClass> findByCourse_IdIn(Collection<String> courseIds);
+
+    List<ScheduledClass> findByDayOfWeek(DayOfWeek dayOfWeek);
 
     List<ScheduledClass> findByInstructorName(String instructorName);
 
-    List<ScheduledClass> findByRoomNumberAndDayOfWeek(String roomNumber, String dayOfWeek);
+    List<ScheduledClass> findByRoomNumberAndDayOfWeek(String roomNumber, DayOfWeek dayOfWeek);
     // Consider adding more specific queries as needed, e.g., checking for time overlaps.
-} 
\ No newline at end of file
+}
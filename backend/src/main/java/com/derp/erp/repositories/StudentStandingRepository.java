@@ -0,0 +1,18 @@
+package com.derp.erp.repositories;
+
+import com.derp.erp.models.StudentStanding;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StudentStandingRepository extends MongoRepository<StudentStanding, String> {
+
+    List<StudentStanding> findByGpaNotNullOrderByGpaDesc(Pageable pageable);
+
+    List<StudentStanding> findByProgramAndGpaNotNullOrderByGpaDesc(String program, Pageable pageable);
+
+    List<StudentStanding> findByCourses_CourseId(String courseId);
+}
@@ -0,0 +1,9 @@
+package com.derp.erp.repositories;
+
+import com.derp.erp.models.Watermark;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface WatermarkRepository extends MongoRepository<Watermark, String> {
+}
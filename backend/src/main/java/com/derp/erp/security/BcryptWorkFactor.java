@@ -0,0 +1,38 @@
+package com.derp.erp.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+public final class BcryptWorkFactor {
+
+    private static final String PROBE_PASSWORD = "calibration-probe-password";
+    private static final int PROBE_STRENGTH = 8;
+    private static final int PROBE_ROUNDS = 3;
+
+    private BcryptWorkFactor() {
+    }
+
+    // Picks the highest strength whose verify time stays within the budget on this host. Each strength step
+    // doubles the work, so one cheap measurement at a low strength is extrapolated rather than probing every level.
+    public static int calibrate(long targetMillis, int minStrength, int maxStrength) {
+        int probeStrength = Math.min(PROBE_STRENGTH, minStrength);
+        double estimateMillis = measureVerifyMillis(probeStrength) * Math.pow(2, minStrength - probeStrength);
+        int strength = minStrength;
+        while (strength < maxStrength && estimateMillis * 2 <= targetMillis) {
+            strength++;
+            estimateMillis *= 2;
+        }
+        return strength;
+    }
+
+    public static double measureVerifyMillis(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        String hash = encoder.encode(PROBE_PASSWORD); // Also warms up the code path
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < PROBE_ROUNDS; i++) {
+            long start = System.nanoTime();
+            encoder.matches(PROBE_PASSWORD, hash);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1_000_000d;
+    }
+}
@@ -0,0 +1,120 @@
+package com.derp.erp.security;
+
+import com.derp.erp.exceptions.PasswordHashingRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs the expensive hash/verify calls of the delegate on a small dedicated pool with a bounded queue.
+// When the queue is full the call is shed immediately instead of piling up CPU work behind request threads.
+// Passwords verified recently skip the pool entirely (VerifiedPasswordCache), so only logins, new or changed
+// credentials and wrong passwords queue for it.
+public class BoundedPasswordEncoder implements PasswordEncoder, MeterBinder, DisposableBean {
+
+    private final PasswordEncoder delegate;
+    private final VerifiedPasswordCache verifiedPasswordCache;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final long retryAfterSeconds;
+
+    private Counter rejectedCounter;
+    private Timer hashingTimer;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, VerifiedPasswordCache verifiedPasswordCache, int threads,
+                                  int queueCapacity, long timeoutMillis, long retryAfterSeconds) {
+        this.delegate = delegate;
+        this.verifiedPasswordCache = verifiedPasswordCache;
+        this.timeoutMillis = timeoutMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (verifiedPasswordCache.isVerified(rawPassword, encodedPassword)) {
+            return true;
+        }
+        boolean matches = execute(() -> delegate.matches(rawPassword, encodedPassword));
+        if (matches) {
+            verifiedPasswordCache.put(rawPassword, encodedPassword);
+        }
+        return matches;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword); // Cheap: only inspects the hash prefix
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("derp.auth.hashing.queue.depth", executor, e -> e.getQueue().size()).register(registry);
+        Gauge.builder("derp.auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+        Gauge.builder("derp.auth.verified-cache.size", verifiedPasswordCache, VerifiedPasswordCache::size).register(registry);
+        rejectedCounter = Counter.builder("derp.auth.hashing.rejected").register(registry);
+        hashingTimer = Timer.builder("derp.auth.hashing.duration").register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(hashingTimer == null ? task : () -> hashingTimer.recordCallable(task));
+        } catch (RejectedExecutionException e) {
+            recordRejection();
+            throw new PasswordHashingRejectedException("Too many concurrent authentication attempts, please retry later.", retryAfterSeconds, e);
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            recordRejection();
+            throw new PasswordHashingRejectedException("Authentication timed out waiting for a hashing slot, please retry later.", retryAfterSeconds, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private void recordRejection() {
+        if (rejectedCounter != null) {
+            rejectedCounter.increment();
+        }
+    }
+}
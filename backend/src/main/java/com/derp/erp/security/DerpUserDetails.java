@@ -0,0 +1,35 @@
+package com.derp.erp.security;
+
+import com.derp.erp.exceptions.ResourceNotFoundException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+// The authenticated principal: Spring's User plus the id of the Student the account belongs to. The id is read with
+// the user document that authentication loads anyway, so the self-service (/my-*) endpoints need no lookup of their own.
+public class DerpUserDetails extends User {
+
+    private final String studentId;
+
+    public DerpUserDetails(String username, String password, Collection<? extends GrantedAuthority> authorities,
+                           String studentId) {
+        super(username, password, authorities);
+        this.studentId = studentId;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public String requireStudentId() {
+        if (studentId == null) {
+            throw new ResourceNotFoundException("Student profile not found for the logged-in user.");
+        }
+        return studentId;
+    }
+
+    public DerpUserDetails withPassword(String password) {
+        return new DerpUserDetails(getUsername(), password, getAuthorities(), studentId);
+    }
+}
@@ -0,0 +1,107 @@
+package com.derp.erp.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class LoginRateLimiter {
+
+    private final Map<String, TokenBucket> ipBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> usernameBuckets = new ConcurrentHashMap<>();
+    // Failed Basic authentications on the other endpoints, per IP and username together, so neither a shared NAT
+    // address nor someone guessing another user's password can lock anyone else out
+    private final Map<String, TokenBucket> failureBuckets = new ConcurrentHashMap<>();
+
+    private final int ipCapacity;
+    private final double ipRefillPerSecond;
+    private final int usernameCapacity;
+    private final double usernameRefillPerSecond;
+    private final int failureCapacity;
+    private final double failureRefillPerSecond;
+    private final int maxTrackedKeys;
+    private final Counter ipThrottled;
+    private final Counter usernameThrottled;
+    private final Counter failuresThrottled;
+
+    public LoginRateLimiter(@Value("${derp.auth.rate-limit.ip.capacity:20}") int ipCapacity,
+                            @Value("${derp.auth.rate-limit.ip.refill-per-minute:20}") double ipRefillPerMinute,
+                            @Value("${derp.auth.rate-limit.username.capacity:5}") int usernameCapacity,
+                            @Value("${derp.auth.rate-limit.username.refill-per-minute:5}") double usernameRefillPerMinute,
+                            @Value("${derp.auth.rate-limit.failures.capacity:5}") int failureCapacity,
+                            @Value("${derp.auth.rate-limit.failures.refill-per-minute:5}") double failureRefillPerMinute,
+                            @Value("${derp.auth.rate-limit.max-tracked-keys:100000}") int maxTrackedKeys,
+                            MeterRegistry meterRegistry) {
+        this.ipCapacity = ipCapacity;
+        this.ipRefillPerSecond = ipRefillPerMinute / 60d;
+        this.usernameCapacity = usernameCapacity;
+        this.usernameRefillPerSecond = usernameRefillPerMinute / 60d;
+        this.failureCapacity = failureCapacity;
+        this.failureRefillPerSecond = failureRefillPerMinute / 60d;
+        this.maxTrackedKeys = maxTrackedKeys;
+        this.ipThrottled = meterRegistry.counter("derp.auth.throttled", "key", "ip");
+        this.usernameThrottled = meterRegistry.counter("derp.auth.throttled", "key", "username");
+        this.failuresThrottled = meterRegistry.counter("derp.auth.throttled", "key", "ip-username-failures");
+        meterRegistry.gauge("derp.auth.rate-limit.tracked-keys", this,
+                limiter -> limiter.ipBuckets.size() + limiter.usernameBuckets.size() + limiter.failureBuckets.size());
+    }
+
+    // Returns 0 if the attempt may proceed, otherwise the milliseconds the client should wait.
+    public long tryAcquire(String ip, String username) {
+        long ipWait = bucketFor(ipBuckets, ip, ipCapacity, ipRefillPerSecond).tryConsume();
+        if (ipWait > 0) {
+            ipThrottled.increment();
+            return ipWait;
+        }
+        if (username == null || username.isBlank()) {
+            return 0L;
+        }
+        long usernameWait = bucketFor(usernameBuckets, username.toLowerCase(), usernameCapacity, usernameRefillPerSecond).tryConsume();
+        if (usernameWait > 0) {
+            usernameThrottled.increment();
+        }
+        return usernameWait;
+    }
+
+    // For Basic authentication on the other endpoints, where only failures use up the budget: returns 0 if this IP
+    // still has failed attempts left for this username, otherwise the milliseconds to wait. Nothing is consumed.
+    public long checkFailures(String ip, String username) {
+        long wait = bucketFor(failureBuckets, failureKey(ip, username), failureCapacity, failureRefillPerSecond).waitMillis();
+        if (wait > 0) {
+            failuresThrottled.increment();
+        }
+        return wait;
+    }
+
+    public void recordFailure(String ip, String username) {
+        bucketFor(failureBuckets, failureKey(ip, username), failureCapacity, failureRefillPerSecond).tryConsume();
+    }
+
+    // Buckets that have refilled completely carry no state worth keeping.
+    @Scheduled(fixedDelayString = "${derp.auth.rate-limit.cleanup-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        ipBuckets.values().removeIf(TokenBucket::isFull);
+        usernameBuckets.values().removeIf(TokenBucket::isFull);
+        failureBuckets.values().removeIf(TokenBucket::isFull);
+    }
+
+    private static String failureKey(String ip, String username) {
+        return ip + "\n" + (username == null ? "" : username.toLowerCase());
+    }
+
+    private TokenBucket bucketFor(Map<String, TokenBucket> buckets, String key, int capacity, double refillPerSecond) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxTrackedKeys) {
+            evictIdleBuckets();
+        }
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, refillPerSecond));
+    }
+}
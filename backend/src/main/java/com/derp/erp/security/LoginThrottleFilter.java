@@ -0,0 +1,103 @@
+package com.derp.erp.security;
+
+import com.derp.erp.exceptions.PasswordHashingRejectedException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Sits in front of HTTP Basic authentication: rate-limits the public auth endpoints per IP and per username, limits
+// failed Basic authentications on every other endpoint per IP and username together, with a budget of its own that
+// successful ones never draw on, and turns a saturated password hashing pool into 429 responses on any endpoint.
+public class LoginThrottleFilter extends OncePerRequestFilter {
+
+    private static final Set<String> THROTTLED_PATHS = Set.of("/api/auth/login", "/api/auth/register");
+
+    private final LoginRateLimiter loginRateLimiter;
+    private final ObjectMapper objectMapper;
+
+    public LoginThrottleFilter(LoginRateLimiter loginRateLimiter, ObjectMapper objectMapper) {
+        this.loginRateLimiter = loginRateLimiter;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String username = basicAuthUsername(request);
+        boolean authEndpoint = THROTTLED_PATHS.contains(request.getServletPath());
+        boolean basicAuth = !authEndpoint && request.getHeader(HttpHeaders.AUTHORIZATION) != null;
+        long waitMillis = authEndpoint
+                ? loginRateLimiter.tryAcquire(request.getRemoteAddr(), username)
+                : basicAuth ? loginRateLimiter.checkFailures(request.getRemoteAddr(), username) : 0L;
+        if (waitMillis > 0) {
+            writeTooManyRequests(request, response, Math.max(1, (waitMillis + 999) / 1000),
+                    "Too many authentication attempts, please retry later.");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+            // The credentials were rejected by BasicAuthenticationFilter
+            if (basicAuth && response.getStatus() == HttpServletResponse.SC_UNAUTHORIZED) {
+                loginRateLimiter.recordFailure(request.getRemoteAddr(), username);
+            }
+        } catch (RuntimeException | ServletException e) {
+            PasswordHashingRejectedException rejected = findRejection(e);
+            if (rejected == null || response.isCommitted()) {
+                throw e;
+            }
+            writeTooManyRequests(request, response, rejected.getRetryAfterSeconds(), rejected.getMessage());
+        }
+    }
+
+    private static String basicAuthUsername(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, "Basic ", 0, 6)) {
+            return null;
+        }
+        try {
+            String credentials = new String(Base64.getDecoder().decode(header.substring(6).trim()), StandardCharsets.UTF_8);
+            int separator = credentials.indexOf(':');
+            return separator > 0 ? credentials.substring(0, separator) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static PasswordHashingRejectedException findRejection(Throwable throwable) {
+        for (Throwable current = throwable; current != null; current = current.getCause()) {
+            if (current instanceof PasswordHashingRejectedException rejected) {
+                return rejected;
+            }
+        }
+        return null;
+    }
+
+    private void writeTooManyRequests(HttpServletRequest request, HttpServletResponse response, long retryAfterSeconds, String message)
+            throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        body.put("error", "Too Many Requests");
+        body.put("message", message);
+        body.put("path", request.getRequestURI());
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
@@ -0,0 +1,46 @@
+package com.derp.erp.security;
+
+public class TokenBucket {
+
+    private final double capacity;
+    private final double refillPerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(int capacity, double refillPerSecond) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    // Returns 0 when a token was taken, otherwise the number of milliseconds until one becomes available.
+    public synchronized long tryConsume() {
+        refill();
+        if (tokens >= 1d) {
+            tokens -= 1d;
+            return 0L;
+        }
+        return (long) Math.ceil((1d - tokens) / refillPerNano / 1_000_000d);
+    }
+
+    // Like tryConsume, but leaves the token in place
+    public synchronized long waitMillis() {
+        refill();
+        if (tokens >= 1d) {
+            return 0L;
+        }
+        return (long) Math.ceil((1d - tokens) / refillPerNano / 1_000_000d);
+    }
+
+    public synchronized boolean isFull() {
+        refill();
+        return tokens >= capacity;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * refillPerNano);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,32 @@
+package com.derp.erp.security;
+
+import com.derp.erp.repositories.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.stereotype.Service;
+
+// Called by Spring Security after a successful login whose stored hash needs upgrading
+// (legacy unprefixed hash or a lower BCrypt strength than currently configured).
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserPasswordUpgradeService implements UserDetailsPasswordService {
+
+    private final UserRepository userRepository;
+
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.findByUsername(user.getUsername()).ifPresent(storedUser -> {
+            storedUser.setPassword(newPassword);
+            userRepository.save(storedUser);
+            log.debug("Rehashed password for user {}", user.getUsername());
+        });
+        if (user instanceof DerpUserDetails derpUser) {
+            return derpUser.withPassword(newPassword);
+        }
+        return User.withUserDetails(user).password(newPassword).build();
+    }
+}
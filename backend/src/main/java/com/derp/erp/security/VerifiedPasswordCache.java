@@ -0,0 +1,61 @@
+package com.derp.erp.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+
+// HTTP Basic sends the password with every request, so without this every API call would pay a full BCrypt verify.
+// A password that verified against a stored hash is remembered for a short while, keyed by that hash, as an HMAC under
+// a random per-process key, so a changed password (a new hash) misses and no password is kept in the clear. Someone
+// able to read the heap could test guesses against an entry faster than against BCrypt, hence the short expiry.
+public class VerifiedPasswordCache {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final Cache<String, byte[]> verified;
+    private final SecretKeySpec key;
+
+    public VerifiedPasswordCache(Duration ttl, long maximumSize) {
+        this.verified = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maximumSize).build();
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+    }
+
+    public boolean isVerified(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return false;
+        }
+        byte[] expected = verified.getIfPresent(encodedPassword);
+        return expected != null && MessageDigest.isEqual(expected, mac(rawPassword, encodedPassword));
+    }
+
+    public void put(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword != null && encodedPassword != null) {
+            verified.put(encodedPassword, mac(rawPassword, encodedPassword));
+        }
+    }
+
+    public long size() {
+        return verified.estimatedSize();
+    }
+
+    private byte[] mac(CharSequence rawPassword, String encodedPassword) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            mac.update(encodedPassword.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(rawPassword.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+}
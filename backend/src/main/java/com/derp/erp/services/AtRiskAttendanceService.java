@@ -0,0 +1,297 @@
+package com.derp.erp.services;
+
+import com.derp.erp.dtos.AtRiskRefreshResultDto;
+import com.derp.erp.dtos.AtRiskStudentDto;
+import com.derp.erp.exceptions.ConflictException;
+import com.derp.erp.models.AttendanceStatus;
+import com.derp.erp.models.AttendanceTally;
+import com.derp.erp.models.Course;
+import com.derp.erp.models.Student;
+import com.derp.erp.models.Watermark;
+import com.derp.erp.query.ListQuerySpec;
+import com.derp.erp.repositories.AttendanceTallyRepository;
+import com.derp.erp.repositories.CourseRepository;
+import com.derp.erp.repositories.StudentRepository;
+import com.derp.erp.repositories.WatermarkRepository;
+import com.mongodb.client.MongoCursor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+// Keeps attendance_tallies up to date from the records changed since the last run, so each run costs
+// roughly the day's changes rather than the whole attendance history. Only the first run scans everything.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AtRiskAttendanceService {
+
+    private static final String WATERMARK_ID = "at-risk-attendance";
+    private static final int RECOMPUTE_CHUNK_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final AttendanceTallyRepository attendanceTallyRepository;
+    private final WatermarkRepository watermarkRepository;
+    private final StudentRepository studentRepository;
+    private final CourseRepository courseRepository;
+    private final TaskScheduler taskScheduler;
+
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    @Value("${derp.at-risk.threshold:0.75}")
+    private double threshold;
+
+    // Too few sessions say nothing about a student; they are counted but never flagged
+    @Value("${derp.at-risk.min-sessions:3}")
+    private long minSessions;
+
+    // Re-reads this much before the watermark to cover writes that were in flight during the previous run
+    @Value("${derp.at-risk.overlap-ms:300000}")
+    private long overlapMillis;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        taskScheduler.schedule(() -> {
+            if (!watermarkRepository.existsById(WATERMARK_ID)) {
+                scheduledRefresh();
+            }
+        }, Instant.now());
+    }
+
+    @Scheduled(cron = "${derp.at-risk.cron:0 30 2 * * *}")
+    public void scheduledRefresh() {
+        if (!runLock.tryLock()) {
+            return;
+        }
+        try {
+            AtRiskRefreshResultDto result = detect();
+            log.info("At-risk detector: {} changed record(s), {} pair(s) recomputed, {} at risk",
+                    result.getChangedRecords(), result.getPairsRecomputed(), result.getAtRiskCount());
+        } catch (RuntimeException e) {
+            log.warn("At-risk detector run failed; it will resume from the previous watermark", e);
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    public AtRiskRefreshResultDto refreshNow() {
+        if (!runLock.tryLock()) {
+            throw new ConflictException("The at-risk detector is already running.");
+        }
+        try {
+            return detect();
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    // The attendance history was replaced wholesale (a snapshot restore): the tallies are dropped and rebuilt
+    // by a full scan in the background
+    public void rebuild() {
+        taskScheduler.schedule(() -> {
+            runLock.lock();
+            try {
+                mongoTemplate.remove(new Query(), AttendanceTally.class);
+                watermarkRepository.deleteById(WATERMARK_ID);
+                AtRiskRefreshResultDto result = detect();
+                log.info("At-risk tallies rebuilt: {} pair(s), {} at risk", result.getPairsRecomputed(), result.getAtRiskCount());
+            } catch (RuntimeException e) {
+                log.warn("Rebuilding the at-risk tallies failed; the next scheduled run does a full scan", e);
+            } finally {
+                runLock.unlock();
+            }
+        }, Instant.now());
+    }
+
+    public List<AtRiskStudentDto> getAtRiskStudents(String courseId) {
+        List<AttendanceTally> tallies = courseId == null
+                ? attendanceTallyRepository.findByAtRiskTrueOrderByAttendanceRateAsc()
+                : attendanceTallyRepository.findByAtRiskTrueAndCourseIdOrderByAttendanceRateAsc(courseId);
+        Map<String, Student> students = new HashMap<>();
+        studentRepository.findAllById(tallies.stream().map(AttendanceTally::getStudentId).collect(Collectors.toSet()))
+                .forEach(student -> students.put(student.getId(), student));
+        Map<String, Course> courses = new HashMap<>();
+        courseRepository.findAllById(tallies.stream().map(AttendanceTally::getCourseId).collect(Collectors.toSet()))
+                .forEach(course -> courses.put(course.getId(), course));
+        return tallies.stream()
+                .map(tally -> mapToAtRiskStudentDto(tally, students.get(tally.getStudentId()), courses.get(tally.getCourseId())))
+                .collect(Collectors.toList());
+    }
+
+    // Called when a record is deleted; the next run recomputes the pair.
+    public void markDirty(String studentId, String courseId) {
+        Query pair = new Query(Criteria.where("studentId").is(studentId).and("courseId").is(courseId));
+        mongoTemplate.upsert(pair, new Update().set("dirtyAt", Instant.now()), AttendanceTally.class);
+    }
+
+    // The same for records of many students in one course deleted together, as one bulk write
+    public void markDirty(String courseId, Collection<String> studentIds) {
+        if (studentIds.isEmpty()) {
+            return;
+        }
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AttendanceTally.class);
+        Instant now = Instant.now();
+        for (String studentId : studentIds) {
+            bulkOps.upsert(new Pair(studentId, courseId).query(), new Update().set("dirtyAt", now));
+        }
+        bulkOps.execute();
+    }
+
+    private AtRiskRefreshResultDto detect() {
+        Instant runStartedAt = Instant.now();
+        Watermark watermark = watermarkRepository.findById(WATERMARK_ID).orElse(null);
+        Document changedFilter = watermark == null
+                ? new Document()
+                : new Document("lastModifiedAt", new Document("$gte", Date.from(watermark.getValue().minus(Duration.ofMillis(overlapMillis)))));
+
+        AtRiskRefreshResultDto result = new AtRiskRefreshResultDto();
+        result.setFullScan(watermark == null);
+        Set<Pair> pending = new LinkedHashSet<>();
+        long changedRecords = 0;
+        long pairsRecomputed = 0;
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection("attendance_records")
+                .find(changedFilter)
+                .projection(new Document("student", 1).append("course", 1))
+                .batchSize(1000)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                Document record = cursor.next();
+                changedRecords++;
+                Pair pair = Pair.of(record.get("student"), record.get("course"));
+                if (pair != null && pending.add(pair) && pending.size() >= RECOMPUTE_CHUNK_SIZE) {
+                    pairsRecomputed += recompute(pending);
+                    pending.clear();
+                }
+            }
+        }
+        for (AttendanceTally tally : attendanceTallyRepository.findByDirtyAtNotNull()) {
+            if (pending.add(new Pair(tally.getStudentId(), tally.getCourseId())) && pending.size() >= RECOMPUTE_CHUNK_SIZE) {
+                pairsRecomputed += recompute(pending);
+                pending.clear();
+            }
+        }
+        if (!pending.isEmpty()) {
+            pairsRecomputed += recompute(pending);
+        }
+
+        // Deletions marked before this run started are reflected in what was just recomputed
+        mongoTemplate.updateMulti(new Query(Criteria.where("dirtyAt").lte(runStartedAt)),
+                new Update().unset("dirtyAt"), AttendanceTally.class);
+        watermarkRepository.save(new Watermark(WATERMARK_ID, runStartedAt));
+
+        result.setChangedRecords(changedRecords);
+        result.setPairsRecomputed(pairsRecomputed);
+        result.setAtRiskCount(attendanceTallyRepository.countByAtRiskTrue());
+        result.setWatermark(runStartedAt);
+        return result;
+    }
+
+    // Recounts the given student/course pairs from attendance_records (served by student_id_course_id_date_idx).
+    private int recompute(Set<Pair> pairs) {
+        List<Document> pairFilters = new ArrayList<>(pairs.size());
+        for (Pair pair : pairs) {
+            pairFilters.add(new Document("student.$id", ListQuerySpec.objectId(pair.studentId()))
+                    .append("course.$id", ListQuerySpec.objectId(pair.courseId())));
+        }
+        // Grouped by the whole DBRef, since "$student.$id" is not a valid aggregation field path
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("$or", pairFilters)),
+                new Document("$group", new Document("_id", new Document("student", "$student").append("course", "$course"))
+                        .append("present", countStatus(AttendanceStatus.PRESENT))
+                        .append("late", countStatus(AttendanceStatus.LATE))
+                        .append("absent", countStatus(AttendanceStatus.ABSENT))
+                        .append("excused", countStatus(AttendanceStatus.EXCUSED))));
+
+        Set<Pair> vanished = new HashSet<>(pairs);
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AttendanceTally.class);
+        Instant now = Instant.now();
+        for (Document counts : mongoTemplate.getCollection("attendance_records").aggregate(pipeline)) {
+            Document key = counts.get("_id", Document.class);
+            Pair pair = Pair.of(key.get("student"), key.get("course"));
+            if (pair == null) {
+                continue;
+            }
+            vanished.remove(pair);
+            long present = counts.get("present", Number.class).longValue();
+            long late = counts.get("late", Number.class).longValue();
+            long absent = counts.get("absent", Number.class).longValue();
+            long excused = counts.get("excused", Number.class).longValue();
+            long counted = present + late + absent;
+            double rate = counted == 0 ? 1.0 : (double) (present + late) / counted;
+            bulkOps.upsert(pair.query(), new Update()
+                    .set("present", present)
+                    .set("late", late)
+                    .set("absent", absent)
+                    .set("excused", excused)
+                    .set("attendanceRate", rate)
+                    .set("atRisk", counted >= minSessions && rate < threshold)
+                    .set("updatedAt", now));
+        }
+        // Pairs whose records were all deleted
+        for (Pair pair : vanished) {
+            bulkOps.remove(pair.query());
+        }
+        bulkOps.execute();
+        return pairs.size();
+    }
+
+    private static Document countStatus(AttendanceStatus status) {
+        return new Document("$sum", new Document("$cond", List.of(new Document("$eq", List.of("$status", status.name())), 1, 0)));
+    }
+
+    private AtRiskStudentDto mapToAtRiskStudentDto(AttendanceTally tally, Student student, Course course) {
+        AtRiskStudentDto dto = new AtRiskStudentDto();
+        dto.setStudentId(tally.getStudentId());
+        if (student != null) {
+            dto.setStudentIdNumber(student.getStudentIdNumber());
+            dto.setStudentFirstName(student.getFirstName());
+            dto.setStudentLastName(student.getLastName());
+        }
+        dto.setCourseId(tally.getCourseId());
+        if (course != null) {
+            dto.setCourseCode(course.getCourseCode());
+            dto.setCourseName(course.getCourseName());
+        }
+        dto.setAttended(tally.getPresent() + tally.getLate());
+        dto.setCounted(tally.getPresent() + tally.getLate() + tally.getAbsent());
+        dto.setAttendanceRate(tally.getAttendanceRate());
+        return dto;
+    }
+
+    private record Pair(String studentId, String courseId) {
+
+        static Pair of(Object studentRef, Object courseRef) {
+            String studentId = ListQuerySpec.refId(studentRef);
+            String courseId = ListQuerySpec.refId(courseRef);
+            return studentId == null || courseId == null ? null : new Pair(studentId, courseId);
+        }
+
+        Query query() {
+            return new Query(Criteria.where("studentId").is(studentId).and("courseId").is(courseId));
+        }
+    }
+}
@@ -0,0 +1,498 @@
+package com.derp.erp.services;
+
+import com.derp.erp.dtos.AttendanceHeatmapCellDto;
+import com.derp.erp.dtos.AttendanceRollupResultDto;
+import com.derp.erp.dtos.AttendanceTrendPointDto;
+import com.derp.erp.exceptions.ConflictException;
+import com.derp.erp.exceptions.ResourceNotFoundException;
+import com.derp.erp.models.AttendanceRollup;
+import com.derp.erp.models.AttendanceStatus;
+import com.derp.erp.models.Course;
+import com.derp.erp.models.MinuteOfDay;
+import com.derp.erp.models.Watermark;
+import com.derp.erp.query.ListQuerySpec;
+import com.derp.erp.repositories.AttendanceRollupRepository;
+import com.derp.erp.repositories.CourseRepository;
+import com.derp.erp.repositories.WatermarkRepository;
+import com.mongodb.client.MongoCursor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+// Attendance trends and weekday × time-slot heatmaps. Days before the current month are closed: a nightly job rolls
+// them up into attendance_rollups, one document per course and day, so a chart over several years reads the rollups
+// plus the raw records of the open month only. Corrections to closed days are found through lastModifiedAt and
+// deletions through markDirty, as for the at-risk tallies; rebuild() recounts everything.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AttendanceAnalyticsService {
+
+    private static final String RECORDS = "attendance_records";
+    private static final String ROLLUPS = "attendance_rollups";
+    // Records changed since this instant are rolled up again on the next run
+    private static final String CHANGES_WATERMARK_ID = "attendance-rollups";
+    // Days before this one (stored as the start of that day) are answered from the rollups
+    private static final String CLOSED_BEFORE_WATERMARK_ID = "attendance-rollups-closed-before";
+    private static final int RECOMPUTE_CHUNK_SIZE = 500;
+    private static final int WRITE_BATCH_SIZE = 1000;
+    private static final Set<String> GRANULARITIES = Set.of("day", "week", "month");
+    // Indexed by $isoDayOfWeek - 1, matching ScheduledClass.dayOfWeek
+    private static final List<String> DAY_NAMES = Arrays.stream(DayOfWeek.values()).map(Enum::name).toList();
+
+    private final MongoTemplate mongoTemplate;
+    private final AttendanceRollupRepository attendanceRollupRepository;
+    private final CourseRepository courseRepository;
+    private final WatermarkRepository watermarkRepository;
+    private final TaskScheduler taskScheduler;
+
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    // Re-reads this much before the watermark to cover writes that were in flight during the previous run
+    @Value("${derp.analytics.overlap-ms:300000}")
+    private long overlapMillis;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        taskScheduler.schedule(() -> {
+            if (!watermarkRepository.existsById(CLOSED_BEFORE_WATERMARK_ID)) {
+                scheduledRollup();
+            }
+        }, Instant.now());
+    }
+
+    @Scheduled(cron = "${derp.analytics.rollup-cron:0 45 2 * * *}")
+    public void scheduledRollup() {
+        if (!runLock.tryLock()) {
+            return;
+        }
+        try {
+            AttendanceRollupResultDto result = rollUp();
+            log.info("Attendance rollups: {} course day(s) rolled up, closed before {}", result.getDaysRolledUp(), result.getClosedBefore());
+        } catch (RuntimeException e) {
+            log.warn("Attendance rollup run failed; it will resume from the previous watermark", e);
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    public AttendanceRollupResultDto rollUpNow() {
+        if (!runLock.tryLock()) {
+            throw new ConflictException("The attendance rollup is already running.");
+        }
+        try {
+            return rollUp();
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    // The attendance history was replaced wholesale (a snapshot restore): the rollups are dropped and rebuilt in
+    // the background. Until then every chart reads the raw records.
+    public void rebuild() {
+        taskScheduler.schedule(() -> {
+            runLock.lock();
+            try {
+                watermarkRepository.deleteById(CLOSED_BEFORE_WATERMARK_ID);
+                watermarkRepository.deleteById(CHANGES_WATERMARK_ID);
+                AttendanceRollupResultDto result = rollUp();
+                log.info("Attendance rollups rebuilt: {} course day(s)", result.getDaysRolledUp());
+            } catch (RuntimeException e) {
+                log.warn("Rebuilding the attendance rollups failed; the next scheduled run rolls up everything", e);
+            } finally {
+                runLock.unlock();
+            }
+        }, Instant.now());
+    }
+
+    // Called when records are deleted. A day without a rollup is still open and needs nothing.
+    public void markDirty(String courseId, LocalDate date) {
+        if (courseId == null || date == null) {
+            return;
+        }
+        mongoTemplate.updateFirst(new Day(courseId, toDate(date)).query(), new Update().set("dirtyAt", Instant.now()),
+                AttendanceRollup.class);
+    }
+
+    // The same for records about to be deleted in bulk (a cascade), read with their course and attendanceDate
+    public void markDirty(List<Document> records) {
+        Set<Day> days = new LinkedHashSet<>();
+        for (Document record : records) {
+            Day day = Day.of(record.get("course"), record.getDate("attendanceDate"));
+            if (day != null) {
+                days.add(day);
+            }
+        }
+        if (days.isEmpty()) {
+            return;
+        }
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AttendanceRollup.class);
+        Instant now = Instant.now();
+        for (Day day : days) {
+            bulkOps.updateOne(day.query(), new Update().set("dirtyAt", now));
+        }
+        bulkOps.execute();
+    }
+
+    public List<AttendanceTrendPointDto> getTrend(String granularity, LocalDate from, LocalDate to, String courseId,
+                                                  String department) {
+        String unit = granularity == null ? "day" : granularity.toLowerCase(Locale.ROOT);
+        if (!GRANULARITIES.contains(unit)) {
+            throw new IllegalArgumentException("Granularity must be one of day, week or month.");
+        }
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = from == null ? end.minusYears(1).plusDays(1) : from;
+        List<Object> courseIds = resolveCourseIds(courseId, department);
+        if (courseIds != null && courseIds.isEmpty()) {
+            return List.of();
+        }
+
+        Document period = new Document("date", "$date").append("unit", unit).append("timezone", timezone());
+        if (unit.equals("week")) {
+            period.append("startOfWeek", "monday");
+        }
+        List<AggregationOperation> stages = dailyCounts(start, end, courseIds);
+        stages.add(stage("$group", sumCounts(new Document("_id", new Document("$dateTrunc", period)))));
+        stages.add(stage("$sort", new Document("_id", 1)));
+
+        return mongoTemplate.aggregate(Aggregation.newAggregation(stages), ROLLUPS, Document.class).getMappedResults().stream()
+                .map(row -> {
+                    AttendanceTrendPointDto dto = new AttendanceTrendPointDto();
+                    dto.setPeriodStart(LocalDate.ofInstant(row.getDate("_id").toInstant(), ZoneId.systemDefault()));
+                    dto.setPresent(asLong(row.get("present")));
+                    dto.setLate(asLong(row.get("late")));
+                    dto.setAbsent(asLong(row.get("absent")));
+                    dto.setExcused(asLong(row.get("excused")));
+                    dto.setAttendanceRate(attendanceRate(dto.getPresent(), dto.getLate(), dto.getAbsent()));
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+
+    // Each course day lands in the slots its course is scheduled in on that weekday. Days with no matching
+    // scheduled class (e.g. a make-up session) are left out, and a course meeting twice that day counts in both slots.
+    public List<AttendanceHeatmapCellDto> getHeatmap(LocalDate from, LocalDate to, String courseId, String department) {
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = from == null ? end.minusYears(1).plusDays(1) : from;
+        List<Object> courseIds = resolveCourseIds(courseId, department);
+        if (courseIds != null && courseIds.isEmpty()) {
+            return List.of();
+        }
+
+        Document isoDay = new Document("$isoDayOfWeek", new Document("date", "$date").append("timezone", timezone()));
+        Document slotsOfDay = new Document("$match", new Document("$expr", new Document("$and", List.of(
+                new Document("$eq", List.of(refId("$course"), "$$courseId")),
+                new Document("$eq", List.of("$dayOfWeek", "$$dayName")),
+                new Document("$isNumber", "$startMinute")))));
+        List<AggregationOperation> stages = dailyCounts(start, end, courseIds);
+        stages.add(stage("$addFields", new Document("isoDay", isoDay)));
+        stages.add(stage("$lookup", new Document("from", "scheduled_classes")
+                .append("let", new Document("courseId", "$courseId")
+                        .append("dayName", new Document("$arrayElemAt", List.of(DAY_NAMES, new Document("$subtract", List.of("$isoDay", 1))))))
+                // Sections of a course at the same time count once
+                .append("pipeline", List.of(slotsOfDay, new Document("$group", new Document("_id", "$startMinute"))))
+                .append("as", "slots")));
+        stages.add(stage("$unwind", new Document("path", "$slots")));
+        stages.add(stage("$group", sumCounts(new Document("_id", new Document("day", "$isoDay").append("startMinute", "$slots._id"))
+                .append("courseDays", new Document("$sum", 1)))));
+        stages.add(stage("$sort", new Document("_id.day", 1).append("_id.startMinute", 1)));
+
+        return mongoTemplate.aggregate(Aggregation.newAggregation(stages), ROLLUPS, Document.class).getMappedResults().stream()
+                .map(row -> {
+                    Document key = row.get("_id", Document.class);
+                    AttendanceHeatmapCellDto dto = new AttendanceHeatmapCellDto();
+                    dto.setDayOfWeek(DayOfWeek.of((int) asLong(key.get("day"))));
+                    dto.setStartTime(MinuteOfDay.format((int) asLong(key.get("startMinute"))));
+                    dto.setCourseDays(asLong(row.get("courseDays")));
+                    dto.setPresent(asLong(row.get("present")));
+                    dto.setLate(asLong(row.get("late")));
+                    dto.setAbsent(asLong(row.get("absent")));
+                    dto.setExcused(asLong(row.get("excused")));
+                    dto.setAttendanceRate(attendanceRate(dto.getPresent(), dto.getLate(), dto.getAbsent()));
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+
+    // Per course and day counts over [from, to]: rollups before the closed-before watermark, grouped raw records
+    // after it, in one pipeline through $unionWith. Both halves are served by their date indexes.
+    private List<AggregationOperation> dailyCounts(LocalDate from, LocalDate to, List<Object> courseIds) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("The end date must not be before the start date.");
+        }
+        Date start = toDate(from);
+        Date end = toDate(to.plusDays(1));
+        LocalDate closedBefore = closedBefore();
+        Date split = start;
+        if (closedBefore != null && closedBefore.isAfter(from)) {
+            split = closedBefore.isAfter(to) ? end : toDate(closedBefore);
+        }
+
+        Document rollupMatch = new Document("date", new Document("$gte", start).append("$lt", split));
+        Document recordMatch = new Document("attendanceDate", new Document("$gte", split).append("$lt", end));
+        if (courseIds != null) {
+            rollupMatch.append("courseId", new Document("$in", courseIds));
+            recordMatch.append("course.$id", new Document("$in", courseIds));
+        }
+        Document openDays = new Document("coll", RECORDS).append("pipeline", List.of(
+                new Document("$match", recordMatch),
+                new Document("$group", countStatuses(new Document("_id", new Document("course", "$course").append("date", "$attendanceDate")))),
+                new Document("$project", counts(new Document("_id", 0)
+                        .append("courseId", refId("$_id.course"))
+                        .append("date", "$_id.date")))));
+
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(stage("$match", rollupMatch));
+        stages.add(stage("$project", counts(new Document("_id", 0).append("courseId", 1).append("date", 1))));
+        stages.add(stage("$unionWith", openDays));
+        return stages;
+    }
+
+    private AttendanceRollupResultDto rollUp() {
+        long started = System.currentTimeMillis();
+        Instant runStartedAt = Instant.now();
+        LocalDate closedBefore = LocalDate.now().withDayOfMonth(1);
+        LocalDate previousClosedBefore = closedBefore();
+        Watermark changes = watermarkRepository.findById(CHANGES_WATERMARK_ID).orElse(null);
+        boolean full = previousClosedBefore == null || changes == null;
+
+        AttendanceRollupResultDto result = new AttendanceRollupResultDto();
+        result.setFullRollup(full);
+        long days = 0;
+        if (full) {
+            // Charts read raw records until the new closed-before watermark is saved
+            watermarkRepository.deleteById(CLOSED_BEFORE_WATERMARK_ID);
+            mongoTemplate.remove(new Query(), AttendanceRollup.class);
+            days += rollUpRange(new Document("attendanceDate", new Document("$lt", toDate(closedBefore))));
+        } else {
+            if (previousClosedBefore.isBefore(closedBefore)) {
+                days += rollUpRange(new Document("attendanceDate",
+                        new Document("$gte", toDate(previousClosedBefore)).append("$lt", toDate(closedBefore))));
+            } else {
+                closedBefore = previousClosedBefore;
+            }
+            days += rollUpChangedDays(changes.getValue(), toDate(previousClosedBefore));
+        }
+
+        // Deletions marked before this run started are reflected in what was just recomputed
+        mongoTemplate.updateMulti(new Query(Criteria.where("dirtyAt").lte(runStartedAt)),
+                new Update().unset("dirtyAt"), AttendanceRollup.class);
+        watermarkRepository.save(new Watermark(CHANGES_WATERMARK_ID, runStartedAt));
+        watermarkRepository.save(new Watermark(CLOSED_BEFORE_WATERMARK_ID, toDate(closedBefore).toInstant()));
+
+        result.setDaysRolledUp(days);
+        result.setClosedBefore(closedBefore);
+        result.setDurationMillis(System.currentTimeMillis() - started);
+        return result;
+    }
+
+    // Days that had no rollups yet, so nothing can have vanished
+    private long rollUpRange(Document match) {
+        return write(aggregateDays(match), Set.of());
+    }
+
+    // Closed days whose records changed since the watermark, plus those marked dirty by a deletion
+    private long rollUpChangedDays(Instant watermark, Date closedBefore) {
+        Document changedFilter = new Document("lastModifiedAt", new Document("$gte", Date.from(watermark.minus(Duration.ofMillis(overlapMillis)))))
+                .append("attendanceDate", new Document("$lt", closedBefore));
+        Set<Day> pending = new LinkedHashSet<>();
+        long days = 0;
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection(RECORDS)
+                .find(changedFilter)
+                .projection(new Document("course", 1).append("attendanceDate", 1))
+                .batchSize(1000)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                Document record = cursor.next();
+                Day day = Day.of(record.get("course"), record.getDate("attendanceDate"));
+                if (day != null && pending.add(day) && pending.size() >= RECOMPUTE_CHUNK_SIZE) {
+                    days += recompute(pending);
+                    pending.clear();
+                }
+            }
+        }
+        for (AttendanceRollup rollup : attendanceRollupRepository.findByDirtyAtNotNull()) {
+            if (pending.add(new Day(rollup.getCourseId(), toDate(rollup.getDate()))) && pending.size() >= RECOMPUTE_CHUNK_SIZE) {
+                days += recompute(pending);
+                pending.clear();
+            }
+        }
+        if (!pending.isEmpty()) {
+            days += recompute(pending);
+        }
+        return days;
+    }
+
+    // Recounts the given course days from attendance_records (served by course_id_date_idx)
+    private long recompute(Set<Day> days) {
+        List<Document> dayFilters = new ArrayList<>(days.size());
+        for (Day day : days) {
+            dayFilters.add(new Document("course.$id", ListQuerySpec.objectId(day.courseId())).append("attendanceDate", day.date()));
+        }
+        write(aggregateDays(new Document("$or", dayFilters)), days);
+        return days.size();
+    }
+
+    // Grouped by the whole DBRef, since "$course.$id" is not a valid aggregation field path
+    private Iterable<Document> aggregateDays(Document match) {
+        return mongoTemplate.getCollection(RECORDS).aggregate(List.of(
+                new Document("$match", match),
+                new Document("$group", countStatuses(new Document("_id", new Document("course", "$course").append("date", "$attendanceDate"))))))
+                .allowDiskUse(true);
+    }
+
+    // Upserts one rollup per aggregated day; expected days that did not come back had all their records deleted
+    private long write(Iterable<Document> aggregated, Set<Day> expected) {
+        Set<Day> vanished = new HashSet<>(expected);
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AttendanceRollup.class);
+        Instant now = Instant.now();
+        long written = 0;
+        int batched = 0;
+        for (Document counts : aggregated) {
+            Document key = counts.get("_id", Document.class);
+            Day day = Day.of(key.get("course"), key.getDate("date"));
+            if (day == null) {
+                continue;
+            }
+            vanished.remove(day);
+            bulkOps.upsert(day.query(), new Update()
+                    .set("present", asLong(counts.get("present")))
+                    .set("late", asLong(counts.get("late")))
+                    .set("absent", asLong(counts.get("absent")))
+                    .set("excused", asLong(counts.get("excused")))
+                    .set("updatedAt", now));
+            written++;
+            if (++batched >= WRITE_BATCH_SIZE) {
+                bulkOps.execute();
+                bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AttendanceRollup.class);
+                batched = 0;
+            }
+        }
+        for (Day day : vanished) {
+            bulkOps.remove(day.query());
+            batched++;
+        }
+        if (batched > 0) {
+            bulkOps.execute();
+        }
+        return written + vanished.size();
+    }
+
+    private LocalDate closedBefore() {
+        return watermarkRepository.findById(CLOSED_BEFORE_WATERMARK_ID)
+                .map(watermark -> LocalDate.ofInstant(watermark.getValue(), ZoneId.systemDefault()))
+                .orElse(null);
+    }
+
+    // null means no course filter; an empty list matches nothing
+    private List<Object> resolveCourseIds(String courseId, String department) {
+        if (courseId != null) {
+            Course course = courseRepository.findById(courseId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + courseId));
+            if (department != null && !department.equals(course.getDepartment())) {
+                return List.of();
+            }
+            return List.of(ListQuerySpec.objectId(courseId));
+        }
+        if (department == null) {
+            return null;
+        }
+        Query inDepartment = new Query(Criteria.where("department").is(department));
+        inDepartment.fields().include("_id");
+        return mongoTemplate.find(inDepartment, Course.class).stream()
+                .map(course -> ListQuerySpec.objectId(course.getId()))
+                .collect(Collectors.toList());
+    }
+
+    private static Document countStatuses(Document group) {
+        return group.append("present", countStatus(AttendanceStatus.PRESENT))
+                .append("late", countStatus(AttendanceStatus.LATE))
+                .append("absent", countStatus(AttendanceStatus.ABSENT))
+                .append("excused", countStatus(AttendanceStatus.EXCUSED));
+    }
+
+    private static Document countStatus(AttendanceStatus status) {
+        return new Document("$sum", new Document("$cond", List.of(new Document("$eq", List.of("$status", status.name())), 1, 0)));
+    }
+
+    private static Document sumCounts(Document group) {
+        return group.append("present", new Document("$sum", "$present"))
+                .append("late", new Document("$sum", "$late"))
+                .append("absent", new Document("$sum", "$absent"))
+                .append("excused", new Document("$sum", "$excused"));
+    }
+
+    private static Document counts(Document projection) {
+        return projection.append("present", 1).append("late", 1).append("absent", 1).append("excused", 1);
+    }
+
+    // The $id of a DBRef-valued expression; $getField reads the "$"-prefixed name a field path cannot
+    private static Document refId(String reference) {
+        return new Document("$getField", new Document("field", new Document("$literal", "$id")).append("input", reference));
+    }
+
+    private static Double attendanceRate(long present, long late, long absent) {
+        long counted = present + late + absent;
+        return counted == 0 ? null : (double) (present + late) / counted;
+    }
+
+    // LocalDates are stored as the start of the day in the server's zone, so periods are cut in that zone too
+    private static String timezone() {
+        ZoneId zone = ZoneId.systemDefault().normalized();
+        return zone instanceof ZoneOffset offset && offset.getTotalSeconds() == 0 ? "UTC" : zone.getId();
+    }
+
+    private static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static AggregationOperation stage(String operator, Document body) {
+        return context -> new Document(operator, body);
+    }
+
+    private static long asLong(Object value) {
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+
+    private record Day(String courseId, Date date) {
+
+        static Day of(Object courseRef, Date date) {
+            String courseId = ListQuerySpec.refId(courseRef);
+            return courseId == null || date == null ? null : new Day(courseId, date);
+        }
+
+        Query query() {
+            return new Query(Criteria.where("courseId").is(courseId).and("date").is(date));
+        }
+    }
+}
@@ -1,29 +1,84 @@
 package com.derp.erp.services;
 
+import com.derp.erp.audit.AuditTrail;
+import com.derp.erp.coalescing.Coalesce;
 import com.derp.erp.dtos.AttendanceRecordRequestDto;
 import com.derp.erp.dtos.AttendanceRecordResponseDto;
+import com.derp.erp.dtos.BulkAttendanceRequestDto;
+import com.derp.erp.dtos.BulkOperationResultDto;
 import com.derp.erp.exceptions.ResourceNotFoundException;
 import com.derp.erp.models.AttendanceRecord;
+import com.derp.erp.models.AttendanceStatus;
+import com.derp.erp.models.AuditAction;
 import com.derp.erp.models.Course;
 import com.derp.erp.models.Student;
+import com.derp.erp.query.ListQuery;
+import com.derp.erp.query.ListQuerySpec;
 import com.derp.erp.repositories.AttendanceRecordRepository;
 import com.derp.erp.repositories.CourseRepository;
 import com.derp.erp.repositories.StudentRepository;
+import com.derp.erp.streaming.RawRowStreamer;
+import com.derp.erp.streaming.StreamedJsonArray;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
 import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class AttendanceService {
 
+    // Anchors match the leading fields of student_id_course_id_date_idx and course_id_date_idx
+    private static final ListQuerySpec LIST_QUERY_SPEC = ListQuerySpec.builder()
+            .anchor("studentId", "student.$id", ListQuerySpec::objectId)
+            .anchor("courseId", "course.$id", ListQuerySpec::objectId)
+            .filter("attendanceDate", "attendanceDate", LocalDate::parse)
+            .filter("status", "status", value -> AttendanceStatus.valueOf(value.toUpperCase(Locale.ROOT)))
+            .sort("attendanceDate", "attendanceDate")
+            .sort("status", "status")
+            .select("id", "_id")
+            .select("studentId", "student")
+            .select("studentFirstName", "student")
+            .select("studentLastName", "student")
+            .select("courseId", "course")
+            .select("courseCode", "course")
+            .select("courseName", "course")
+            .select("attendanceDate", "attendanceDate")
+            .select("status", "status")
+            .build();
+
     private final AttendanceRecordRepository attendanceRecordRepository;
     private final StudentRepository studentRepository;
     private final CourseRepository courseRepository;
+    private final AtRiskAttendanceService atRiskAttendanceService;
+    private final AttendanceAnalyticsService attendanceAnalyticsService;
+    private final AuditTrail auditTrail;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final RawRowStreamer rawRowStreamer;
+
+    @Value("${derp.bulk.max-records:5000}")
+    private int maxBulkRecords;
 
     @Transactional
     public AttendanceRecordResponseDto recordAttendance(AttendanceRecordRequestDto requestDto) {
@@ -44,7 +99,9 @@ public class AttendanceService {
         attendanceRecord.setStatus(requestDto.getStatus());
 
         AttendanceRecord savedRecord = attendanceRecordRepository.save(attendanceRecord);
-        return mapToAttendanceRecordResponseDto(savedRecord);
+        AttendanceRecordResponseDto responseDto = mapToAttendanceRecordResponseDto(savedRecord);
+        auditTrail.record(AuditAction.CREATE, "AttendanceRecord", savedRecord.getId(), null, responseDto);
+        return responseDto;
     }
 
     @Transactional(readOnly = true)
@@ -55,74 +112,209 @@ public class AttendanceService {
     }
 
     @Transactional(readOnly = true)
-    public List<AttendanceRecordResponseDto> getAttendanceByStudent(String studentId) {
-        if (!studentRepository.existsById(studentId)) {
-            throw new ResourceNotFoundException("Student not found with id: " + studentId);
-        }
-        return attendanceRecordRepository.findByStudent_Id(studentId).stream()
-                .map(this::mapToAttendanceRecordResponseDto)
-                .collect(Collectors.toList());
+    public StreamedJsonArray getAttendanceByStudent(String studentId) {
+        Student student = studentRepository.findById(studentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Student not found with id: " + studentId));
+        return rawRowStreamer.attendanceRecords(new Document("student.$id", ListQuerySpec.objectId(studentId)), student, null);
     }
 
+    // The signed-in student's own records; the name columns come from the batched reference lookup
     @Transactional(readOnly = true)
-    public List<AttendanceRecordResponseDto> getAttendanceByStudentAndCourse(String studentId, String courseId) {
-        if (!studentRepository.existsById(studentId)) {
-            throw new ResourceNotFoundException("Student not found with id: " + studentId);
-        }
-        if (!courseRepository.existsById(courseId)) {
-            throw new ResourceNotFoundException("Course not found with id: " + courseId);
-        }
-        return attendanceRecordRepository.findByStudent_IdAndCourse_Id(studentId, courseId).stream()
-                .map(this::mapToAttendanceRecordResponseDto)
-                .collect(Collectors.toList());
+    public StreamedJsonArray getOwnAttendance(String studentId) {
+        return rawRowStreamer.attendanceRecords(new Document("student.$id", ListQuerySpec.objectId(studentId)), null, null);
     }
 
     @Transactional(readOnly = true)
-    public List<AttendanceRecordResponseDto> getAttendanceByCourseAndDate(String courseId, LocalDate date) {
-        if (!courseRepository.existsById(courseId)) {
-            throw new ResourceNotFoundException("Course not found with id: " + courseId);
-        }
-        return attendanceRecordRepository.findByCourse_IdAndAttendanceDate(courseId, date).stream()
-                .map(this::mapToAttendanceRecordResponseDto)
-                .collect(Collectors.toList());
+    public StreamedJsonArray getAttendanceByStudentAndCourse(String studentId, String courseId) {
+        Student student = studentRepository.findById(studentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Student not found with id: " + studentId));
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + courseId));
+        return rawRowStreamer.attendanceRecords(new Document("student.$id", ListQuerySpec.objectId(studentId))
+                .append("course.$id", ListQuerySpec.objectId(courseId)), student, course);
+    }
+
+    // Hit by many clients at once when a class ends
+    @Coalesce
+    @Transactional(readOnly = true)
+    public StreamedJsonArray getAttendanceByCourseAndDate(String courseId, LocalDate date) {
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + courseId));
+        // Converted the way derived queries convert it, so the filter matches the stored value
+        Object storedDate = mongoTemplate.getConverter().convertToMongoType(date);
+        return rawRowStreamer.attendanceRecords(new Document("course.$id", ListQuerySpec.objectId(courseId))
+                .append("attendanceDate", storedDate), null, course)
+                .prerender(objectMapper);
     }
-    
+
     @Transactional(readOnly = true)
-    public List<AttendanceRecordResponseDto> getAttendanceByCourse(String courseId) {
-        if (!courseRepository.existsById(courseId)) {
-            throw new ResourceNotFoundException("Course not found with id: " + courseId);
-        }
-        return attendanceRecordRepository.findByCourse_Id(courseId).stream()
-                .map(this::mapToAttendanceRecordResponseDto)
-                .collect(Collectors.toList());
+    public StreamedJsonArray getAttendanceByCourse(String courseId) {
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + courseId));
+        return rawRowStreamer.attendanceRecords(new Document("course.$id", ListQuerySpec.objectId(courseId)), null, course);
     }
 
     @Transactional
     public AttendanceRecordResponseDto updateAttendanceStatus(String attendanceRecordId, AttendanceRecordRequestDto requestDto) {
         AttendanceRecord attendanceRecord = attendanceRecordRepository.findById(attendanceRecordId)
                 .orElseThrow(() -> new ResourceNotFoundException("Attendance record not found with id: " + attendanceRecordId));
+        AttendanceRecordResponseDto before = mapToAttendanceRecordResponseDto(attendanceRecord);
 
         if (requestDto.getStatus() != null) {
             attendanceRecord.setStatus(requestDto.getStatus());
         }
 
         AttendanceRecord updatedRecord = attendanceRecordRepository.save(attendanceRecord);
-        return mapToAttendanceRecordResponseDto(updatedRecord);
+        AttendanceRecordResponseDto responseDto = mapToAttendanceRecordResponseDto(updatedRecord);
+        auditTrail.record(AuditAction.UPDATE, "AttendanceRecord", attendanceRecordId, before, responseDto);
+        return responseDto;
     }
 
     @Transactional
     public void deleteAttendanceRecord(String id) {
-        if (!attendanceRecordRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Attendance record not found with id: " + id);
-        }
+        AttendanceRecord attendanceRecord = attendanceRecordRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Attendance record not found with id: " + id));
         attendanceRecordRepository.deleteById(id);
+        auditTrail.record(AuditAction.DELETE, "AttendanceRecord", id, mapToAttendanceRecordResponseDto(attendanceRecord), null);
+        if (attendanceRecord.getStudent() != null && attendanceRecord.getCourse() != null) {
+            atRiskAttendanceService.markDirty(attendanceRecord.getStudent().getId(), attendanceRecord.getCourse().getId());
+        }
+        if (attendanceRecord.getCourse() != null) {
+            attendanceAnalyticsService.markDirty(attendanceRecord.getCourse().getId(), attendanceRecord.getAttendanceDate());
+        }
+    }
+
+    // Sets the status of a session's records (e.g. everyone EXCUSED after a fire drill) with an updateMany per current
+    // status. The matching records are read once, projected, for the audit entries; lastModifiedAt is set by hand since
+    // the write bypasses the entity, so the at-risk detector picks the records up on its next run.
+    @Transactional
+    public BulkOperationResultDto bulkUpdateAttendanceStatus(BulkAttendanceRequestDto requestDto, boolean preview) {
+        if (requestDto.getStatus() == null) {
+            throw new IllegalArgumentException("Attendance status cannot be null");
+        }
+        List<Document> matched = findForBulk(requestDto);
+        String newStatus = requestDto.getStatus().name();
+        List<Document> toChange = matched.stream()
+                .filter(record -> !newStatus.equals(record.getString("status")))
+                .collect(Collectors.toList());
+
+        BulkOperationResultDto result = bulkResult(preview, matched.size());
+        if (preview || toChange.isEmpty()) {
+            result.setAffectedCount(toChange.size());
+            return result;
+        }
+        // One updateMulti per status read above, each re-checking it, so a record changed in the meantime is neither
+        // overwritten nor audited with a stale before value
+        Map<String, List<Object>> idsByStatus = new LinkedHashMap<>();
+        Map<Object, String> statusById = new LinkedHashMap<>();
+        for (Document record : toChange) {
+            idsByStatus.computeIfAbsent(record.getString("status"), status -> new ArrayList<>()).add(record.get("_id"));
+            statusById.put(record.get("_id"), record.getString("status"));
+        }
+        Instant modifiedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        long modified = 0;
+        for (Map.Entry<String, List<Object>> group : idsByStatus.entrySet()) {
+            UpdateResult update = mongoTemplate.updateMulti(
+                    new Query(Criteria.where("_id").in(group.getValue()).and("status").is(group.getKey())),
+                    new Update().set("status", requestDto.getStatus()).set("lastModifiedAt", modifiedAt),
+                    AttendanceRecord.class);
+            modified += update.getModifiedCount();
+        }
+        result.setAffectedCount(modified);
+
+        // Only the records this call wrote carry its lastModifiedAt
+        Query written = new Query(Criteria.where("_id").in(statusById.keySet())
+                .and("status").is(requestDto.getStatus())
+                .and("lastModifiedAt").is(modifiedAt));
+        written.fields().include("_id");
+        for (Document record : mongoTemplate.find(written, Document.class, mongoTemplate.getCollectionName(AttendanceRecord.class))) {
+            Object id = record.get("_id");
+            auditTrail.record(AuditAction.UPDATE, "AttendanceRecord", id.toString(),
+                    Map.of("status", statusById.get(id)), Map.of("status", newStatus));
+        }
+        return result;
+    }
+
+    // Deletes a session's records with one deleteMany; the affected tallies are marked dirty together
+    @Transactional
+    public BulkOperationResultDto bulkDeleteAttendance(BulkAttendanceRequestDto requestDto, boolean preview) {
+        List<Document> matched = findForBulk(requestDto);
+        BulkOperationResultDto result = bulkResult(preview, matched.size());
+        if (preview || matched.isEmpty()) {
+            result.setAffectedCount(matched.size());
+            return result;
+        }
+        DeleteResult delete = mongoTemplate.remove(new Query(Criteria.where("_id").in(ids(matched))), AttendanceRecord.class);
+        result.setAffectedCount(delete.getDeletedCount());
+        Set<String> studentIds = new LinkedHashSet<>();
+        for (Document record : matched) {
+            String studentId = ListQuerySpec.refId(record.get("student"));
+            Map<String, Object> before = new LinkedHashMap<>();
+            before.put("studentId", studentId);
+            before.put("courseId", requestDto.getCourseId());
+            before.put("attendanceDate", requestDto.getAttendanceDate());
+            before.put("status", record.getString("status"));
+            auditTrail.record(AuditAction.DELETE, "AttendanceRecord", record.get("_id").toString(), before, null);
+            if (studentId != null) {
+                studentIds.add(studentId);
+            }
+        }
+        atRiskAttendanceService.markDirty(requestDto.getCourseId(), studentIds);
+        attendanceAnalyticsService.markDirty(requestDto.getCourseId(), requestDto.getAttendanceDate());
+        return result;
+    }
+
+    // One read of the session's records (served by course_id_date_idx), projected to what the audit entries need
+    private List<Document> findForBulk(BulkAttendanceRequestDto requestDto) {
+        if (!courseRepository.existsById(requestDto.getCourseId())) {
+            throw new ResourceNotFoundException("Course not found with id: " + requestDto.getCourseId());
+        }
+        Document filter = new Document("course.$id", ListQuerySpec.objectId(requestDto.getCourseId()))
+                .append("attendanceDate", mongoTemplate.getConverter().convertToMongoType(requestDto.getAttendanceDate()));
+        if (requestDto.getMatchStatus() != null) {
+            filter.append("status", requestDto.getMatchStatus().name());
+        }
+        if (requestDto.getStudentIds() != null && !requestDto.getStudentIds().isEmpty()) {
+            filter.append("student.$id", new Document("$in", requestDto.getStudentIds().stream()
+                    .map(ListQuerySpec::objectId)
+                    .collect(Collectors.toList())));
+        }
+        List<Document> matched = new ArrayList<>();
+        mongoTemplate.getCollection("attendance_records")
+                .find(filter)
+                .projection(new Document("student", 1).append("status", 1))
+                .limit(maxBulkRecords + 1)
+                .forEach(matched::add);
+        if (matched.size() > maxBulkRecords) {
+            throw new IllegalArgumentException("The filter matches more than " + maxBulkRecords + " attendance records; narrow it down.");
+        }
+        return matched;
+    }
+
+    private static BulkOperationResultDto bulkResult(boolean preview, long matchedCount) {
+        BulkOperationResultDto result = new BulkOperationResultDto();
+        result.setPreview(preview);
+        result.setMatchedCount(matchedCount);
+        return result;
+    }
+
+    private static List<Object> ids(List<Document> records) {
+        return records.stream().map(record -> record.get("_id")).collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public StreamedJsonArray getAllAttendanceRecords() {
+        return rawRowStreamer.attendanceRecords(new Document(), null, null);
     }
 
+    // Backs GET /api/attendance?fields=&filter=&sort=
     @Transactional(readOnly = true)
-    public List<AttendanceRecordResponseDto> getAllAttendanceRecords() {
-        return attendanceRecordRepository.findAll().stream()
+    public List<?> queryAttendanceRecords(String fields, String filter, String sort) {
+        ListQuery listQuery = LIST_QUERY_SPEC.parse(fields, filter, sort);
+        List<AttendanceRecordResponseDto> records = mongoTemplate.find(listQuery.query(), AttendanceRecord.class).stream()
                 .map(this::mapToAttendanceRecordResponseDto)
                 .collect(Collectors.toList());
+        return listQuery.shape(records, objectMapper);
     }
 
     private AttendanceRecordResponseDto mapToAttendanceRecordResponseDto(AttendanceRecord record) {
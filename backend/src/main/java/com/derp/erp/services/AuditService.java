@@ -0,0 +1,72 @@
+package com.derp.erp.services;
+
+import com.derp.erp.dtos.AuditEntryResponseDto;
+import com.derp.erp.models.AuditEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Reads audit_log. Entries become visible once the write-behind buffer has been flushed (see AuditTrail).
+@Service
+@RequiredArgsConstructor
+public class AuditService {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final MongoTemplate mongoTemplate;
+
+    public List<AuditEntryResponseDto> getEntries(String entityType, String entityId, String principal,
+                                                  Instant from, Instant to, int limit) {
+        if (entityId != null && entityType == null) {
+            throw new IllegalArgumentException("entityId requires entityType.");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT + ".");
+        }
+        Criteria criteria = new Criteria();
+        if (entityType != null) {
+            criteria.and("entityType").is(entityType);
+        }
+        if (entityId != null) {
+            criteria.and("entityId").is(entityId);
+        }
+        if (principal != null) {
+            criteria.and("principal").is(principal);
+        }
+        if (from != null || to != null) {
+            Criteria timestamp = criteria.and("timestamp");
+            if (from != null) {
+                timestamp.gte(from);
+            }
+            if (to != null) {
+                timestamp.lt(to);
+            }
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "timestamp"))
+                .limit(limit);
+        return mongoTemplate.find(query, AuditEntry.class).stream()
+                .map(this::mapToAuditEntryResponseDto)
+                .collect(Collectors.toList());
+    }
+
+    private AuditEntryResponseDto mapToAuditEntryResponseDto(AuditEntry entry) {
+        AuditEntryResponseDto dto = new AuditEntryResponseDto();
+        dto.setId(entry.getId());
+        dto.setTimestamp(entry.getTimestamp());
+        dto.setPrincipal(entry.getPrincipal());
+        dto.setAction(entry.getAction());
+        dto.setEntityType(entry.getEntityType());
+        dto.setEntityId(entry.getEntityId());
+        dto.setBefore(entry.getBefore());
+        dto.setAfter(entry.getAfter());
+        return dto;
+    }
+}
@@ -0,0 +1,269 @@
+package com.derp.erp.services;
+
+import com.derp.erp.dtos.CascadeJobResponseDto;
+import com.derp.erp.exceptions.ResourceNotFoundException;
+import com.derp.erp.models.CascadeJob;
+import com.derp.erp.models.CascadeJobStatus;
+import com.derp.erp.models.CascadeTarget;
+import com.derp.erp.query.ListQuerySpec;
+import com.derp.erp.repositories.CascadeJobRepository;
+import com.mongodb.client.result.DeleteResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CascadeDeleteService {
+
+    private static final Set<CascadeJobStatus> OPEN_STATUSES = Set.of(CascadeJobStatus.PENDING, CascadeJobStatus.RUNNING);
+
+    private static final Map<CascadeTarget, String> PARENT_COLLECTIONS = Map.of(
+            CascadeTarget.STUDENT, "students",
+            CascadeTarget.COURSE, "courses");
+
+    // Collections referencing the deleted parent, and the path holding the parent's id (a @DBRef's $id or a plain id field).
+    private static final Map<CascadeTarget, List<DependentCollection>> DEPENDENTS = Map.of(
+            CascadeTarget.STUDENT, List.of(
+                    new DependentCollection("grades", "student.$id"),
+                    new DependentCollection("attendance_records", "student.$id"),
+                    new DependentCollection("attendance_tallies", "studentId"),
+                    new DependentCollection("enrollments", "studentId"),
+                    new DependentCollection("student_standings", "_id")),
+            CascadeTarget.COURSE, List.of(
+                    new DependentCollection("grades", "course.$id"),
+                    new DependentCollection("attendance_records", "course.$id"),
+                    new DependentCollection("attendance_tallies", "courseId"),
+                    new DependentCollection("attendance_rollups", "courseId"),
+                    new DependentCollection("enrollments", "courseId"),
+                    new DependentCollection("scheduled_classes", "course.$id")));
+
+    private static final int SWEEP_CHUNK_SIZE = 1000;
+
+    private final CascadeJobRepository cascadeJobRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AttendanceAnalyticsService attendanceAnalyticsService;
+
+    @Value("${derp.cascade.batch-size:500}")
+    private int batchSize;
+
+    @Value("${derp.cascade.throttle-ms:200}")
+    private long throttleMillis;
+
+    @Value("${derp.cascade.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${derp.cascade.stale-after-ms:300000}")
+    private long staleAfterMillis;
+
+    @Value("${derp.cascade.archive:false}")
+    private boolean archive;
+
+    public CascadeJob enqueue(CascadeTarget targetType, String targetId) {
+        if (cascadeJobRepository.existsByTargetTypeAndTargetIdAndStatusIn(targetType, targetId, OPEN_STATUSES)) {
+            return null;
+        }
+        return cascadeJobRepository.save(new CascadeJob(targetType, targetId));
+    }
+
+    public List<CascadeJobResponseDto> getJobs(CascadeJobStatus status) {
+        List<CascadeJob> jobs = status == null
+                ? cascadeJobRepository.findAllByOrderByCreatedAtDesc()
+                : cascadeJobRepository.findByStatusOrderByCreatedAtDesc(status);
+        return jobs.stream()
+                .map(this::mapToCascadeJobResponseDto)
+                .collect(Collectors.toList());
+    }
+
+    public CascadeJobResponseDto getJobById(String id) {
+        CascadeJob job = cascadeJobRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Cascade job not found with id: " + id));
+        return mapToCascadeJobResponseDto(job);
+    }
+
+    @Scheduled(initialDelayString = "${derp.cascade.initial-delay-ms:15000}", fixedDelayString = "${derp.cascade.poll-interval-ms:5000}")
+    public void processPendingJobs() {
+        // A failed job goes back to PENDING; stop here so it is retried on the next poll rather than in a tight loop.
+        CascadeJob job = claimNextJob();
+        while (job != null && runJob(job)) {
+            job = claimNextJob();
+        }
+    }
+
+    // One-off cleanup for dependents whose parent was deleted before cascading existed.
+    public List<CascadeJobResponseDto> sweepOrphans() {
+        List<CascadeJob> enqueued = new ArrayList<>();
+        for (CascadeTarget target : CascadeTarget.values()) {
+            Set<Object> referencedIds = new HashSet<>();
+            for (DependentCollection dependent : DEPENDENTS.get(target)) {
+                mongoTemplate.getCollection(dependent.collection())
+                        .distinct(dependent.idField(), Object.class)
+                        .into(referencedIds);
+            }
+            for (Object orphanId : findMissingParents(PARENT_COLLECTIONS.get(target), referencedIds)) {
+                CascadeJob job = enqueue(target, orphanId.toString());
+                if (job != null) {
+                    enqueued.add(job);
+                }
+            }
+        }
+        log.info("Orphan sweep enqueued {} cascade job(s)", enqueued.size());
+        return enqueued.stream()
+                .map(this::mapToCascadeJobResponseDto)
+                .collect(Collectors.toList());
+    }
+
+    private Set<Object> findMissingParents(String parentCollection, Set<Object> referencedIds) {
+        Set<Object> missing = new HashSet<>();
+        List<Object> chunk = new ArrayList<>(SWEEP_CHUNK_SIZE);
+        for (Object id : referencedIds) {
+            chunk.add(id);
+            if (chunk.size() == SWEEP_CHUNK_SIZE) {
+                missing.addAll(findMissingInChunk(parentCollection, chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            missing.addAll(findMissingInChunk(parentCollection, chunk));
+        }
+        return missing;
+    }
+
+    private Set<Object> findMissingInChunk(String parentCollection, List<Object> ids) {
+        Set<Object> missing = new HashSet<>(ids);
+        mongoTemplate.getCollection(parentCollection)
+                .find(new Document("_id", new Document("$in", ids)))
+                .projection(new Document("_id", 1))
+                .forEach(existing -> missing.remove(existing.get("_id")));
+        return missing;
+    }
+
+    // Atomically claims a pending job, or a running one whose worker stopped heart-beating (e.g. after a restart).
+    private CascadeJob claimNextJob() {
+        Instant now = Instant.now();
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("status").is(CascadeJobStatus.PENDING),
+                Criteria.where("status").is(CascadeJobStatus.RUNNING)
+                        .and("updatedAt").lt(now.minus(Duration.ofMillis(staleAfterMillis)))))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt"));
+        Update update = new Update()
+                .set("status", CascadeJobStatus.RUNNING)
+                .set("updatedAt", now)
+                .inc("attempts", 1);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), CascadeJob.class);
+    }
+
+    private boolean runJob(CascadeJob job) {
+        boolean completed = false;
+        try {
+            for (DependentCollection dependent : DEPENDENTS.get(job.getTargetType())) {
+                removeDependents(job, dependent);
+            }
+            job.setStatus(CascadeJobStatus.COMPLETED);
+            job.setCompletedAt(Instant.now());
+            job.setLastError(null);
+            completed = true;
+            log.info("Cascade job {} for {} {} completed: {}", job.getId(), job.getTargetType(), job.getTargetId(), job.getRemovedCounts());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.setStatus(CascadeJobStatus.PENDING);
+        } catch (RuntimeException e) {
+            log.warn("Cascade job {} failed on attempt {}", job.getId(), job.getAttempts(), e);
+            job.setLastError(e.getMessage());
+            job.setStatus(job.getAttempts() >= maxAttempts ? CascadeJobStatus.FAILED : CascadeJobStatus.PENDING);
+        }
+        job.setUpdatedAt(Instant.now());
+        cascadeJobRepository.save(job);
+        return completed;
+    }
+
+    private void removeDependents(CascadeJob job, DependentCollection dependent) throws InterruptedException {
+        Query batchQuery = new Query(Criteria.where(dependent.idField()).is(ListQuerySpec.objectId(job.getTargetId())))
+                .limit(batchSize);
+        if (!archive) {
+            batchQuery.fields().include("_id");
+            if ("attendance_records".equals(dependent.collection())) {
+                batchQuery.fields().include("course").include("attendanceDate");
+            }
+        }
+        while (true) {
+            List<Document> batch = mongoTemplate.find(batchQuery, Document.class, dependent.collection());
+            if (batch.isEmpty()) {
+                return;
+            }
+            if (archive) {
+                archiveBatch(dependent.collection(), batch);
+            }
+            // Closed days keep counting deleted records until their rollups are recomputed
+            if ("attendance_records".equals(dependent.collection())) {
+                attendanceAnalyticsService.markDirty(batch);
+            }
+            List<Object> ids = batch.stream().map(document -> document.get("_id")).collect(Collectors.toList());
+            DeleteResult result = mongoTemplate.remove(new Query(Criteria.where("_id").in(ids)), dependent.collection());
+
+            // Persist progress after every batch so a restarted worker resumes and the job doubles as a heartbeat.
+            job.getRemovedCounts().merge(dependent.collection(), result.getDeletedCount(), Long::sum);
+            job.setUpdatedAt(Instant.now());
+            cascadeJobRepository.save(job);
+            if ("scheduled_classes".equals(dependent.collection()) && result.getDeletedCount() > 0) {
+                eventPublisher.publishEvent(new ScheduleChangedEvent("cascade " + job.getId()));
+            }
+
+            if (batch.size() < batchSize) {
+                return;
+            }
+            Thread.sleep(throttleMillis);
+        }
+    }
+
+    // Upserts by _id so a batch archived just before a crash is not duplicated when the job resumes.
+    private void archiveBatch(String collection, List<Document> batch) {
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection + "_archive");
+        for (Document document : batch) {
+            bulkOps.replaceOne(new Query(Criteria.where("_id").is(document.get("_id"))), document,
+                    FindAndReplaceOptions.options().upsert());
+        }
+        bulkOps.execute();
+    }
+
+    private CascadeJobResponseDto mapToCascadeJobResponseDto(CascadeJob job) {
+        CascadeJobResponseDto dto = new CascadeJobResponseDto();
+        dto.setId(job.getId());
+        dto.setTargetType(job.getTargetType());
+        dto.setTargetId(job.getTargetId());
+        dto.setStatus(job.getStatus());
+        dto.setRemovedCounts(job.getRemovedCounts());
+        dto.setAttempts(job.getAttempts());
+        dto.setLastError(job.getLastError());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setUpdatedAt(job.getUpdatedAt());
+        dto.setCompletedAt(job.getCompletedAt());
+        return dto;
+    }
+
+    private record DependentCollection(String collection, String idField) {
+    }
+}
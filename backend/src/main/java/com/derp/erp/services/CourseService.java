@@ -1,15 +1,21 @@
 package com.derp.erp.services;
 
+import com.derp.erp.config.CacheConfig;
 import com.derp.erp.dtos.CourseRequestDto;
 import com.derp.erp.dtos.CourseResponseDto;
 import com.derp.erp.exceptions.ResourceNotFoundException;
+import com.derp.erp.models.CascadeTarget;
 import com.derp.erp.models.Course;
 import com.derp.erp.repositories.CourseRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,6 +23,9 @@ import java.util.stream.Collectors;
 public class CourseService {
 
     private final CourseRepository courseRepository;
+    private final CascadeDeleteService cascadeDeleteService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StudentStandingService studentStandingService;
 
     @Transactional
     public CourseResponseDto createCourse(CourseRequestDto courseRequestDto) {
@@ -29,6 +38,7 @@ public class CourseService {
         course.setCourseName(courseRequestDto.getCourseName());
         course.setDescription(courseRequestDto.getDescription());
         course.setCredits(courseRequestDto.getCredits());
+        course.setDepartment(courseRequestDto.getDepartment());
 
         Course savedCourse = courseRepository.save(course);
         return mapToCourseResponseDto(savedCourse);
@@ -49,6 +59,7 @@ public class CourseService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.ROSTER, key = "#id") // Roster entries carry the course code and name
     public CourseResponseDto updateCourse(String id, CourseRequestDto courseRequestDto) {
         Course course = courseRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + id));
@@ -57,21 +68,34 @@ public class CourseService {
             throw new IllegalArgumentException("Error: New Course Code is already in use!");
         }
 
+        boolean creditsChanged = !Objects.equals(course.getCredits(), courseRequestDto.getCredits());
         course.setCourseCode(courseRequestDto.getCourseCode());
         course.setCourseName(courseRequestDto.getCourseName());
         course.setDescription(courseRequestDto.getDescription());
         course.setCredits(courseRequestDto.getCredits());
+        course.setDepartment(courseRequestDto.getDepartment());
 
         Course updatedCourse = courseRepository.save(course);
+        if (creditsChanged) {
+            studentStandingService.updateCourseCredits(id, updatedCourse.getCredits());
+        }
+        // Scheduled class views show the course code and name
+        eventPublisher.publishEvent(new ScheduleChangedEvent("course updated " + id));
         return mapToCourseResponseDto(updatedCourse);
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ROSTER, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.GRADE_RANKING, allEntries = true)})
     public void deleteCourse(String id) {
         if (!courseRepository.existsById(id)) {
             throw new ResourceNotFoundException("Course not found with id: " + id);
         }
         courseRepository.deleteById(id);
+        studentStandingService.removeCourse(id);
+        // Grades, attendance and other dependents are removed in the background
+        cascadeDeleteService.enqueue(CascadeTarget.COURSE, id);
     }
 
     private CourseResponseDto mapToCourseResponseDto(Course course) {
@@ -81,6 +105,7 @@ public class CourseService {
         dto.setCourseName(course.getCourseName());
         dto.setDescription(course.getDescription());
         dto.setCredits(course.getCredits());
+        dto.setDepartment(course.getDepartment());
         return dto;
     }
 } 
\ No newline at end of file
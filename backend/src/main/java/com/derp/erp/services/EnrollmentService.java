@@ -0,0 +1,210 @@
+package com.derp.erp.services;
+
+import com.derp.erp.config.CacheConfig;
+import com.derp.erp.dtos.BulkEnrollmentRequestDto;
+import com.derp.erp.dtos.BulkEnrollmentResultDto;
+import com.derp.erp.dtos.EnrollmentRequestDto;
+import com.derp.erp.dtos.EnrollmentResponseDto;
+import com.derp.erp.exceptions.ResourceNotFoundException;
+import com.derp.erp.models.Course;
+import com.derp.erp.models.Enrollment;
+import com.derp.erp.models.Student;
+import com.derp.erp.repositories.CourseRepository;
+import com.derp.erp.repositories.EnrollmentRepository;
+import com.derp.erp.repositories.StudentRepository;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class EnrollmentService {
+
+    private static final Comparator<EnrollmentResponseDto> BY_STUDENT_NAME = Comparator
+            .comparing(EnrollmentResponseDto::getStudentLastName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(EnrollmentResponseDto::getStudentFirstName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
+    private final EnrollmentRepository enrollmentRepository;
+    private final StudentRepository studentRepository;
+    private final CourseRepository courseRepository;
+    private final MongoTemplate mongoTemplate;
+
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.ROSTER, key = "#requestDto.courseId")
+    public EnrollmentResponseDto enroll(EnrollmentRequestDto requestDto) {
+        Student student = studentRepository.findById(requestDto.getStudentId())
+                .orElseThrow(() -> new ResourceNotFoundException("Student not found with id: " + requestDto.getStudentId()));
+        Course course = courseRepository.findById(requestDto.getCourseId())
+                .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + requestDto.getCourseId()));
+
+        if (enrollmentRepository.existsByStudentIdAndCourseId(student.getId(), course.getId())) {
+            throw new IllegalArgumentException("Student is already enrolled in this course.");
+        }
+        try {
+            Enrollment savedEnrollment = enrollmentRepository.insert(new Enrollment(student.getId(), course.getId()));
+            return mapToEnrollmentResponseDto(savedEnrollment, student, course);
+        } catch (DuplicateKeyException e) {
+            // Lost a race with a concurrent enrollment of the same student
+            throw new IllegalArgumentException("Student is already enrolled in this course.");
+        }
+    }
+
+    // Enrolls every listed student that exists and is not enrolled yet, with one lookup per collection and one insert.
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.ROSTER, key = "#requestDto.courseId")
+    public BulkEnrollmentResultDto bulkEnroll(BulkEnrollmentRequestDto requestDto) {
+        if (!courseRepository.existsById(requestDto.getCourseId())) {
+            throw new ResourceNotFoundException("Course not found with id: " + requestDto.getCourseId());
+        }
+        Set<String> requested = new LinkedHashSet<>(requestDto.getStudentIds());
+        Set<String> existing = new HashSet<>();
+        studentRepository.findAllById(requested).forEach(student -> existing.add(student.getId()));
+        Set<String> alreadyEnrolled = enrollmentRepository.findByCourseIdAndStudentIdIn(requestDto.getCourseId(), requested).stream()
+                .map(Enrollment::getStudentId)
+                .collect(Collectors.toSet());
+
+        BulkEnrollmentResultDto result = new BulkEnrollmentResultDto();
+        result.setCourseId(requestDto.getCourseId());
+        result.setEnrolled(new ArrayList<>());
+        result.setAlreadyEnrolled(new ArrayList<>());
+        result.setNotFound(new ArrayList<>());
+        List<Enrollment> toInsert = new ArrayList<>();
+        for (String studentId : requested) {
+            if (!existing.contains(studentId)) {
+                result.getNotFound().add(studentId);
+            } else if (alreadyEnrolled.contains(studentId)) {
+                result.getAlreadyEnrolled().add(studentId);
+            } else {
+                toInsert.add(new Enrollment(studentId, requestDto.getCourseId()));
+                result.getEnrolled().add(studentId);
+            }
+        }
+        if (!toInsert.isEmpty()) {
+            List<String> lostRaces = insertUnordered(toInsert);
+            result.getEnrolled().removeAll(lostRaces);
+            result.getAlreadyEnrolled().addAll(lostRaces);
+        }
+        return result;
+    }
+
+    // Unordered, so an enrollment that a concurrent request inserted first fails alone on course_student_unique_idx
+    // while the rest still go in. Returns the students of those duplicates.
+    private List<String> insertUnordered(List<Enrollment> enrollments) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Enrollment.class).insert(enrollments).execute();
+            return List.of();
+        } catch (BulkOperationException e) {
+            List<String> duplicates = new ArrayList<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+                    throw e;
+                }
+                duplicates.add(enrollments.get(error.getIndex()).getStudentId());
+            }
+            return duplicates;
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public EnrollmentResponseDto getEnrollmentById(String id) {
+        Enrollment enrollment = enrollmentRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Enrollment not found with id: " + id));
+        return mapToEnrollmentResponseDto(enrollment,
+                studentRepository.findById(enrollment.getStudentId()).orElse(null),
+                courseRepository.findById(enrollment.getCourseId()).orElse(null));
+    }
+
+    // Who is in a course, by name; served from course_student_unique_idx and cached until the roster changes
+    @Cacheable(CacheConfig.ROSTER)
+    @Transactional(readOnly = true)
+    public List<EnrollmentResponseDto> getRoster(String courseId) {
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + courseId));
+        List<Enrollment> enrollments = enrollmentRepository.findByCourseId(courseId);
+        Map<String, Student> students = new HashMap<>();
+        studentRepository.findAllById(enrollments.stream().map(Enrollment::getStudentId).collect(Collectors.toSet()))
+                .forEach(student -> students.put(student.getId(), student));
+        // Enrollments of deleted students stay until their cascade job removes them
+        return enrollments.stream()
+                .filter(enrollment -> students.containsKey(enrollment.getStudentId()))
+                .map(enrollment -> mapToEnrollmentResponseDto(enrollment, students.get(enrollment.getStudentId()), course))
+                .sorted(BY_STUDENT_NAME)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public List<EnrollmentResponseDto> getEnrollmentsByStudent(String studentId) {
+        Student student = studentRepository.findById(studentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Student not found with id: " + studentId));
+        List<Enrollment> enrollments = enrollmentRepository.findByStudentId(studentId);
+        Map<String, Course> courses = new HashMap<>();
+        courseRepository.findAllById(enrollments.stream().map(Enrollment::getCourseId).collect(Collectors.toSet()))
+                .forEach(course -> courses.put(course.getId(), course));
+        return enrollments.stream()
+                .filter(enrollment -> courses.containsKey(enrollment.getCourseId()))
+                .map(enrollment -> mapToEnrollmentResponseDto(enrollment, student, courses.get(enrollment.getCourseId())))
+                .sorted(Comparator.comparing(EnrollmentResponseDto::getCourseCode, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)))
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> getEnrolledCourseIds(String studentId) {
+        if (!studentRepository.existsById(studentId)) {
+            throw new ResourceNotFoundException("Student not found with id: " + studentId);
+        }
+        return findEnrolledCourseIds(studentId);
+    }
+
+    // Without the existence check, for the student id carried by the signed-in account
+    @Transactional(readOnly = true)
+    public List<String> findEnrolledCourseIds(String studentId) {
+        return enrollmentRepository.findByStudentId(studentId).stream()
+                .map(Enrollment::getCourseId)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.ROSTER, allEntries = true)
+    public void unenroll(String id) {
+        if (!enrollmentRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Enrollment not found with id: " + id);
+        }
+        enrollmentRepository.deleteById(id);
+    }
+
+    private EnrollmentResponseDto mapToEnrollmentResponseDto(Enrollment enrollment, Student student, Course course) {
+        EnrollmentResponseDto dto = new EnrollmentResponseDto();
+        dto.setId(enrollment.getId());
+        dto.setStudentId(enrollment.getStudentId());
+        if (student != null) {
+            dto.setStudentIdNumber(student.getStudentIdNumber());
+            dto.setStudentFirstName(student.getFirstName());
+            dto.setStudentLastName(student.getLastName());
+        }
+        dto.setCourseId(enrollment.getCourseId());
+        if (course != null) {
+            dto.setCourseCode(course.getCourseCode());
+            dto.setCourseName(course.getCourseName());
+        }
+        dto.setEnrolledAt(enrollment.getEnrolledAt());
+        return dto;
+    }
+}
@@ -0,0 +1,243 @@
+package com.derp.erp.services;
+
+import com.derp.erp.audit.AuditTrail;
+import com.derp.erp.config.CacheConfig;
+import com.derp.erp.dtos.GradeCurveRequestDto;
+import com.derp.erp.dtos.GradeCurveResultDto;
+import com.derp.erp.dtos.GradeRankDto;
+import com.derp.erp.exceptions.ResourceNotFoundException;
+import com.derp.erp.models.AuditAction;
+import com.derp.erp.models.CurveMethod;
+import com.derp.erp.models.Student;
+import com.derp.erp.query.ListQuerySpec;
+import com.derp.erp.repositories.CourseRepository;
+import com.derp.erp.repositories.StudentRepository;
+import com.mongodb.bulk.BulkWriteResult;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Rank and percentile of every numeric score (Grade.score) in one course's assessment, and curves applied to them.
+// Letter and pass/fail grades have no score and are neither ranked nor curved.
+@Service
+@RequiredArgsConstructor
+public class GradeRankingService {
+
+    private static final String COLLECTION = "grades";
+
+    private final MongoTemplate mongoTemplate;
+    private final CourseRepository courseRepository;
+    private final StudentRepository studentRepository;
+    private final StudentStandingService studentStandingService;
+    private final AuditTrail auditTrail;
+
+    @Value("${derp.bulk.max-records:5000}")
+    private int maxBulkRecords;
+
+    // Ranked in one $setWindowFields pass over the assessment (served by course_id_assessment_idx), ascending so a
+    // range window counts the scores at or below each one. Cached until the next grade write.
+    @Cacheable(cacheNames = CacheConfig.GRADE_RANKING, key = "#courseId + ':' + #assessmentType")
+    public List<GradeRankDto> getRanking(String courseId, String assessmentType) {
+        if (!courseRepository.existsById(courseId)) {
+            throw new ResourceNotFoundException("Course not found with id: " + courseId);
+        }
+        Aggregation aggregation = Aggregation.newAggregation(
+                stage("$match", assessmentFilter(courseId, assessmentType)),
+                stage("$setWindowFields", new Document("sortBy", new Document("score", 1))
+                        .append("output", new Document("scoresBelow", new Document("$rank", new Document()))
+                                .append("scoresAtOrBelow", new Document("$count", new Document())
+                                        .append("window", new Document("range", List.of("unbounded", "current"))))
+                                .append("total", new Document("$count", new Document())
+                                        .append("window", new Document("documents", List.of("unbounded", "unbounded")))))),
+                stage("$project", new Document("student", 1)
+                        .append("gradeValue", 1)
+                        .append("score", 1)
+                        .append("scoresBelow", new Document("$subtract", List.of("$scoresBelow", 1)))
+                        .append("scoresAtOrBelow", 1)
+                        .append("total", 1)),
+                stage("$sort", new Document("score", -1).append("_id", 1)));
+        List<Document> rows = mongoTemplate.aggregate(aggregation, COLLECTION, Document.class).getMappedResults();
+
+        Map<String, Student> students = new HashMap<>();
+        studentRepository.findAllById(rows.stream()
+                        .map(row -> ListQuerySpec.refId(row.get("student")))
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet()))
+                .forEach(student -> students.put(student.getId(), student));
+        List<GradeRankDto> ranking = new ArrayList<>(rows.size());
+        for (Document row : rows) {
+            // A deleted student's grades linger until its cascade runs
+            Student student = students.get(ListQuerySpec.refId(row.get("student")));
+            if (student == null) {
+                continue;
+            }
+            long below = asLong(row.get("scoresBelow"));
+            long atOrBelow = asLong(row.get("scoresAtOrBelow"));
+            long total = asLong(row.get("total"));
+            GradeRankDto dto = new GradeRankDto();
+            dto.setGradeId(row.get("_id").toString());
+            dto.setStudentId(student.getId());
+            dto.setStudentIdNumber(student.getStudentIdNumber());
+            dto.setStudentFirstName(student.getFirstName());
+            dto.setStudentLastName(student.getLastName());
+            dto.setGradeValue(row.getString("gradeValue"));
+            dto.setScore(row.get("score", Number.class).doubleValue());
+            dto.setRank(total - atOrBelow + 1);
+            dto.setPercentile(Math.round((below + (atOrBelow - below) / 2.0) * 1000.0 / total) / 10.0);
+            ranking.add(dto);
+        }
+        return ranking;
+    }
+
+    // Rewrites the assessment's numeric grades as curved percentages with one bulk write. Each update re-checks the
+    // score it was computed from, so a grade changed in the meantime is left alone. Curves compound: applying the
+    // same one twice curves twice.
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.GRADE_RANKING, allEntries = true)
+    public GradeCurveResultDto applyCurve(GradeCurveRequestDto requestDto, boolean preview) {
+        if (!courseRepository.existsById(requestDto.getCourseId())) {
+            throw new ResourceNotFoundException("Course not found with id: " + requestDto.getCourseId());
+        }
+        List<Document> grades = new ArrayList<>();
+        mongoTemplate.getCollection(COLLECTION)
+                .find(assessmentFilter(requestDto.getCourseId(), requestDto.getAssessmentType()))
+                .projection(new Document("student", 1).append("gradeValue", 1).append("score", 1))
+                .limit(maxBulkRecords + 1)
+                .forEach(grades::add);
+        if (grades.size() > maxBulkRecords) {
+            throw new IllegalArgumentException("The assessment has more than " + maxBulkRecords + " grades to curve.");
+        }
+        double top = grades.stream().mapToDouble(GradeRankingService::score).max().orElse(0);
+        validateCurve(requestDto, top, grades.isEmpty());
+
+        GradeCurveResultDto result = new GradeCurveResultDto();
+        result.setPreview(preview);
+        result.setMatchedCount(grades.size());
+        double sumBefore = 0;
+        double sumAfter = 0;
+        List<Document> changed = new ArrayList<>();
+        List<Double> curvedScores = new ArrayList<>();
+        for (Document grade : grades) {
+            double before = score(grade);
+            double after = curve(requestDto, before, top);
+            sumBefore += before;
+            sumAfter += after;
+            if (after != before) {
+                changed.add(grade);
+                curvedScores.add(after);
+            }
+        }
+        if (!grades.isEmpty()) {
+            result.setMeanBefore(Math.round(sumBefore * 10 / grades.size()) / 10.0);
+            result.setMeanAfter(Math.round(sumAfter * 10 / grades.size()) / 10.0);
+        }
+        if (preview || changed.isEmpty()) {
+            result.setAffectedCount(changed.size());
+            return result;
+        }
+
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+        for (int i = 0; i < changed.size(); i++) {
+            Document grade = changed.get(i);
+            bulkOps.updateOne(new Query(Criteria.where("_id").is(grade.get("_id")).and("score").is(grade.get("score"))),
+                    new Update().set("gradeValue", formatPercent(curvedScores.get(i))).set("score", curvedScores.get(i)));
+        }
+        BulkWriteResult write = bulkOps.execute();
+        result.setAffectedCount(write.getModifiedCount());
+
+        // A grade whose score changed in the meantime was skipped by its update; only those now holding the curved
+        // score are audited and have their standings refreshed
+        Map<Object, Object> scoresAfter = new HashMap<>();
+        mongoTemplate.getCollection(COLLECTION)
+                .find(new Document("_id", new Document("$in", changed.stream().map(grade -> grade.get("_id")).toList())))
+                .projection(new Document("score", 1))
+                .forEach(grade -> scoresAfter.put(grade.get("_id"), grade.get("score")));
+        Set<String> studentIds = new LinkedHashSet<>();
+        for (int i = 0; i < changed.size(); i++) {
+            Document grade = changed.get(i);
+            if (!(scoresAfter.get(grade.get("_id")) instanceof Number score) || score.doubleValue() != curvedScores.get(i)) {
+                continue;
+            }
+            auditTrail.record(AuditAction.UPDATE, "Grade", grade.get("_id").toString(),
+                    Map.of("gradeValue", grade.getString("gradeValue")),
+                    Map.of("gradeValue", formatPercent(curvedScores.get(i))));
+            String studentId = ListQuerySpec.refId(grade.get("student"));
+            if (studentId != null) {
+                studentIds.add(studentId);
+            }
+        }
+        studentStandingService.refreshCourse(requestDto.getCourseId(), studentIds);
+        return result;
+    }
+
+    private static void validateCurve(GradeCurveRequestDto requestDto, double top, boolean empty) {
+        double value = requestDto.getValue();
+        if (requestDto.getMethod() == CurveMethod.ADD_POINTS && !(Math.abs(value) <= 100)) {
+            throw new IllegalArgumentException("The points to add must be between -100 and 100.");
+        }
+        if (requestDto.getMethod() == CurveMethod.SCALE_TO_TOP) {
+            if (!(value > 0 && value <= 100)) {
+                throw new IllegalArgumentException("The new top score must be above 0 and at most 100.");
+            }
+            if (!empty && top <= 0) {
+                throw new IllegalArgumentException("The assessment has no positive score to scale from.");
+            }
+        }
+    }
+
+    // Rounded to the one decimal the new gradeValue shows; never below 0 and never raised past 100
+    private static double curve(GradeCurveRequestDto requestDto, double score, double top) {
+        double curved = requestDto.getMethod() == CurveMethod.ADD_POINTS
+                ? score + requestDto.getValue()
+                : score * requestDto.getValue() / top;
+        curved = Math.max(0, curved);
+        if (curved > 100) {
+            curved = Math.max(100, score);
+        }
+        return BigDecimal.valueOf(curved).setScale(1, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    private static String formatPercent(double score) {
+        return BigDecimal.valueOf(score).stripTrailingZeros().toPlainString() + "%";
+    }
+
+    private static Document assessmentFilter(String courseId, String assessmentType) {
+        return new Document("course.$id", ListQuerySpec.objectId(courseId))
+                .append("assessmentType", assessmentType)
+                .append("score", new Document("$type", "number"));
+    }
+
+    private static double score(Document grade) {
+        return grade.get("score", Number.class).doubleValue();
+    }
+
+    private static AggregationOperation stage(String operator, Document body) {
+        return context -> new Document(operator, body);
+    }
+
+    private static long asLong(Object value) {
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+}
@@ -1,30 +1,85 @@
 package com.derp.erp.services;
 
+import com.derp.erp.audit.AuditTrail;
+import com.derp.erp.coalescing.Coalesce;
+import com.derp.erp.config.CacheConfig;
+import com.derp.erp.dtos.BulkGradeDeleteRequestDto;
+import com.derp.erp.dtos.BulkOperationResultDto;
 import com.derp.erp.dtos.GradeRequestDto;
 import com.derp.erp.dtos.GradeResponseDto;
 import com.derp.erp.exceptions.ResourceNotFoundException;
+import com.derp.erp.models.AuditAction;
 import com.derp.erp.models.Course;
 import com.derp.erp.models.Grade;
+import com.derp.erp.models.GradePoints;
 import com.derp.erp.models.Student;
+import com.derp.erp.query.ListQuery;
+import com.derp.erp.query.ListQuerySpec;
 import com.derp.erp.repositories.CourseRepository;
 import com.derp.erp.repositories.GradeRepository;
 import com.derp.erp.repositories.StudentRepository;
+import com.derp.erp.streaming.RawRowStreamer;
+import com.derp.erp.streaming.StreamedJsonArray;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.result.DeleteResult;
 import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class GradeService {
 
+    // Anchors match the leading fields of student_id_course_id_assessment_idx and course_id_assessment_idx
+    private static final ListQuerySpec LIST_QUERY_SPEC = ListQuerySpec.builder()
+            .anchor("studentId", "student.$id", ListQuerySpec::objectId)
+            .anchor("courseId", "course.$id", ListQuerySpec::objectId)
+            .filter("assessmentType", "assessmentType", value -> value)
+            .filter("assessmentDate", "assessmentDate", LocalDate::parse)
+            .sort("assessmentType", "assessmentType")
+            .sort("assessmentDate", "assessmentDate")
+            .select("id", "_id")
+            .select("studentId", "student")
+            .select("studentFirstName", "student")
+            .select("studentLastName", "student")
+            .select("courseId", "course")
+            .select("courseCode", "course")
+            .select("courseName", "course")
+            .select("assessmentType", "assessmentType")
+            .select("gradeValue", "gradeValue")
+            .select("assessmentDate", "assessmentDate")
+            .select("comments", "comments")
+            .build();
+
     private final GradeRepository gradeRepository;
     private final StudentRepository studentRepository;
     private final CourseRepository courseRepository;
+    private final AuditTrail auditTrail;
+    private final StudentStandingService studentStandingService;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final RawRowStreamer rawRowStreamer;
+
+    @Value("${derp.bulk.max-records:5000}")
+    private int maxBulkRecords;
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.GRADE_RANKING, allEntries = true)
     public GradeResponseDto createGrade(GradeRequestDto requestDto) {
         Student student = studentRepository.findById(requestDto.getStudentId())
                 .orElseThrow(() -> new ResourceNotFoundException("Student not found with id: " + requestDto.getStudentId()));
@@ -42,11 +97,15 @@ public class GradeService {
         grade.setCourse(course);
         grade.setAssessmentType(requestDto.getAssessmentType());
         grade.setGradeValue(requestDto.getGradeValue());
+        grade.setScore(GradePoints.percent(requestDto.getGradeValue()).orElse(null));
         grade.setAssessmentDate(requestDto.getAssessmentDate());
         grade.setComments(requestDto.getComments());
 
         Grade savedGrade = gradeRepository.save(grade);
-        return mapToGradeResponseDto(savedGrade);
+        GradeResponseDto responseDto = mapToGradeResponseDto(savedGrade);
+        auditTrail.record(AuditAction.CREATE, "Grade", savedGrade.getId(), null, responseDto);
+        studentStandingService.refresh(student.getId(), course.getId());
+        return responseDto;
     }
 
     @Transactional(readOnly = true)
@@ -57,49 +116,54 @@ public class GradeService {
     }
 
     @Transactional(readOnly = true)
-    public List<GradeResponseDto> getAllGrades() {
-        return gradeRepository.findAll().stream()
-                .map(this::mapToGradeResponseDto)
-                .collect(Collectors.toList());
+    public StreamedJsonArray getAllGrades() {
+        return rawRowStreamer.grades(new Document(), null, null);
     }
 
     @Transactional(readOnly = true)
-    public List<GradeResponseDto> getGradesByStudentId(String studentId) {
-        if (!studentRepository.existsById(studentId)) {
-            throw new ResourceNotFoundException("Student not found with id: " + studentId);
-        }
-        return gradeRepository.findByStudent_Id(studentId).stream()
-                .map(this::mapToGradeResponseDto)
-                .collect(Collectors.toList());
+    public StreamedJsonArray getGradesByStudentId(String studentId) {
+        Student student = studentRepository.findById(studentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Student not found with id: " + studentId));
+        return getGradesByStudent(student);
     }
 
     @Transactional(readOnly = true)
-    public List<GradeResponseDto> getGradesByStudentIdAndCourseId(String studentId, String courseId) {
-        if (!studentRepository.existsById(studentId)) {
-            throw new ResourceNotFoundException("Student not found with id: " + studentId);
-        }
-        if (!courseRepository.existsById(courseId)) {
-            throw new ResourceNotFoundException("Course not found with id: " + courseId);
-        }
-        return gradeRepository.findByStudent_IdAndCourse_Id(studentId, courseId).stream()
-                .map(this::mapToGradeResponseDto)
-                .collect(Collectors.toList());
+    public StreamedJsonArray getGradesByStudent(Student student) {
+        return rawRowStreamer.grades(new Document("student.$id", ListQuerySpec.objectId(student.getId())), student, null);
     }
 
+    // The signed-in student's own grades; the name columns come from the batched reference lookup
     @Transactional(readOnly = true)
-    public List<GradeResponseDto> getGradesByCourseId(String courseId) {
-        if (!courseRepository.existsById(courseId)) {
-            throw new ResourceNotFoundException("Course not found with id: " + courseId);
-        }
-        return gradeRepository.findByCourse_Id(courseId).stream()
-                .map(this::mapToGradeResponseDto)
-                .collect(Collectors.toList());
+    public StreamedJsonArray getOwnGrades(String studentId) {
+        return rawRowStreamer.grades(new Document("student.$id", ListQuerySpec.objectId(studentId)), null, null);
+    }
+
+    @Transactional(readOnly = true)
+    public StreamedJsonArray getGradesByStudentIdAndCourseId(String studentId, String courseId) {
+        Student student = studentRepository.findById(studentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Student not found with id: " + studentId));
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + courseId));
+        return rawRowStreamer.grades(new Document("student.$id", ListQuerySpec.objectId(studentId))
+                .append("course.$id", ListQuerySpec.objectId(courseId)), student, course);
+    }
+
+    // Hit by many clients at once when a class ends
+    @Coalesce
+    @Transactional(readOnly = true)
+    public StreamedJsonArray getGradesByCourseId(String courseId) {
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + courseId));
+        return rawRowStreamer.grades(new Document("course.$id", ListQuerySpec.objectId(courseId)), null, course)
+                .prerender(objectMapper);
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.GRADE_RANKING, allEntries = true)
     public GradeResponseDto updateGrade(String id, GradeRequestDto requestDto) {
         Grade grade = gradeRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Grade not found with id: " + id));
+        GradeResponseDto before = mapToGradeResponseDto(grade);
 
         // Student and Course references generally shouldn't change for an existing grade record.
         // Assessment type might also be fixed once a grade is created.
@@ -107,6 +171,7 @@ public class GradeService {
 
         if (requestDto.getGradeValue() != null) {
             grade.setGradeValue(requestDto.getGradeValue());
+            grade.setScore(GradePoints.percent(requestDto.getGradeValue()).orElse(null));
         }
         if (requestDto.getAssessmentDate() != null) {
             grade.setAssessmentDate(requestDto.getAssessmentDate());
@@ -124,15 +189,92 @@ public class GradeService {
         // }
 
         Grade updatedGrade = gradeRepository.save(grade);
-        return mapToGradeResponseDto(updatedGrade);
+        GradeResponseDto responseDto = mapToGradeResponseDto(updatedGrade);
+        auditTrail.record(AuditAction.UPDATE, "Grade", id, before, responseDto);
+        refreshStanding(updatedGrade);
+        return responseDto;
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.GRADE_RANKING, allEntries = true)
     public void deleteGrade(String id) {
-        if (!gradeRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Grade not found with id: " + id);
-        }
+        Grade grade = gradeRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Grade not found with id: " + id));
         gradeRepository.deleteById(id);
+        auditTrail.record(AuditAction.DELETE, "Grade", id, mapToGradeResponseDto(grade), null);
+        refreshStanding(grade);
+    }
+
+    // Removes an assessment's grades in a course (e.g. a withdrawn assignment) with one deleteMany. The grades are
+    // read once, projected, for the audit entries and the standings, which are refreshed per course in one pass.
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.GRADE_RANKING, allEntries = true)
+    public BulkOperationResultDto bulkDeleteGrades(BulkGradeDeleteRequestDto requestDto, boolean preview) {
+        if (!courseRepository.existsById(requestDto.getCourseId())) {
+            throw new ResourceNotFoundException("Course not found with id: " + requestDto.getCourseId());
+        }
+        // Served by course_id_assessment_idx
+        Document filter = new Document("course.$id", ListQuerySpec.objectId(requestDto.getCourseId()))
+                .append("assessmentType", requestDto.getAssessmentType());
+        if (requestDto.getStudentIds() != null && !requestDto.getStudentIds().isEmpty()) {
+            filter.append("student.$id", new Document("$in", requestDto.getStudentIds().stream()
+                    .map(ListQuerySpec::objectId)
+                    .collect(Collectors.toList())));
+        }
+        List<Document> matched = new ArrayList<>();
+        mongoTemplate.getCollection("grades")
+                .find(filter)
+                .projection(new Document("student", 1).append("gradeValue", 1).append("assessmentDate", 1).append("comments", 1))
+                .limit(maxBulkRecords + 1)
+                .forEach(matched::add);
+        if (matched.size() > maxBulkRecords) {
+            throw new IllegalArgumentException("The filter matches more than " + maxBulkRecords + " grades; narrow it down.");
+        }
+
+        BulkOperationResultDto result = new BulkOperationResultDto();
+        result.setPreview(preview);
+        result.setMatchedCount(matched.size());
+        if (preview || matched.isEmpty()) {
+            result.setAffectedCount(matched.size());
+            return result;
+        }
+        List<Object> ids = matched.stream().map(grade -> grade.get("_id")).collect(Collectors.toList());
+        DeleteResult delete = mongoTemplate.remove(new Query(Criteria.where("_id").in(ids)), Grade.class);
+        result.setAffectedCount(delete.getDeletedCount());
+        Set<String> studentIds = new LinkedHashSet<>();
+        for (Document grade : matched) {
+            String studentId = ListQuerySpec.refId(grade.get("student"));
+            Map<String, Object> before = new LinkedHashMap<>();
+            before.put("studentId", studentId);
+            before.put("courseId", requestDto.getCourseId());
+            before.put("assessmentType", requestDto.getAssessmentType());
+            before.put("gradeValue", grade.getString("gradeValue"));
+            before.put("assessmentDate", mongoTemplate.getConverter().getConversionService()
+                    .convert(grade.getDate("assessmentDate"), LocalDate.class));
+            before.put("comments", grade.getString("comments"));
+            auditTrail.record(AuditAction.DELETE, "Grade", grade.get("_id").toString(), before, null);
+            if (studentId != null) {
+                studentIds.add(studentId);
+            }
+        }
+        studentStandingService.refreshCourse(requestDto.getCourseId(), studentIds);
+        return result;
+    }
+
+    // Backs GET /api/grades?fields=&filter=&sort=
+    @Transactional(readOnly = true)
+    public List<?> queryGrades(String fields, String filter, String sort) {
+        ListQuery listQuery = LIST_QUERY_SPEC.parse(fields, filter, sort);
+        List<GradeResponseDto> grades = mongoTemplate.find(listQuery.query(), Grade.class).stream()
+                .map(this::mapToGradeResponseDto)
+                .collect(Collectors.toList());
+        return listQuery.shape(grades, objectMapper);
+    }
+
+    private void refreshStanding(Grade grade) {
+        if (grade.getStudent() != null && grade.getCourse() != null) {
+            studentStandingService.refresh(grade.getStudent().getId(), grade.getCourse().getId());
+        }
     }
 
     private GradeResponseDto mapToGradeResponseDto(Grade grade) {
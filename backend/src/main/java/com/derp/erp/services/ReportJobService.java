@@ -0,0 +1,109 @@
+package com.derp.erp.services;
+
+import com.derp.erp.dtos.ReportJobResponseDto;
+import com.derp.erp.exceptions.ConflictException;
+import com.derp.erp.exceptions.ResourceNotFoundException;
+import com.derp.erp.models.ReportJob;
+import com.derp.erp.models.ReportJobStatus;
+import com.derp.erp.models.ReportType;
+import com.derp.erp.repositories.ReportJobRepository;
+import com.mongodb.MongoGridFSException;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSDownloadStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReportJobService {
+
+    private final ReportJobRepository reportJobRepository;
+    private final GridFSBucket reportResultsBucket;
+
+    @Value("${derp.reports.retention-days:7}")
+    private long retentionDays;
+
+    public ReportJobResponseDto enqueue(String type, String requestedBy) {
+        ReportJob job = reportJobRepository.save(new ReportJob(ReportType.fromPathName(type), requestedBy));
+        return mapToReportJobResponseDto(job);
+    }
+
+    public List<ReportJobResponseDto> getJobs(ReportJobStatus status) {
+        List<ReportJob> jobs = status == null
+                ? reportJobRepository.findAllByOrderByCreatedAtDesc()
+                : reportJobRepository.findByStatusOrderByCreatedAtDesc(status);
+        return jobs.stream()
+                .map(this::mapToReportJobResponseDto)
+                .collect(Collectors.toList());
+    }
+
+    public ReportJobResponseDto getJobById(String id) {
+        return mapToReportJobResponseDto(findJob(id));
+    }
+
+    // Caller must close the stream
+    public GridFSDownloadStream openResult(String id) {
+        ReportJob job = findJob(id);
+        if (job.getStatus() != ReportJobStatus.COMPLETED || job.getResultFileId() == null) {
+            throw new ConflictException("Report job " + id + " has no result yet (status " + job.getStatus() + ").");
+        }
+        try {
+            return reportResultsBucket.openDownloadStream(new ObjectId(job.getResultFileId()));
+        } catch (MongoGridFSException e) {
+            throw new ResourceNotFoundException("Result file for report job " + id + " no longer exists");
+        }
+    }
+
+    @Scheduled(initialDelayString = "${derp.reports.cleanup-initial-delay-ms:60000}", fixedDelayString = "${derp.reports.cleanup-interval-ms:3600000}")
+    public void purgeExpiredJobs() {
+        Instant cutoff = Instant.now().minus(Duration.ofDays(retentionDays));
+        List<ReportJob> expired = reportJobRepository.findByStatusInAndCompletedAtBefore(
+                List.of(ReportJobStatus.COMPLETED, ReportJobStatus.FAILED), cutoff);
+        for (ReportJob job : expired) {
+            if (job.getResultFileId() != null) {
+                try {
+                    reportResultsBucket.delete(new ObjectId(job.getResultFileId()));
+                } catch (MongoGridFSException e) {
+                    log.debug("Result file for report job {} was already removed", job.getId());
+                }
+            }
+            reportJobRepository.delete(job);
+        }
+        if (!expired.isEmpty()) {
+            log.info("Purged {} expired report job(s)", expired.size());
+        }
+    }
+
+    private ReportJob findJob(String id) {
+        return reportJobRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Report job not found with id: " + id));
+    }
+
+    private ReportJobResponseDto mapToReportJobResponseDto(ReportJob job) {
+        ReportJobResponseDto dto = new ReportJobResponseDto();
+        dto.setId(job.getId());
+        dto.setType(job.getType().pathName());
+        dto.setStatus(job.getStatus());
+        dto.setRequestedBy(job.getRequestedBy());
+        dto.setProcessedItems(job.getProcessedItems());
+        dto.setTotalItems(job.getTotalItems());
+        dto.setResultFileName(job.getResultFileName());
+        dto.setAttempts(job.getAttempts());
+        dto.setLastError(job.getLastError());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setUpdatedAt(job.getUpdatedAt());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setCompletedAt(job.getCompletedAt());
+        return dto;
+    }
+}
@@ -0,0 +1,118 @@
+package com.derp.erp.services;
+
+import com.derp.erp.dtos.EnrollmentResponseDto;
+import com.derp.erp.dtos.GradebookDto;
+import com.derp.erp.dtos.GradebookRowDto;
+import com.derp.erp.dtos.RollCallEntryDto;
+import com.derp.erp.dtos.ScheduledClassResponseDto;
+import com.derp.erp.models.AttendanceStatus;
+import com.derp.erp.query.ListQuerySpec;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+// Views built on the cached roster. Grades and attendance are read raw with a projection, so the course's
+// records cost one indexed query and no per-row DBRef resolution.
+@Service
+@RequiredArgsConstructor
+public class RosterService {
+
+    private final EnrollmentService enrollmentService;
+    private final ScheduledClassService scheduledClassService;
+    private final MongoTemplate mongoTemplate;
+
+    // Every enrolled student with their status for the date, including those not marked yet (served by course_id_date_idx)
+    @Transactional(readOnly = true)
+    public List<RollCallEntryDto> getRollCall(String courseId, LocalDate date) {
+        List<EnrollmentResponseDto> roster = enrollmentService.getRoster(courseId);
+        Query query = new Query(Criteria.where("course.$id").is(ListQuerySpec.objectId(courseId))
+                .and("attendanceDate").is(date));
+        query.fields().include("student").include("status");
+        Map<String, Document> recordsByStudent = new HashMap<>();
+        for (Document record : mongoTemplate.find(query, Document.class, "attendance_records")) {
+            recordsByStudent.put(ListQuerySpec.refId(record.get("student")), record);
+        }
+        return roster.stream()
+                .map(entry -> {
+                    RollCallEntryDto dto = new RollCallEntryDto();
+                    dto.setStudentId(entry.getStudentId());
+                    dto.setStudentIdNumber(entry.getStudentIdNumber());
+                    dto.setStudentFirstName(entry.getStudentFirstName());
+                    dto.setStudentLastName(entry.getStudentLastName());
+                    Document record = recordsByStudent.get(entry.getStudentId());
+                    if (record != null) {
+                        dto.setAttendanceRecordId(record.get("_id").toString());
+                        dto.setStatus(record.getString("status") != null ? AttendanceStatus.valueOf(record.getString("status")) : null);
+                    }
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+
+    // One row per enrolled student, one column per assessment type seen in the course (served by course_id_assessment_idx)
+    @Transactional(readOnly = true)
+    public GradebookDto getGradebook(String courseId) {
+        List<EnrollmentResponseDto> roster = enrollmentService.getRoster(courseId);
+        Query query = new Query(Criteria.where("course.$id").is(ListQuerySpec.objectId(courseId)));
+        query.fields().include("student").include("assessmentType").include("gradeValue");
+        TreeSet<String> assessmentTypes = new TreeSet<>();
+        Map<String, Map<String, String>> gradesByStudent = new HashMap<>();
+        for (Document grade : mongoTemplate.find(query, Document.class, "grades")) {
+            String assessmentType = grade.getString("assessmentType");
+            assessmentTypes.add(assessmentType);
+            gradesByStudent.computeIfAbsent(ListQuerySpec.refId(grade.get("student")), id -> new LinkedHashMap<>())
+                    .put(assessmentType, grade.getString("gradeValue"));
+        }
+
+        GradebookDto dto = new GradebookDto();
+        dto.setCourseId(courseId);
+        if (!roster.isEmpty()) {
+            dto.setCourseCode(roster.get(0).getCourseCode());
+            dto.setCourseName(roster.get(0).getCourseName());
+        }
+        dto.setAssessmentTypes(List.copyOf(assessmentTypes));
+        dto.setRows(roster.stream()
+                .map(entry -> {
+                    GradebookRowDto row = new GradebookRowDto();
+                    row.setStudentId(entry.getStudentId());
+                    row.setStudentIdNumber(entry.getStudentIdNumber());
+                    row.setStudentFirstName(entry.getStudentFirstName());
+                    row.setStudentLastName(entry.getStudentLastName());
+                    row.setGrades(gradesByStudent.getOrDefault(entry.getStudentId(), Map.of()));
+                    return row;
+                })
+                .collect(Collectors.toList()));
+        return dto;
+    }
+
+    // The weekly classes of every course the student is enrolled in
+    @Transactional(readOnly = true)
+    public List<ScheduledClassResponseDto> getStudentSchedule(String studentId) {
+        return getSchedule(enrollmentService.getEnrolledCourseIds(studentId));
+    }
+
+    // The signed-in student's own schedule; the account link vouches for the id, so it is not looked up again
+    @Transactional(readOnly = true)
+    public List<ScheduledClassResponseDto> getOwnSchedule(String studentId) {
+        return getSchedule(enrollmentService.findEnrolledCourseIds(studentId));
+    }
+
+    private List<ScheduledClassResponseDto> getSchedule(List<String> courseIds) {
+        if (courseIds.isEmpty()) {
+            return List.of();
+        }
+        return scheduledClassService.getScheduledClassesByCourseIds(courseIds);
+    }
+}
@@ -0,0 +1,5 @@
+package com.derp.erp.services;
+
+// Published whenever scheduled classes (or the courses they show) change, so derived views can be rebuilt.
+public record ScheduleChangedEvent(String reason) {
+}
@@ -0,0 +1,131 @@
+package com.derp.erp.services;
+
+import com.derp.erp.config.CacheConfig;
+import com.derp.erp.dtos.InstructorLoadDto;
+import com.derp.erp.dtos.RoomUtilizationDto;
+import com.derp.erp.models.MinuteOfDay;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+// Schedule reports computed inside Mongo so only one row per room/instructor crosses the wire.
+@Service
+@RequiredArgsConstructor
+public class ScheduleReportService {
+
+    private static final String COLLECTION = "scheduled_classes";
+
+    private final MongoTemplate mongoTemplate;
+
+    // The window rooms are considered bookable in; time outside it is not counted as occupied.
+    @Value("${derp.reports.teaching-day-start:08:00}")
+    private String teachingDayStart;
+
+    @Value("${derp.reports.teaching-day-end:18:00}")
+    private String teachingDayEnd;
+
+    @Value("${derp.reports.teaching-days:MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY}")
+    private String[] teachingDays;
+
+    @Cacheable(CacheConfig.ROOM_UTILIZATION)
+    public List<RoomUtilizationDto> getRoomUtilization() {
+        int windowStart = MinuteOfDay.parse(teachingDayStart);
+        int windowEnd = MinuteOfDay.parse(teachingDayEnd);
+        if (windowEnd <= windowStart) {
+            throw new IllegalArgumentException("Teaching day end must be after its start.");
+        }
+        List<String> days = teachingDayNames();
+        long availableMinutes = (long) (windowEnd - windowStart) * days.size();
+
+        // Minutes of each class that fall inside the teaching window: max(0, min(end, windowEnd) - max(start, windowStart))
+        Document clippedMinutes = new Document("$max", List.of(0, new Document("$subtract", List.of(
+                new Document("$min", List.of("$endMinute", windowEnd)),
+                new Document("$max", List.of("$startMinute", windowStart))))));
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                stage("$match", new Document("dayOfWeek", new Document("$in", days))
+                        .append("roomNumber", new Document("$ne", null))
+                        .append("startMinute", new Document("$ne", null))
+                        .append("endMinute", new Document("$ne", null))),
+                stage("$group", new Document("_id", "$roomNumber")
+                        .append("sections", new Document("$sum", 1))
+                        .append("occupiedMinutes", new Document("$sum", clippedMinutes))),
+                stage("$sort", new Document("_id", 1)));
+
+        return mongoTemplate.aggregate(aggregation, COLLECTION, Document.class).getMappedResults().stream()
+                .map(row -> {
+                    RoomUtilizationDto dto = new RoomUtilizationDto();
+                    dto.setRoomNumber(row.getString("_id"));
+                    dto.setSections(asLong(row.get("sections")));
+                    dto.setOccupiedMinutes(asLong(row.get("occupiedMinutes")));
+                    dto.setAvailableMinutes(availableMinutes);
+                    dto.setUtilizationPercent(availableMinutes == 0 ? 0
+                            : Math.round(dto.getOccupiedMinutes() * 1000.0 / availableMinutes) / 10.0);
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+
+    @Cacheable(CacheConfig.INSTRUCTOR_LOAD)
+    public List<InstructorLoadDto> getInstructorLoad() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                stage("$match", new Document("instructorName", new Document("$ne", null))
+                        .append("startMinute", new Document("$ne", null))
+                        .append("endMinute", new Document("$ne", null))),
+                stage("$group", new Document("_id", "$instructorName")
+                        .append("sections", new Document("$sum", 1))
+                        .append("contactMinutes", new Document("$sum", new Document("$subtract", List.of("$endMinute", "$startMinute"))))
+                        // Whole DBRef, since "$course.$id" is not a valid field path
+                        .append("courses", new Document("$addToSet", "$course"))),
+                stage("$project", new Document("sections", 1)
+                        .append("contactMinutes", 1)
+                        .append("courses", new Document("$size", "$courses"))),
+                stage("$sort", new Document("contactMinutes", -1).append("_id", 1)));
+
+        return mongoTemplate.aggregate(aggregation, COLLECTION, Document.class).getMappedResults().stream()
+                .map(row -> {
+                    InstructorLoadDto dto = new InstructorLoadDto();
+                    dto.setInstructorName(row.getString("_id"));
+                    dto.setSections(asLong(row.get("sections")));
+                    dto.setCourses(asLong(row.get("courses")));
+                    dto.setContactMinutes(asLong(row.get("contactMinutes")));
+                    dto.setContactHours(Math.round(dto.getContactMinutes() * 100.0 / 60) / 100.0);
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+
+    @EventListener
+    @CacheEvict(cacheNames = {CacheConfig.ROOM_UTILIZATION, CacheConfig.INSTRUCTOR_LOAD}, allEntries = true)
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        // Eviction only
+    }
+
+    private List<String> teachingDayNames() {
+        return Arrays.stream(teachingDays)
+                .map(day -> DayOfWeek.valueOf(day.trim().toUpperCase(Locale.ROOT)).name())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    private static AggregationOperation stage(String operator, Document body) {
+        return context -> new Document(operator, body);
+    }
+
+    private static long asLong(Object value) {
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+}
@@ -4,22 +4,67 @@ import com.derp.erp.dtos.ScheduledClassRequestDto;
 import com.derp.erp.dtos.ScheduledClassResponseDto;
 import com.derp.erp.exceptions.ResourceNotFoundException;
 import com.derp.erp.models.Course;
+import com.derp.erp.models.MinuteOfDay;
 import com.derp.erp.models.ScheduledClass;
+import com.derp.erp.query.ListQuery;
+import com.derp.erp.query.ListQuerySpec;
 import com.derp.erp.repositories.CourseRepository;
 import com.derp.erp.repositories.ScheduledClassRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ScheduledClassService {
 
+    // Anchors match course_id_idx, the dayOfWeek-led indexes and the instructorName index
+    private static final ListQuerySpec LIST_QUERY_SPEC = ListQuerySpec.builder()
+            .anchor("courseId", "course.$id", ListQuerySpec::objectId)
+            .anchor("dayOfWeek", "dayOfWeek", value -> DayOfWeek.valueOf(value.toUpperCase(Locale.ROOT)))
+            .anchor("instructorName", "instructorName", value -> value)
+            .filter("roomNumber", "roomNumber", value -> value)
+            .filter("startTime", "startMinute", MinuteOfDay::parse)
+            .filter("endTime", "endMinute", MinuteOfDay::parse)
+            .sort("startTime", "startMinute")
+            .sort("endTime", "endMinute")
+            .sort("roomNumber", "roomNumber")
+            .select("id", "_id")
+            .select("courseId", "course")
+            .select("courseCode", "course")
+            .select("courseName", "course")
+            .select("dayOfWeek", "dayOfWeek")
+            .select("startTime", "startMinute")
+            .select("endTime", "endMinute")
+            .select("roomNumber", "roomNumber")
+            .select("instructorName", "instructorName")
+            .build();
+
     private final ScheduledClassRepository scheduledClassRepository;
     private final CourseRepository courseRepository;
+    private final WeeklyTimetable weeklyTimetable;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+
+    // Zone the timetable is defined in; blank means the server default
+    @Value("${derp.schedule.zone-id:}")
+    private String zoneId;
 
     @Transactional
     public ScheduledClassResponseDto createScheduledClass(ScheduledClassRequestDto requestDto) {
@@ -31,13 +76,15 @@ public class ScheduledClassService {
 
         ScheduledClass scheduledClass = new ScheduledClass();
         scheduledClass.setCourse(course);
-        scheduledClass.setDayOfWeek(requestDto.getDayOfWeek());
-        scheduledClass.setStartTime(requestDto.getStartTime());
-        scheduledClass.setEndTime(requestDto.getEndTime());
+        scheduledClass.setDayOfWeek(parseDayOfWeek(requestDto.getDayOfWeek()));
+        scheduledClass.setStartMinute(MinuteOfDay.parse(requestDto.getStartTime()));
+        scheduledClass.setEndMinute(MinuteOfDay.parse(requestDto.getEndTime()));
         scheduledClass.setRoomNumber(requestDto.getRoomNumber());
         scheduledClass.setInstructorName(requestDto.getInstructorName());
+        validateTimes(scheduledClass);
 
         ScheduledClass savedScheduledClass = scheduledClassRepository.save(scheduledClass);
+        eventPublisher.publishEvent(new ScheduleChangedEvent("created " + savedScheduledClass.getId()));
         return mapToScheduledClassResponseDto(savedScheduledClass);
     }
 
@@ -57,17 +104,55 @@ public class ScheduledClassService {
 
     @Transactional(readOnly = true)
     public List<ScheduledClassResponseDto> getScheduledClassesByCourseId(String courseId) {
-        if (!courseRepository.existsById(courseId)) {
-            throw new ResourceNotFoundException("Course not found with id: " + courseId);
-        }
-        return scheduledClassRepository.findByCourse_Id(courseId).stream()
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + courseId));
+        // Read without the course DBRef, which would otherwise be resolved once per class; they all share this course
+        Query query = new Query(Criteria.where("course.$id").is(ListQuerySpec.objectId(courseId)));
+        query.fields().exclude("course");
+        List<ScheduledClass> scheduledClasses = mongoTemplate.find(query, ScheduledClass.class);
+        scheduledClasses.forEach(scheduledClass -> scheduledClass.setCourse(course));
+        return scheduledClasses.stream()
+                .map(this::mapToScheduledClassResponseDto)
+                .collect(Collectors.toList());
+    }
+
+    // Ordered by day and start time, for a student's weekly schedule
+    @Transactional(readOnly = true)
+    public List<ScheduledClassResponseDto> getScheduledClassesByCourseIds(Collection<String> courseIds) {
+        return scheduledClassRepository.findByCourse_IdIn(courseIds).stream()
+                .sorted(Comparator.comparing(ScheduledClass::getDayOfWeek, Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparing(ScheduledClass::getStartMinute, Comparator.nullsLast(Comparator.naturalOrder())))
                 .map(this::mapToScheduledClassResponseDto)
                 .collect(Collectors.toList());
     }
 
     @Transactional(readOnly = true)
     public List<ScheduledClassResponseDto> getScheduledClassesByDay(String dayOfWeek) {
-        return scheduledClassRepository.findByDayOfWeek(dayOfWeek).stream()
+        return scheduledClassRepository.findByDayOfWeek(parseDayOfWeek(dayOfWeek)).stream()
+                .map(this::mapToScheduledClassResponseDto)
+                .collect(Collectors.toList());
+    }
+
+    // Backs GET /api/timetable?fields=&filter=&sort=
+    @Transactional(readOnly = true)
+    public List<?> queryScheduledClasses(String fields, String filter, String sort) {
+        ListQuery listQuery = LIST_QUERY_SPEC.parse(fields, filter, sort);
+        List<ScheduledClassResponseDto> scheduledClasses = mongoTemplate.find(listQuery.query(), ScheduledClass.class).stream()
+                .map(this::mapToScheduledClassResponseDto)
+                .collect(Collectors.toList());
+        return listQuery.shape(scheduledClasses, objectMapper);
+    }
+
+    public List<ScheduledClassResponseDto> getScheduledClassesNow() {
+        ZoneId zone = zoneId.isBlank() ? ZoneId.systemDefault() : ZoneId.of(zoneId);
+        return getScheduledClassesAt(LocalDateTime.now(zone));
+    }
+
+    // Answered from the in-memory timetable rather than Mongo
+    public List<ScheduledClassResponseDto> getScheduledClassesAt(LocalDateTime time) {
+        int minuteOfDay = time.getHour() * 60 + time.getMinute();
+        return weeklyTimetable.classesAt(time.getDayOfWeek(), minuteOfDay).stream()
+                .sorted(Comparator.comparing(ScheduledClass::getStartMinute))
                 .map(this::mapToScheduledClassResponseDto)
                 .collect(Collectors.toList());
     }
@@ -83,13 +168,13 @@ public class ScheduledClassService {
             scheduledClass.setCourse(course);
         }
         if (requestDto.getDayOfWeek() != null) {
-            scheduledClass.setDayOfWeek(requestDto.getDayOfWeek());
+            scheduledClass.setDayOfWeek(parseDayOfWeek(requestDto.getDayOfWeek()));
         }
         if (requestDto.getStartTime() != null) {
-            scheduledClass.setStartTime(requestDto.getStartTime());
+            scheduledClass.setStartMinute(MinuteOfDay.parse(requestDto.getStartTime()));
         }
         if (requestDto.getEndTime() != null) {
-            scheduledClass.setEndTime(requestDto.getEndTime());
+            scheduledClass.setEndMinute(MinuteOfDay.parse(requestDto.getEndTime()));
         }
         if (requestDto.getRoomNumber() != null) {
             scheduledClass.setRoomNumber(requestDto.getRoomNumber());
@@ -98,7 +183,10 @@ public class ScheduledClassService {
             scheduledClass.setInstructorName(requestDto.getInstructorName());
         }
 
+        validateTimes(scheduledClass);
+
         ScheduledClass updatedScheduledClass = scheduledClassRepository.save(scheduledClass);
+        eventPublisher.publishEvent(new ScheduleChangedEvent("updated " + id));
         return mapToScheduledClassResponseDto(updatedScheduledClass);
     }
 
@@ -108,6 +196,22 @@ public class ScheduledClassService {
             throw new ResourceNotFoundException("Scheduled class not found with id: " + id);
         }
         scheduledClassRepository.deleteById(id);
+        eventPublisher.publishEvent(new ScheduleChangedEvent("deleted " + id));
+    }
+
+    private DayOfWeek parseDayOfWeek(String dayOfWeek) {
+        try {
+            return DayOfWeek.valueOf(dayOfWeek.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Invalid day of week: " + dayOfWeek);
+        }
+    }
+
+    private void validateTimes(ScheduledClass scheduledClass) {
+        if (scheduledClass.getStartMinute() != null && scheduledClass.getEndMinute() != null
+                && scheduledClass.getEndMinute() <= scheduledClass.getStartMinute()) {
+            throw new IllegalArgumentException("End time must be after start time.");
+        }
     }
 
     private ScheduledClassResponseDto mapToScheduledClassResponseDto(ScheduledClass scheduledClass) {
@@ -118,9 +222,9 @@ public class ScheduledClassService {
             dto.setCourseCode(scheduledClass.getCourse().getCourseCode());
             dto.setCourseName(scheduledClass.getCourse().getCourseName());
         }
-        dto.setDayOfWeek(scheduledClass.getDayOfWeek());
-        dto.setStartTime(scheduledClass.getStartTime());
-        dto.setEndTime(scheduledClass.getEndTime());
+        dto.setDayOfWeek(scheduledClass.getDayOfWeek() != null ? scheduledClass.getDayOfWeek().name() : null);
+        dto.setStartTime(MinuteOfDay.format(scheduledClass.getStartMinute()));
+        dto.setEndTime(MinuteOfDay.format(scheduledClass.getEndMinute()));
         dto.setRoomNumber(scheduledClass.getRoomNumber());
         dto.setInstructorName(scheduledClass.getInstructorName());
         return dto;
@@ -0,0 +1,42 @@
+package com.derp.erp.services;
+
+import com.derp.erp.models.Role;
+import com.derp.erp.models.Student;
+import com.derp.erp.models.User;
+import com.derp.erp.repositories.StudentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+// Keeps User.studentId in step with the students: a student account is the user whose username is the student's
+// email. A changed link takes effect from the account's next authenticated request.
+@Service
+@RequiredArgsConstructor
+public class StudentAccountService {
+
+    private final MongoTemplate mongoTemplate;
+    private final StudentRepository studentRepository;
+
+    // For a new account, whose student may already exist
+    public String findStudentId(String username) {
+        return studentRepository.findByEmail(username).map(Student::getId).orElse(null);
+    }
+
+    // After a student is created or its email changes: the account under the old email loses the link
+    public void link(Student student) {
+        mongoTemplate.updateMulti(new Query(Criteria.where("studentId").is(student.getId())
+                        .and("username").ne(student.getEmail())),
+                new Update().unset("studentId"), User.class);
+        mongoTemplate.updateFirst(new Query(Criteria.where("username").is(student.getEmail())
+                        .and("roles").is(Role.ROLE_STUDENT.name())),
+                new Update().set("studentId", student.getId()), User.class);
+    }
+
+    public void unlink(String studentId) {
+        mongoTemplate.updateMulti(new Query(Criteria.where("studentId").is(studentId)),
+                new Update().unset("studentId"), User.class);
+    }
+}
@@ -1,15 +1,19 @@
 package com.derp.erp.services;
 
+import com.derp.erp.config.CacheConfig;
 import com.derp.erp.dtos.StudentRequestDto;
 import com.derp.erp.dtos.StudentResponseDto;
 import com.derp.erp.exceptions.ResourceNotFoundException;
+import com.derp.erp.models.CascadeTarget;
 import com.derp.erp.models.Student;
 import com.derp.erp.repositories.StudentRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,6 +21,9 @@ import java.util.stream.Collectors;
 public class StudentService {
 
     private final StudentRepository studentRepository;
+    private final CascadeDeleteService cascadeDeleteService;
+    private final StudentStandingService studentStandingService;
+    private final StudentAccountService studentAccountService;
 
     @Transactional
     public StudentResponseDto createStudent(StudentRequestDto studentRequestDto) {
@@ -32,8 +39,10 @@ public class StudentService {
         student.setLastName(studentRequestDto.getLastName());
         student.setEmail(studentRequestDto.getEmail());
         student.setStudentIdNumber(studentRequestDto.getStudentIdNumber());
+        student.setProgram(studentRequestDto.getProgram());
 
         Student savedStudent = studentRepository.save(student);
+        studentAccountService.link(savedStudent);
         return mapToStudentResponseDto(savedStudent);
     }
 
@@ -52,6 +61,7 @@ public class StudentService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.ROSTER, CacheConfig.GRADE_RANKING}, allEntries = true) // Both carry student names
     public StudentResponseDto updateStudent(String id, StudentRequestDto studentRequestDto) {
         Student student = studentRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Student not found with id: " + id));
@@ -65,21 +75,34 @@ public class StudentService {
             throw new IllegalArgumentException("Error: New Student ID Number is already in use!");
         }
 
+        boolean emailChanged = !student.getEmail().equals(studentRequestDto.getEmail());
         student.setFirstName(studentRequestDto.getFirstName());
         student.setLastName(studentRequestDto.getLastName());
         student.setEmail(studentRequestDto.getEmail());
         student.setStudentIdNumber(studentRequestDto.getStudentIdNumber());
+        boolean programChanged = !Objects.equals(student.getProgram(), studentRequestDto.getProgram());
+        student.setProgram(studentRequestDto.getProgram());
 
         Student updatedStudent = studentRepository.save(student);
+        if (programChanged) {
+            studentStandingService.updateProgram(id, updatedStudent.getProgram());
+        }
+        if (emailChanged) {
+            studentAccountService.link(updatedStudent);
+        }
         return mapToStudentResponseDto(updatedStudent);
     }
 
     @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.ROSTER, CacheConfig.GRADE_RANKING}, allEntries = true)
     public void deleteStudent(String id) {
         if (!studentRepository.existsById(id)) {
             throw new ResourceNotFoundException("Student not found with id: " + id);
         }
         studentRepository.deleteById(id);
+        studentAccountService.unlink(id);
+        // Grades, attendance and other dependents are removed in the background
+        cascadeDeleteService.enqueue(CascadeTarget.STUDENT, id);
     }
 
     private StudentResponseDto mapToStudentResponseDto(Student student) {
@@ -89,6 +112,7 @@ public class StudentService {
         dto.setLastName(student.getLastName());
         dto.setEmail(student.getEmail());
         dto.setStudentIdNumber(student.getStudentIdNumber());
+        dto.setProgram(student.getProgram());
         return dto;
     }
 } 
\ No newline at end of file
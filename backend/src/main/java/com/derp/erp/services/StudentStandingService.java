@@ -0,0 +1,458 @@
+package com.derp.erp.services;
+
+import com.derp.erp.dtos.CourseStandingDto;
+import com.derp.erp.dtos.StandingRecomputeResultDto;
+import com.derp.erp.dtos.StudentStandingDto;
+import com.derp.erp.exceptions.ConflictException;
+import com.derp.erp.exceptions.ResourceNotFoundException;
+import com.derp.erp.models.Course;
+import com.derp.erp.models.CourseStanding;
+import com.derp.erp.models.GradePoints;
+import com.derp.erp.models.Student;
+import com.derp.erp.models.StudentStanding;
+import com.derp.erp.query.ListQuerySpec;
+import com.derp.erp.repositories.CourseRepository;
+import com.derp.erp.repositories.StudentRepository;
+import com.derp.erp.repositories.StudentStandingRepository;
+import com.mongodb.client.MongoCursor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Keeps student_standings in step with grade writes. Each write rebuilds only the affected course entry from
+// that student's grades in the course (served by student_id_course_id_assessment_idx), then re-totals the
+// handful of course entries; nothing else is read. A bulk recompute rebuilds every standing from one pass.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StudentStandingService {
+
+    private static final int MAX_SAVE_ATTEMPTS = 5;
+    private static final int MAX_TOP_LIMIT = 100;
+
+    // Average points a course needs for its credits to count as earned (a D-)
+    private static final double PASSING_POINTS = 0.7;
+
+    private final StudentStandingRepository studentStandingRepository;
+    private final StudentRepository studentRepository;
+    private final CourseRepository courseRepository;
+    private final MongoTemplate mongoTemplate;
+    private final TaskScheduler taskScheduler;
+
+    private final ReentrantLock recomputeLock = new ReentrantLock();
+
+    // Pairs refreshed while a bulk recompute runs; refreshed again afterwards, since the recompute may have
+    // written an older view of them
+    private volatile Set<Pair> touchedDuringRecompute;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        taskScheduler.schedule(() -> {
+            if (studentStandingRepository.count() == 0 && mongoTemplate.getCollection("grades").estimatedDocumentCount() > 0) {
+                scheduledRecompute();
+            }
+        }, Instant.now());
+    }
+
+    // Safety net for any grade write whose standing update failed
+    @Scheduled(cron = "${derp.standings.cron:0 0 3 * * *}")
+    public void scheduledRecompute() {
+        if (!recomputeLock.tryLock()) {
+            return;
+        }
+        try {
+            StandingRecomputeResultDto result = recompute();
+            log.info("Student standings recomputed: {} student(s) from {} grade(s) in {} ms",
+                    result.getStudentsRecomputed(), result.getGradesRead(), result.getDurationMillis());
+        } catch (RuntimeException e) {
+            log.warn("Student standings recompute failed", e);
+        } finally {
+            recomputeLock.unlock();
+        }
+    }
+
+    public StandingRecomputeResultDto recomputeNow() {
+        if (!recomputeLock.tryLock()) {
+            throw new ConflictException("Student standings are already being recomputed.");
+        }
+        try {
+            return recompute();
+        } finally {
+            recomputeLock.unlock();
+        }
+    }
+
+    // The grades were replaced wholesale (a snapshot restore): standings are dropped, so none outlive their
+    // student, and recomputed in the background
+    public void rebuild() {
+        taskScheduler.schedule(() -> {
+            recomputeLock.lock();
+            try {
+                mongoTemplate.remove(new Query(), StudentStanding.class);
+                StandingRecomputeResultDto result = recompute();
+                log.info("Student standings rebuilt: {} student(s) from {} grade(s)", result.getStudentsRecomputed(), result.getGradesRead());
+            } catch (RuntimeException e) {
+                log.warn("Rebuilding student standings failed; the nightly recompute retries", e);
+            } finally {
+                recomputeLock.unlock();
+            }
+        }, Instant.now());
+    }
+
+    // Called after a grade for the pair is created, updated or deleted. A failure is logged rather than
+    // failing the grade write; the nightly recompute corrects it.
+    public void refresh(String studentId, String courseId) {
+        Set<Pair> touched = touchedDuringRecompute;
+        if (touched != null) {
+            touched.add(new Pair(studentId, courseId));
+        }
+        try {
+            refreshPair(studentId, courseId);
+        } catch (RuntimeException e) {
+            log.warn("Could not update the standing of student {} for course {}", studentId, courseId, e);
+        }
+    }
+
+    // refresh for many students of one course after a bulk grade write: the course and the students' grades in it
+    // are read once, then each standing is written. Failures are logged per student, as in refresh.
+    public void refreshCourse(String courseId, Collection<String> studentIds) {
+        if (studentIds.isEmpty()) {
+            return;
+        }
+        Set<Pair> touched = touchedDuringRecompute;
+        if (touched != null) {
+            studentIds.forEach(studentId -> touched.add(new Pair(studentId, courseId)));
+        }
+        Map<String, Student> students = new HashMap<>();
+        Optional<Course> course;
+        Map<String, List<String>> gradeValuesByStudent = new HashMap<>();
+        try {
+            studentRepository.findAllById(studentIds).forEach(student -> students.put(student.getId(), student));
+            course = courseRepository.findById(courseId);
+            if (course.isPresent()) {
+                List<Object> ids = studentIds.stream().map(ListQuerySpec::objectId).collect(Collectors.toList());
+                mongoTemplate.getCollection("grades")
+                        .find(new Document("student.$id", new Document("$in", ids))
+                                .append("course.$id", ListQuerySpec.objectId(courseId)))
+                        .projection(new Document("student", 1).append("gradeValue", 1))
+                        .forEach(grade -> gradeValuesByStudent
+                                .computeIfAbsent(ListQuerySpec.refId(grade.get("student")), id -> new ArrayList<>())
+                                .add(grade.getString("gradeValue")));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not update the standings of {} student(s) for course {}", studentIds.size(), courseId, e);
+            return;
+        }
+        for (Student student : students.values()) {
+            CourseStanding entry = course
+                    .map(c -> buildCourseStanding(c, gradeValuesByStudent.getOrDefault(student.getId(), List.of())))
+                    .orElse(null);
+            try {
+                modify(student.getId(), standing -> {
+                    standing.setProgram(student.getProgram());
+                    standing.getCourses().removeIf(existing -> courseId.equals(existing.getCourseId()));
+                    if (entry != null) {
+                        standing.getCourses().add(entry);
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.warn("Could not update the standing of student {} for course {}", student.getId(), courseId, e);
+            }
+        }
+    }
+
+    public StudentStandingDto getStanding(String studentId) {
+        Student student = studentRepository.findById(studentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Student not found with id: " + studentId));
+        StudentStanding standing = studentStandingRepository.findById(studentId).orElseGet(() -> new StudentStanding(studentId));
+        StudentStandingDto dto = mapToStudentStandingDto(standing, student);
+        dto.setProgram(student.getProgram());
+
+        Map<String, Course> courses = new HashMap<>();
+        courseRepository.findAllById(standing.getCourses().stream().map(CourseStanding::getCourseId).collect(Collectors.toSet()))
+                .forEach(course -> courses.put(course.getId(), course));
+        dto.setCourses(standing.getCourses().stream()
+                .map(entry -> mapToCourseStandingDto(entry, courses.get(entry.getCourseId())))
+                .collect(Collectors.toList()));
+        return dto;
+    }
+
+    // Highest GPAs first, optionally within one program (served by gpa_idx / program_gpa_idx)
+    public List<StudentStandingDto> getTopStudents(String program, int limit) {
+        if (limit < 1 || limit > MAX_TOP_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_TOP_LIMIT + ".");
+        }
+        PageRequest page = PageRequest.of(0, limit);
+        List<StudentStanding> standings = program == null || program.isBlank()
+                ? studentStandingRepository.findByGpaNotNullOrderByGpaDesc(page)
+                : studentStandingRepository.findByProgramAndGpaNotNullOrderByGpaDesc(program.trim(), page);
+        Map<String, Student> students = new HashMap<>();
+        studentRepository.findAllById(standings.stream().map(StudentStanding::getId).collect(Collectors.toSet()))
+                .forEach(student -> students.put(student.getId(), student));
+        return standings.stream()
+                .filter(standing -> students.containsKey(standing.getId()))
+                .map(standing -> mapToStudentStandingDto(standing, students.get(standing.getId())))
+                .collect(Collectors.toList());
+    }
+
+    public void updateProgram(String studentId, String program) {
+        if (studentStandingRepository.existsById(studentId)) {
+            modify(studentId, standing -> standing.setProgram(program));
+        }
+    }
+
+    // A course's credits changed; every standing that includes it is re-totalled (served by course_idx)
+    public void updateCourseCredits(String courseId, Integer credits) {
+        for (StudentStanding affected : studentStandingRepository.findByCourses_CourseId(courseId)) {
+            modify(affected.getId(), standing -> standing.getCourses().stream()
+                    .filter(entry -> courseId.equals(entry.getCourseId()))
+                    .forEach(entry -> entry.setCredits(credits != null ? credits : 0)));
+        }
+    }
+
+    // The course is gone; its grades are removed by the cascade job, so its entries are dropped right away
+    public void removeCourse(String courseId) {
+        for (StudentStanding affected : studentStandingRepository.findByCourses_CourseId(courseId)) {
+            modify(affected.getId(), standing -> standing.getCourses().removeIf(entry -> courseId.equals(entry.getCourseId())));
+        }
+    }
+
+    private void refreshPair(String studentId, String courseId) {
+        Optional<Student> student = studentRepository.findById(studentId);
+        if (student.isEmpty()) {
+            return; // Deleted; the cascade job removes the standing
+        }
+        Optional<Course> course = courseRepository.findById(courseId);
+        List<String> gradeValues = new ArrayList<>();
+        if (course.isPresent()) {
+            mongoTemplate.getCollection("grades")
+                    .find(new Document("student.$id", ListQuerySpec.objectId(studentId))
+                            .append("course.$id", ListQuerySpec.objectId(courseId)))
+                    .projection(new Document("gradeValue", 1))
+                    .forEach(grade -> gradeValues.add(grade.getString("gradeValue")));
+        }
+        CourseStanding entry = course.map(c -> buildCourseStanding(c, gradeValues)).orElse(null);
+        modify(studentId, standing -> {
+            standing.setProgram(student.get().getProgram());
+            standing.getCourses().removeIf(existing -> courseId.equals(existing.getCourseId()));
+            if (entry != null) {
+                standing.getCourses().add(entry);
+            }
+        });
+    }
+
+    // One pass over grades in student order; each student's standing is replaced with what the pass saw.
+    private StandingRecomputeResultDto recompute() {
+        long started = System.currentTimeMillis();
+        Set<Pair> touched = ConcurrentHashMap.newKeySet();
+        touchedDuringRecompute = touched;
+        try {
+            Map<String, Course> courses = courseRepository.findAll().stream()
+                    .collect(Collectors.toMap(Course::getId, course -> course));
+            StandingRecomputeResultDto result = new StandingRecomputeResultDto();
+            Set<String> recomputed = new HashSet<>();
+
+            String currentStudentId = null;
+            Map<String, List<String>> gradeValuesByCourse = new LinkedHashMap<>();
+            try (MongoCursor<Document> cursor = mongoTemplate.getCollection("grades")
+                    .find()
+                    .projection(new Document("student", 1).append("course", 1).append("gradeValue", 1))
+                    .sort(new Document("student.$id", 1).append("course.$id", 1))
+                    .batchSize(1000)
+                    .iterator()) {
+                while (cursor.hasNext()) {
+                    Document grade = cursor.next();
+                    String studentId = ListQuerySpec.refId(grade.get("student"));
+                    String courseId = ListQuerySpec.refId(grade.get("course"));
+                    if (studentId == null || courseId == null) {
+                        continue;
+                    }
+                    result.setGradesRead(result.getGradesRead() + 1);
+                    if (GradePoints.parse(grade.getString("gradeValue")).isEmpty()) {
+                        result.setUnreadableGrades(result.getUnreadableGrades() + 1);
+                    }
+                    if (!studentId.equals(currentStudentId)) {
+                        replaceStanding(currentStudentId, gradeValuesByCourse, courses, recomputed);
+                        currentStudentId = studentId;
+                        gradeValuesByCourse.clear();
+                    }
+                    gradeValuesByCourse.computeIfAbsent(courseId, id -> new ArrayList<>()).add(grade.getString("gradeValue"));
+                }
+            }
+            replaceStanding(currentStudentId, gradeValuesByCourse, courses, recomputed);
+
+            // Standings of students who no longer have any grades
+            for (StudentStanding standing : studentStandingRepository.findAll()) {
+                if (!recomputed.contains(standing.getId()) && !standing.getCourses().isEmpty()) {
+                    replaceStanding(standing.getId(), Map.of(), courses, recomputed);
+                }
+            }
+
+            touchedDuringRecompute = null;
+            for (Pair pair : touched) {
+                refresh(pair.studentId(), pair.courseId());
+            }
+            result.setStudentsRecomputed(recomputed.size());
+            result.setDurationMillis(System.currentTimeMillis() - started);
+            return result;
+        } finally {
+            touchedDuringRecompute = null;
+        }
+    }
+
+    private void replaceStanding(String studentId, Map<String, List<String>> gradeValuesByCourse,
+                                 Map<String, Course> courses, Set<String> recomputed) {
+        if (studentId == null) {
+            return;
+        }
+        Optional<Student> student = studentRepository.findById(studentId);
+        if (student.isEmpty()) {
+            return;
+        }
+        List<CourseStanding> entries = new ArrayList<>();
+        gradeValuesByCourse.forEach((courseId, gradeValues) -> {
+            Course course = courses.get(courseId);
+            CourseStanding entry = course != null ? buildCourseStanding(course, gradeValues) : null;
+            if (entry != null) {
+                entries.add(entry);
+            }
+        });
+        modify(studentId, standing -> {
+            standing.setProgram(student.get().getProgram());
+            standing.setCourses(new ArrayList<>(entries));
+        });
+        recomputed.add(studentId);
+    }
+
+    // Null when none of the course's grades can be read
+    private static CourseStanding buildCourseStanding(Course course, Collection<String> gradeValues) {
+        int graded = 0;
+        int withPoints = 0;
+        double pointsSum = 0;
+        boolean allPassed = true;
+        for (String gradeValue : gradeValues) {
+            Optional<GradePoints> parsed = GradePoints.parse(gradeValue);
+            if (parsed.isEmpty()) {
+                continue;
+            }
+            graded++;
+            allPassed &= parsed.get().passed();
+            if (parsed.get().points() != null) {
+                withPoints++;
+                pointsSum += parsed.get().points();
+            }
+        }
+        if (graded == 0) {
+            return null;
+        }
+        CourseStanding entry = new CourseStanding();
+        entry.setCourseId(course.getId());
+        entry.setCredits(course.getCredits() != null ? course.getCredits() : 0);
+        entry.setGradedAssessments(graded);
+        entry.setAveragePoints(withPoints > 0 ? pointsSum / withPoints : null);
+        entry.setPassed(withPoints > 0 ? entry.getAveragePoints() >= PASSING_POINTS : allPassed);
+        return entry;
+    }
+
+    // Re-reads and retries on a version conflict, so concurrent writers each apply their change to the latest state
+    private void modify(String studentId, Consumer<StudentStanding> change) {
+        for (int attempt = 1; ; attempt++) {
+            StudentStanding standing = studentStandingRepository.findById(studentId).orElseGet(() -> new StudentStanding(studentId));
+            change.accept(standing);
+            applyTotals(standing);
+            standing.setUpdatedAt(Instant.now());
+            try {
+                studentStandingRepository.save(standing);
+                return;
+            } catch (OptimisticLockingFailureException | DuplicateKeyException e) {
+                if (attempt >= MAX_SAVE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static void applyTotals(StudentStanding standing) {
+        int attempted = 0;
+        int earned = 0;
+        int gpaCredits = 0;
+        double weightedPoints = 0;
+        for (CourseStanding entry : standing.getCourses()) {
+            attempted += entry.getCredits();
+            if (entry.isPassed()) {
+                earned += entry.getCredits();
+            }
+            if (entry.getAveragePoints() != null) {
+                gpaCredits += entry.getCredits();
+                weightedPoints += entry.getAveragePoints() * entry.getCredits();
+            }
+        }
+        standing.setCreditsAttempted(attempted);
+        standing.setCreditsEarned(earned);
+        standing.setGpaCredits(gpaCredits);
+        standing.setGpa(gpaCredits > 0 ? weightedPoints / gpaCredits : null);
+    }
+
+    private static Double round(Double value) {
+        return value == null ? null : Math.round(value * 100) / 100.0;
+    }
+
+    private StudentStandingDto mapToStudentStandingDto(StudentStanding standing, Student student) {
+        StudentStandingDto dto = new StudentStandingDto();
+        dto.setStudentId(standing.getId());
+        if (student != null) {
+            dto.setStudentIdNumber(student.getStudentIdNumber());
+            dto.setStudentFirstName(student.getFirstName());
+            dto.setStudentLastName(student.getLastName());
+        }
+        dto.setProgram(standing.getProgram());
+        dto.setCreditsAttempted(standing.getCreditsAttempted());
+        dto.setCreditsEarned(standing.getCreditsEarned());
+        dto.setGpa(round(standing.getGpa()));
+        dto.setUpdatedAt(standing.getUpdatedAt());
+        return dto;
+    }
+
+    private CourseStandingDto mapToCourseStandingDto(CourseStanding entry, Course course) {
+        CourseStandingDto dto = new CourseStandingDto();
+        dto.setCourseId(entry.getCourseId());
+        if (course != null) {
+            dto.setCourseCode(course.getCourseCode());
+            dto.setCourseName(course.getCourseName());
+        }
+        dto.setCredits(entry.getCredits());
+        dto.setGradedAssessments(entry.getGradedAssessments());
+        dto.setAveragePoints(round(entry.getAveragePoints()));
+        dto.setPassed(entry.isPassed());
+        return dto;
+    }
+
+    private record Pair(String studentId, String courseId) {
+    }
+}
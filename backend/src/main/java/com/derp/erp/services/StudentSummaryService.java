@@ -0,0 +1,76 @@
+package com.derp.erp.services;
+
+import com.derp.erp.dtos.CourseAttendanceDto;
+import com.derp.erp.dtos.CourseStandingDto;
+import com.derp.erp.dtos.StudentStandingDto;
+import com.derp.erp.dtos.StudentSummaryDto;
+import com.derp.erp.models.AttendanceTally;
+import com.derp.erp.repositories.AttendanceTallyRepository;
+import com.derp.erp.repositories.CourseRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// The signed-in student's overview, read from the maintained standings and attendance tallies rather than the
+// grade and attendance records themselves.
+@Service
+@RequiredArgsConstructor
+public class StudentSummaryService {
+
+    private final StudentStandingService studentStandingService;
+    private final EnrollmentService enrollmentService;
+    private final AttendanceTallyRepository attendanceTallyRepository;
+    private final CourseRepository courseRepository;
+
+    @Transactional(readOnly = true)
+    public StudentSummaryDto getSummary(String studentId) {
+        StudentStandingDto standing = studentStandingService.getStanding(studentId);
+        List<AttendanceTally> tallies = attendanceTallyRepository.findByStudentId(studentId);
+
+        // Course names already resolved for the standing are reused; only the rest are fetched
+        Map<String, String[]> courseNames = new HashMap<>();
+        for (CourseStandingDto course : standing.getCourses()) {
+            courseNames.put(course.getCourseId(), new String[]{course.getCourseCode(), course.getCourseName()});
+        }
+        Set<String> missing = tallies.stream()
+                .map(AttendanceTally::getCourseId)
+                .filter(courseId -> !courseNames.containsKey(courseId))
+                .collect(Collectors.toSet());
+        if (!missing.isEmpty()) {
+            courseRepository.findAllById(missing)
+                    .forEach(course -> courseNames.put(course.getId(), new String[]{course.getCourseCode(), course.getCourseName()}));
+        }
+
+        StudentSummaryDto dto = new StudentSummaryDto();
+        dto.setStanding(standing);
+        dto.setEnrolledCourses(enrollmentService.findEnrolledCourseIds(studentId).size());
+        dto.setAttendance(tallies.stream()
+                .map(tally -> mapToCourseAttendanceDto(tally, courseNames.get(tally.getCourseId())))
+                .sorted(Comparator.comparing(CourseAttendanceDto::getCourseCode, Comparator.nullsLast(Comparator.naturalOrder())))
+                .collect(Collectors.toList()));
+        return dto;
+    }
+
+    private CourseAttendanceDto mapToCourseAttendanceDto(AttendanceTally tally, String[] course) {
+        CourseAttendanceDto dto = new CourseAttendanceDto();
+        dto.setCourseId(tally.getCourseId());
+        if (course != null) {
+            dto.setCourseCode(course[0]);
+            dto.setCourseName(course[1]);
+        }
+        dto.setPresent(tally.getPresent());
+        dto.setLate(tally.getLate());
+        dto.setAbsent(tally.getAbsent());
+        dto.setExcused(tally.getExcused());
+        dto.setAttendanceRate(tally.getAttendanceRate());
+        dto.setAtRisk(tally.isAtRisk());
+        return dto;
+    }
+}
@@ -0,0 +1,145 @@
+package com.derp.erp.services;
+
+import com.derp.erp.models.ScheduledClass;
+import com.derp.erp.repositories.ScheduledClassRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Immutable in-memory copy of the weekly schedule, indexed per day by start minute, so "what is running at
+// time t" is a binary search instead of a Mongo query. Rebuilt lazily after any ScheduleChangedEvent.
+@Component
+@RequiredArgsConstructor
+public class WeeklyTimetable {
+
+    private final ScheduledClassRepository scheduledClassRepository;
+
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    @EventListener
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    public List<ScheduledClass> classesAt(DayOfWeek dayOfWeek, int minuteOfDay) {
+        return currentSnapshot().classesAt(dayOfWeek, minuteOfDay);
+    }
+
+    public int size() {
+        return currentSnapshot().size;
+    }
+
+    public void rebuild() {
+        snapshot = null;
+        currentSnapshot();
+    }
+
+    private Snapshot currentSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current == null) {
+                long buildGeneration = generation.get();
+                current = Snapshot.of(scheduledClassRepository.findAll());
+                // A change that raced with the load invalidates this copy; serve it once but don't keep it.
+                if (generation.get() == buildGeneration) {
+                    snapshot = current;
+                }
+            }
+            return current;
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final Map<DayOfWeek, DaySchedule> days = new EnumMap<>(DayOfWeek.class);
+        private int size;
+
+        static Snapshot of(List<ScheduledClass> scheduledClasses) {
+            Map<DayOfWeek, List<ScheduledClass>> byDay = new EnumMap<>(DayOfWeek.class);
+            for (ScheduledClass scheduledClass : scheduledClasses) {
+                if (scheduledClass.getDayOfWeek() == null || scheduledClass.getStartMinute() == null || scheduledClass.getEndMinute() == null) {
+                    continue; // Not migrated yet or incomplete
+                }
+                byDay.computeIfAbsent(scheduledClass.getDayOfWeek(), day -> new ArrayList<>()).add(scheduledClass);
+            }
+            Snapshot snapshot = new Snapshot();
+            byDay.forEach((day, classes) -> {
+                snapshot.days.put(day, new DaySchedule(classes));
+                snapshot.size += classes.size();
+            });
+            return snapshot;
+        }
+
+        List<ScheduledClass> classesAt(DayOfWeek dayOfWeek, int minuteOfDay) {
+            DaySchedule daySchedule = days.get(dayOfWeek);
+            return daySchedule == null ? List.of() : daySchedule.classesAt(minuteOfDay);
+        }
+    }
+
+    private static final class DaySchedule {
+
+        private final int[] startMinutes;
+        private final int[] endMinutes;
+        private final ScheduledClass[] classes;
+        private final int longestDuration;
+
+        DaySchedule(List<ScheduledClass> dayClasses) {
+            List<ScheduledClass> sorted = new ArrayList<>(dayClasses);
+            sorted.sort(Comparator.comparingInt(ScheduledClass::getStartMinute));
+            int count = sorted.size();
+            startMinutes = new int[count];
+            endMinutes = new int[count];
+            classes = sorted.toArray(new ScheduledClass[0]);
+            int longest = 0;
+            for (int i = 0; i < count; i++) {
+                startMinutes[i] = classes[i].getStartMinute();
+                endMinutes[i] = classes[i].getEndMinute();
+                longest = Math.max(longest, endMinutes[i] - startMinutes[i]);
+            }
+            longestDuration = longest;
+        }
+
+        // Classes with start <= minute < end. Only entries that started within the longest class duration
+        // before the minute can still be running, so the scan stops there.
+        List<ScheduledClass> classesAt(int minuteOfDay) {
+            int index = lastStartingAtOrBefore(minuteOfDay);
+            List<ScheduledClass> running = new ArrayList<>();
+            for (int i = index; i >= 0 && startMinutes[i] > minuteOfDay - longestDuration; i--) {
+                if (endMinutes[i] > minuteOfDay) {
+                    running.add(classes[i]);
+                }
+            }
+            return running;
+        }
+
+        private int lastStartingAtOrBefore(int minuteOfDay) {
+            int low = 0;
+            int high = startMinutes.length - 1;
+            int result = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (startMinutes[mid] <= minuteOfDay) {
+                    result = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.derp.erp.snapshot;
+
+import org.bson.RawBsonDocument;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Layout of a snapshot archive, all inside one GZIP stream:
+//   "DERPSNAP" | format version (int) | created at (long, epoch millis)
+//   per collection: 'C' | name (modified UTF-8) | its documents as raw BSON | int 0 | document count (long)
+//   'E' | SHA-256 of every byte before it (32 bytes)
+// BSON documents start with their own little-endian length, so they are copied through unchanged and a zero
+// length (never a valid document) ends a collection. Nothing is held in memory beyond the document being copied.
+public final class SnapshotArchive {
+
+    private static final byte[] MAGIC = "DERPSNAP".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final byte COLLECTION = 'C';
+    private static final byte END = 'E';
+    private static final int DIGEST_LENGTH = 32;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // The server's 16 MB document limit, plus headroom for the BSON framing
+    private static final int MAX_DOCUMENT_SIZE = 16 * 1024 * 1024 + 16 * 1024;
+
+    private SnapshotArchive() {
+    }
+
+    public static final class Writer implements Closeable {
+
+        private final GZIPOutputStream gzip;
+        private final MessageDigest digest = sha256();
+        private final DataOutputStream out;
+
+        public Writer(OutputStream target) throws IOException {
+            gzip = new GZIPOutputStream(target, BUFFER_SIZE);
+            out = new DataOutputStream(new BufferedOutputStream(new DigestOutputStream(gzip, digest), BUFFER_SIZE));
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(System.currentTimeMillis());
+        }
+
+        public void startCollection(String name) throws IOException {
+            out.writeByte(COLLECTION);
+            out.writeUTF(name);
+        }
+
+        public void writeDocument(RawBsonDocument document) throws IOException {
+            ByteBuffer bytes = document.getByteBuffer().asNIO();
+            if (bytes.hasArray()) {
+                out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+            } else {
+                byte[] copy = new byte[bytes.remaining()];
+                bytes.get(copy);
+                out.write(copy);
+            }
+        }
+
+        public void endCollection(long count) throws IOException {
+            out.writeInt(0);
+            out.writeLong(count);
+        }
+
+        public void finish() throws IOException {
+            out.writeByte(END);
+            out.flush();
+            gzip.write(digest.digest());
+            gzip.finish();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    // Malformed input is reported as IllegalArgumentException; a truncated archive as EOFException
+    public static final class Reader implements Closeable {
+
+        private final GZIPInputStream gzip;
+        private final MessageDigest digest = sha256();
+        // Unbuffered above the digest, so the trailer is never read into it
+        private final DataInputStream in;
+        private final Instant createdAt;
+        private long sectionCount;
+
+        public Reader(InputStream source) throws IOException {
+            gzip = new GZIPInputStream(new BufferedInputStream(source, BUFFER_SIZE), BUFFER_SIZE);
+            in = new DataInputStream(new DigestInputStream(gzip, digest));
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IllegalArgumentException("Not a snapshot archive.");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported snapshot format version: " + version);
+            }
+            createdAt = Instant.ofEpochMilli(in.readLong());
+        }
+
+        public Instant getCreatedAt() {
+            return createdAt;
+        }
+
+        // The next collection's name, or null once the archive's collections are exhausted
+        public String nextCollection() throws IOException {
+            byte tag = in.readByte();
+            if (tag == COLLECTION) {
+                return in.readUTF();
+            }
+            if (tag == END) {
+                return null;
+            }
+            throw new IllegalArgumentException("Corrupt snapshot archive: unexpected section tag " + tag);
+        }
+
+        // The next document of the current collection, or null at its end
+        public RawBsonDocument nextDocument() throws IOException {
+            int length = Integer.reverseBytes(in.readInt());
+            if (length == 0) {
+                sectionCount = in.readLong();
+                return null;
+            }
+            if (length < 5 || length > MAX_DOCUMENT_SIZE) {
+                throw new IllegalArgumentException("Corrupt snapshot archive: document length " + length);
+            }
+            byte[] bytes = new byte[length];
+            ByteBuffer.wrap(bytes, 0, 4).putInt(Integer.reverseBytes(length));
+            in.readFully(bytes, 4, length - 4);
+            return new RawBsonDocument(bytes);
+        }
+
+        // The document count recorded at the end of the collection just read
+        public long getSectionCount() {
+            return sectionCount;
+        }
+
+        // Called once nextCollection() has returned null
+        public void verifyChecksum() throws IOException {
+            byte[] expected = digest.digest();
+            byte[] actual = gzip.readNBytes(DIGEST_LENGTH);
+            if (!MessageDigest.isEqual(expected, actual)) {
+                throw new IllegalArgumentException("Snapshot archive checksum does not match; the archive is damaged.");
+            }
+            if (gzip.read() != -1) {
+                throw new IllegalArgumentException("Corrupt snapshot archive: data after the checksum.");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
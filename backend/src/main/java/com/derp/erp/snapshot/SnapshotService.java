@@ -0,0 +1,269 @@
+package com.derp.erp.snapshot;
+
+import com.derp.erp.config.MongoIndexInitializer;
+import com.derp.erp.dtos.SnapshotRestoreResultDto;
+import com.derp.erp.exceptions.ConflictException;
+import com.derp.erp.services.AtRiskAttendanceService;
+import com.derp.erp.services.AttendanceAnalyticsService;
+import com.derp.erp.services.StudentStandingService;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.RenameCollectionOptions;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.RawBsonDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.ZipException;
+
+// Full-dataset snapshot and restore through SnapshotArchive. A snapshot streams each collection from a cursor, so it
+// is not point-in-time across collections; stop writes first for an exact copy. A restore loads every collection
+// into a staging copy with parallel unordered inserts, verifies the checksum, builds the indexes on the copies and
+// only then renames them over the live collections, so a damaged or truncated archive changes nothing.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SnapshotService {
+
+    // The application's own data. Derived collections (tallies, standings, rollups) are rebuilt after a restore; operational
+    // ones (jobs, audit log, idempotency keys, watermarks) are left out. data_migrations travels with the data it
+    // describes, so migrations are neither skipped nor re-run on the restored documents.
+    public static final List<String> COLLECTIONS = List.of("users", "students", "courses", "enrollments",
+            "scheduled_classes", "grades", "attendance_records", "data_migrations");
+
+    private static final String STAGING_SUFFIX = "_restore";
+    private static final int CURSOR_BATCH_SIZE = 1000;
+    private static final int INSERT_BATCH_DOCUMENTS = 1000;
+    private static final int INSERT_BATCH_BYTES = 4 * 1024 * 1024;
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoIndexInitializer mongoIndexInitializer;
+    private final CacheManager cacheManager;
+    private final AtRiskAttendanceService atRiskAttendanceService;
+    private final AttendanceAnalyticsService attendanceAnalyticsService;
+    private final StudentStandingService studentStandingService;
+
+    // Snapshots and restores exclude each other, so a snapshot never reads a half-renamed dataset
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Memory is bounded by (threads * 2 + 1) insert batches of at most 4 MB each
+    @Value("${derp.snapshot.restore-threads:4}")
+    private int restoreThreads;
+
+    public long writeSnapshot(OutputStream target) throws IOException {
+        if (!lock.tryLock()) {
+            throw new ConflictException("A snapshot or restore is already running.");
+        }
+        try (SnapshotArchive.Writer writer = new SnapshotArchive.Writer(target)) {
+            long started = System.currentTimeMillis();
+            long total = 0;
+            for (String name : COLLECTIONS) {
+                writer.startCollection(name);
+                long count = 0;
+                try (MongoCursor<RawBsonDocument> cursor = raw(name).find().batchSize(CURSOR_BATCH_SIZE).iterator()) {
+                    while (cursor.hasNext()) {
+                        writer.writeDocument(cursor.next());
+                        count++;
+                    }
+                }
+                writer.endCollection(count);
+                total += count;
+            }
+            writer.finish();
+            log.info("Snapshot of {} document(s) written in {} ms", total, System.currentTimeMillis() - started);
+            return total;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public SnapshotRestoreResultDto restore(InputStream source) throws IOException {
+        if (!lock.tryLock()) {
+            throw new ConflictException("A snapshot or restore is already running.");
+        }
+        long started = System.currentTimeMillis();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(restoreThreads, runnable -> {
+            Thread thread = new Thread(runnable, "derp-restore-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Inserts inserts = new Inserts(executor, restoreThreads * 2);
+        List<String> staged = new ArrayList<>();
+        boolean swapped = false;
+        try (SnapshotArchive.Reader reader = new SnapshotArchive.Reader(source)) {
+            SnapshotRestoreResultDto result = new SnapshotRestoreResultDto();
+            result.setSnapshotCreatedAt(reader.getCreatedAt());
+            Map<String, Long> documents = new LinkedHashMap<>();
+            String name;
+            while ((name = reader.nextCollection()) != null) {
+                if (!COLLECTIONS.contains(name) || documents.containsKey(name)) {
+                    throw new IllegalArgumentException("Unexpected collection in the snapshot archive: " + name);
+                }
+                String staging = name + STAGING_SUFFIX;
+                mongoTemplate.dropCollection(staging);
+                mongoTemplate.createCollection(staging);
+                staged.add(staging);
+                documents.put(name, load(reader, raw(staging), inserts));
+            }
+            reader.verifyChecksum();
+            inserts.awaitAll();
+            List<String> missing = COLLECTIONS.stream().filter(collection -> !documents.containsKey(collection)).toList();
+            if (!missing.isEmpty()) {
+                throw new IllegalArgumentException("The snapshot archive has no data for " + missing);
+            }
+
+            // Built before the swap, so no request ever sees an unindexed collection
+            for (String collection : COLLECTIONS) {
+                mongoIndexInitializer.ensureIndexes(collection, collection + STAGING_SUFFIX);
+            }
+            // Each rename is atomic; the set of renames is not, but it takes milliseconds
+            String database = mongoTemplate.getDb().getName();
+            for (String collection : COLLECTIONS) {
+                raw(collection + STAGING_SUFFIX).renameCollection(new MongoNamespace(database, collection),
+                        new RenameCollectionOptions().dropTarget(true));
+            }
+            swapped = true;
+
+            rebuildDerivedData();
+            result.setDocuments(documents);
+            result.setTotalDocuments(documents.values().stream().mapToLong(Long::longValue).sum());
+            result.setDurationMillis(System.currentTimeMillis() - started);
+            log.info("Restored {} document(s) from a snapshot taken {} in {} ms",
+                    result.getTotalDocuments(), result.getSnapshotCreatedAt(), result.getDurationMillis());
+            return result;
+        } catch (EOFException | ZipException e) {
+            throw new IllegalArgumentException("The snapshot archive is truncated or not GZIP-compressed.", e);
+        } finally {
+            executor.shutdownNow();
+            awaitTermination(executor);
+            if (!swapped) {
+                staged.forEach(mongoTemplate::dropCollection);
+            }
+            lock.unlock();
+        }
+    }
+
+    private long load(SnapshotArchive.Reader reader, MongoCollection<RawBsonDocument> target, Inserts inserts) throws IOException {
+        List<RawBsonDocument> batch = new ArrayList<>();
+        long batchBytes = 0;
+        long count = 0;
+        RawBsonDocument document;
+        while ((document = reader.nextDocument()) != null) {
+            batch.add(document);
+            batchBytes += document.getByteBuffer().remaining();
+            count++;
+            if (batch.size() >= INSERT_BATCH_DOCUMENTS || batchBytes >= INSERT_BATCH_BYTES) {
+                inserts.submit(target, batch);
+                batch = new ArrayList<>();
+                batchBytes = 0;
+            }
+        }
+        if (!batch.isEmpty()) {
+            inserts.submit(target, batch);
+        }
+        if (count != reader.getSectionCount()) {
+            throw new IllegalArgumentException("Corrupt snapshot archive: " + target.getNamespace().getCollectionName()
+                    + " has " + count + " document(s), expected " + reader.getSectionCount());
+        }
+        return count;
+    }
+
+    // Caches and derived collections describe the replaced data
+    private void rebuildDerivedData() {
+        for (String cacheName : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+        atRiskAttendanceService.rebuild();
+        studentStandingService.rebuild();
+        attendanceAnalyticsService.rebuild();
+    }
+
+    private MongoCollection<RawBsonDocument> raw(String collectionName) {
+        return mongoTemplate.getCollection(collectionName).withDocumentClass(RawBsonDocument.class);
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Insert batches in flight on the executor; the permits bound how many are buffered at once
+    private static final class Inserts {
+
+        private final ExecutorService executor;
+        private final int maxInFlight;
+        private final Semaphore permits;
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        Inserts(ExecutorService executor, int maxInFlight) {
+            this.executor = executor;
+            this.maxInFlight = maxInFlight;
+            this.permits = new Semaphore(maxInFlight);
+        }
+
+        void submit(MongoCollection<RawBsonDocument> target, List<RawBsonDocument> batch) throws InterruptedIOException {
+            acquire(1);
+            rethrowFailure();
+            executor.execute(() -> {
+                try {
+                    target.insertMany(batch, new InsertManyOptions().ordered(false));
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        void awaitAll() throws InterruptedIOException {
+            acquire(maxInFlight);
+            permits.release(maxInFlight);
+            rethrowFailure();
+        }
+
+        private void acquire(int count) throws InterruptedIOException {
+            try {
+                permits.acquire(count);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while restoring a snapshot");
+            }
+        }
+
+        private void rethrowFailure() {
+            RuntimeException e = failure.get();
+            if (e != null) {
+                throw new IllegalStateException("Restoring a snapshot batch failed", e);
+            }
+        }
+    }
+}
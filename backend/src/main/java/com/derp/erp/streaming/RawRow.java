@@ -0,0 +1,93 @@
+package com.derp.erp.streaming;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonType;
+import org.bson.RawBsonDocument;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+// The fields a response needs from one raw document, read in a single pass over its bytes. RawBsonDocument.get
+// rescans the document and copies sub-documents on every call, which costs more than decoding the entity.
+// References (DBRefs) keep only their $id; dates are LocalDates, stored as the start of the day in the server's zone
+// (Spring Data's default conversion).
+public final class RawRow {
+
+    private final String[] names;
+    private final Object[] values;
+
+    private RawRow(String[] names) {
+        this.names = names;
+        this.values = new Object[names.length];
+    }
+
+    public static RawRow read(RawBsonDocument document, String... names) {
+        RawRow row = new RawRow(names);
+        try (BsonBinaryReader reader = new BsonBinaryReader(document.getByteBuffer().asNIO())) {
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                int index = row.indexOf(reader.readName());
+                if (index < 0) {
+                    reader.skipValue();
+                } else {
+                    row.values[index] = readValue(reader);
+                }
+            }
+            reader.readEndDocument();
+        }
+        return row;
+    }
+
+    public Object value(String name) {
+        int index = indexOf(name);
+        return index < 0 ? null : values[index];
+    }
+
+    public String string(String name) {
+        return value(name) instanceof String value ? value : null;
+    }
+
+    public LocalDate date(String name) {
+        return value(name) instanceof LocalDate value ? value : null;
+    }
+
+    private int indexOf(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Object readValue(BsonBinaryReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case OBJECT_ID:
+                return reader.readObjectId();
+            case STRING:
+                return reader.readString();
+            case DATE_TIME:
+                return LocalDate.ofInstant(Instant.ofEpochMilli(reader.readDateTime()), ZoneId.systemDefault());
+            case DOCUMENT:
+                return readReferenceId(reader);
+            default:
+                reader.skipValue();
+                return null;
+        }
+    }
+
+    private static Object readReferenceId(BsonBinaryReader reader) {
+        Object id = null;
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (reader.readName().equals("$id")) {
+                id = readValue(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return id;
+    }
+}
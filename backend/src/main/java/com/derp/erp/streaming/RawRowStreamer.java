@@ -0,0 +1,159 @@
+package com.derp.erp.streaming;
+
+import com.derp.erp.models.Course;
+import com.derp.erp.models.Student;
+import com.derp.erp.query.ListQuerySpec;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Read path for the large grade and attendance lists: rows stay raw BSON from the cursor and their fields are written
+// straight to the JSON generator, skipping the entity, its DBRef lookups, the response DTO and the List. The output
+// matches GradeResponseDto and AttendanceRecordResponseDto field for field, nulls included.
+@Component
+@RequiredArgsConstructor
+public class RawRowStreamer {
+
+    private static final int BATCH_SIZE = 500;
+    private static final String[] GRADE_FIELDS =
+            {"_id", "student", "course", "assessmentType", "gradeValue", "assessmentDate", "comments"};
+    private static final String[] ATTENDANCE_RECORD_FIELDS = {"_id", "student", "course", "attendanceDate", "status"};
+
+    private final MongoTemplate mongoTemplate;
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(JsonGenerator generator, RawRow row, ReferenceCache students, ReferenceCache courses) throws IOException;
+    }
+
+    // student and course, when the caller already loaded them, are reused instead of being looked up again
+    public StreamedJsonArray grades(Document filter, Student student, Course course) {
+        return stream("grades", GRADE_FIELDS, filter, student, course, RawRowStreamer::writeGrade);
+    }
+
+    public StreamedJsonArray attendanceRecords(Document filter, Student student, Course course) {
+        return stream("attendance_records", ATTENDANCE_RECORD_FIELDS, filter, student, course, RawRowStreamer::writeAttendanceRecord);
+    }
+
+    private StreamedJsonArray stream(String collectionName, String[] fields, Document filter, Student student, Course course,
+                                     RowWriter rowWriter) {
+        ReferenceCache students = studentCache(raw("students"));
+        ReferenceCache courses = courseCache(raw("courses"));
+        if (student != null) {
+            students.put(ListQuerySpec.objectId(student.getId()), student.getFirstName(), student.getLastName());
+        }
+        if (course != null) {
+            courses.put(ListQuerySpec.objectId(course.getId()), course.getCourseCode(), course.getCourseName());
+        }
+        // Runs the query and fetches its first batch here, in the handler, so a failing or timed-out query is still
+        // answered with a proper status; only the later batches are read while the response is being written. A body
+        // that is never written (e.g. a 406) leaves its cursor to the server's idle timeout.
+        MongoCursor<RawBsonDocument> cursor = raw(collectionName).find(filter).batchSize(BATCH_SIZE).iterator();
+        return new StreamedJsonArray(generator -> {
+            List<RawRow> batch = new ArrayList<>();
+            try (cursor) {
+                while (cursor.hasNext()) {
+                    RawRow row = RawRow.read(cursor.next(), fields);
+                    students.request(row.value("student"));
+                    courses.request(row.value("course"));
+                    batch.add(row);
+                    // End of the server's batch: resolve its references together, then write it out
+                    if (cursor.available() == 0) {
+                        writeBatch(generator, batch, students, courses, rowWriter);
+                    }
+                }
+            }
+            writeBatch(generator, batch, students, courses, rowWriter);
+        });
+    }
+
+    public static ReferenceCache studentCache(MongoCollection<RawBsonDocument> students) {
+        return new ReferenceCache(students, "firstName", "lastName");
+    }
+
+    public static ReferenceCache courseCache(MongoCollection<RawBsonDocument> courses) {
+        return new ReferenceCache(courses, "courseCode", "courseName");
+    }
+
+    private static void writeBatch(JsonGenerator generator, List<RawRow> batch, ReferenceCache students,
+                                   ReferenceCache courses, RowWriter rowWriter) throws IOException {
+        students.fetchPending();
+        courses.fetchPending();
+        for (RawRow row : batch) {
+            rowWriter.write(generator, row, students, courses);
+        }
+        batch.clear();
+    }
+
+    // For callers holding raw grade documents whose references are already in the caches
+    public static void writeGrade(JsonGenerator generator, RawBsonDocument grade, ReferenceCache students,
+                                  ReferenceCache courses) throws IOException {
+        writeGrade(generator, RawRow.read(grade, GRADE_FIELDS), students, courses);
+    }
+
+    private static void writeGrade(JsonGenerator generator, RawRow grade, ReferenceCache students, ReferenceCache courses) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("id", idString(grade.value("_id")));
+        writeStudent(generator, grade, students);
+        writeCourse(generator, grade, courses);
+        generator.writeStringField("assessmentType", grade.string("assessmentType"));
+        generator.writeStringField("gradeValue", grade.string("gradeValue"));
+        generator.writeStringField("assessmentDate", dateString(grade.date("assessmentDate")));
+        generator.writeStringField("comments", grade.string("comments"));
+        generator.writeEndObject();
+    }
+
+    private static void writeAttendanceRecord(JsonGenerator generator, RawRow record, ReferenceCache students,
+                                              ReferenceCache courses) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("id", idString(record.value("_id")));
+        writeStudent(generator, record, students);
+        writeCourse(generator, record, courses);
+        generator.writeStringField("attendanceDate", dateString(record.date("attendanceDate")));
+        generator.writeStringField("status", record.string("status"));
+        generator.writeEndObject();
+    }
+
+    // A reference to a deleted document reads as null through the DBRef, so all its fields are null here too
+    private static void writeStudent(JsonGenerator generator, RawRow row, ReferenceCache students) throws IOException {
+        Object id = row.value("student");
+        String[] student = students.get(id);
+        generator.writeStringField("studentId", student == null ? null : idString(id));
+        generator.writeStringField("studentFirstName", student == null ? null : student[0]);
+        generator.writeStringField("studentLastName", student == null ? null : student[1]);
+    }
+
+    private static void writeCourse(JsonGenerator generator, RawRow row, ReferenceCache courses) throws IOException {
+        Object id = row.value("course");
+        String[] course = courses.get(id);
+        generator.writeStringField("courseId", course == null ? null : idString(id));
+        generator.writeStringField("courseCode", course == null ? null : course[0]);
+        generator.writeStringField("courseName", course == null ? null : course[1]);
+    }
+
+    private static String idString(Object id) {
+        if (id == null) {
+            return null;
+        }
+        return id instanceof ObjectId objectId ? objectId.toHexString() : id.toString();
+    }
+
+    private static String dateString(LocalDate date) {
+        return date == null ? null : date.toString();
+    }
+
+    private MongoCollection<RawBsonDocument> raw(String collectionName) {
+        return mongoTemplate.getCollection(collectionName).withDocumentClass(RawBsonDocument.class);
+    }
+}
@@ -0,0 +1,71 @@
+package com.derp.erp.streaming;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import org.bson.RawBsonDocument;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// The documents a streamed response references (students, courses), reduced to the string fields it writes. Ids are
+// requested while a cursor batch is read and fetched together before the batch is written, so a response costs one
+// $in query per batch instead of one find per row.
+public class ReferenceCache {
+
+    private final MongoCollection<RawBsonDocument> collection;
+    private final String[] fields;
+    private final String[] fieldsWithId;
+    private final Map<Object, String[]> documents = new HashMap<>();
+    // Ids already looked up and not found, e.g. a student deleted before its cascade ran
+    private final Set<Object> missing = new HashSet<>();
+    private final Set<Object> pending = new HashSet<>();
+
+    public ReferenceCache(MongoCollection<RawBsonDocument> collection, String... fields) {
+        this.collection = collection;
+        this.fields = fields;
+        this.fieldsWithId = new String[fields.length + 1];
+        fieldsWithId[0] = "_id";
+        System.arraycopy(fields, 0, fieldsWithId, 1, fields.length);
+    }
+
+    // values in the order of the fields given to the constructor
+    public void put(Object id, String... values) {
+        documents.put(id, values);
+    }
+
+    void request(Object id) {
+        if (id != null && !documents.containsKey(id) && !missing.contains(id)) {
+            pending.add(id);
+        }
+    }
+
+    void fetchPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Object> ids = new ArrayList<>(pending);
+        for (RawBsonDocument document : collection.find(Filters.in("_id", ids)).projection(Projections.include(fields))) {
+            RawRow row = RawRow.read(document, fieldsWithId);
+            String[] values = new String[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                values[i] = row.string(fields[i]);
+            }
+            documents.put(row.value("_id"), values);
+        }
+        for (Object id : ids) {
+            if (!documents.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        pending.clear();
+    }
+
+    public String[] get(Object id) {
+        return id == null ? null : documents.get(id);
+    }
+}
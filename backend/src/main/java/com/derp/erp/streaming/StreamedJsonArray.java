@@ -0,0 +1,75 @@
+package com.derp.erp.streaming;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+// A JSON array whose elements are written straight into the response by Jackson's generator while the message
+// converter serializes it, instead of being collected into a List of DTOs first. Controllers return it like any
+// other body. Once the response is committed an error can no longer become a status code, so a failure while writing
+// leaves the array unterminated and the connection is dropped: a client never mistakes a truncated list for a whole one.
+public class StreamedJsonArray extends JsonSerializable.Base {
+
+    @FunctionalInterface
+    public interface ElementWriter {
+        void writeElements(JsonGenerator generator) throws IOException;
+    }
+
+    private final ElementWriter elementWriter;
+    private final String rendered;
+
+    public StreamedJsonArray(ElementWriter elementWriter) {
+        this.elementWriter = elementWriter;
+        this.rendered = null;
+    }
+
+    private StreamedJsonArray(String rendered) {
+        this.elementWriter = null;
+        this.rendered = rendered;
+    }
+
+    // Reads and renders the array now. For @Coalesce methods, whose result is shared by concurrent callers: they
+    // then copy out the same JSON instead of each running the query.
+    public StreamedJsonArray prerender(ObjectMapper objectMapper) {
+        if (rendered != null) {
+            return this;
+        }
+        try {
+            return new StreamedJsonArray(objectMapper.writeValueAsString(this));
+        } catch (JsonProcessingException e) {
+            // Jackson wraps whatever the element writer threw, e.g. a Mongo timeout; surface that instead
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        if (rendered != null) {
+            generator.writeRawValue(rendered);
+            return;
+        }
+        generator.writeStartArray();
+        try {
+            elementWriter.writeElements(generator);
+        } catch (IOException | RuntimeException e) {
+            // Otherwise the message converter's close() appends the missing "]" and the response ends normally
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            throw e;
+        }
+        generator.writeEndArray();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializerProvider serializers, TypeSerializer typeSerializer) throws IOException {
+        serialize(generator, serializers);
+    }
+}
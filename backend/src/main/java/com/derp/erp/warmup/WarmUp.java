@@ -0,0 +1,176 @@
+package com.derp.erp.warmup;
+
+import com.derp.erp.dtos.CourseResponseDto;
+import com.derp.erp.services.AttendanceService;
+import com.derp.erp.services.CourseService;
+import com.derp.erp.services.EnrollmentService;
+import com.derp.erp.services.GradeService;
+import com.derp.erp.services.ScheduleReportService;
+import com.derp.erp.services.ScheduledClassService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+// Runs once after startup, before the instance reports ready: loads the data every shift change reads (courses,
+// this week's timetable, the rosters of enrolled students) into the caches and Mongo's working set, then calls
+// the busiest read paths repeatedly, including JSON serialization, so the JIT has compiled them before real
+// traffic arrives.
+@Component
+@Slf4j
+public class WarmUp {
+
+    private final CourseService courseService;
+    private final ScheduledClassService scheduledClassService;
+    private final ScheduleReportService scheduleReportService;
+    private final EnrollmentService enrollmentService;
+    private final AttendanceService attendanceService;
+    private final GradeService gradeService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long timeoutMillis;
+    private final int maxRosters;
+    private final int iterations;
+
+    private final AtomicReference<WarmUpState> state = new AtomicReference<>(WarmUpState.PENDING);
+    private volatile Long durationMillis;
+    private volatile Instant started;
+
+    public WarmUp(CourseService courseService,
+                  ScheduledClassService scheduledClassService,
+                  ScheduleReportService scheduleReportService,
+                  EnrollmentService enrollmentService,
+                  AttendanceService attendanceService,
+                  GradeService gradeService,
+                  ObjectMapper objectMapper,
+                  MeterRegistry meterRegistry,
+                  @Value("${derp.warmup.enabled:true}") boolean enabled,
+                  @Value("${derp.warmup.timeout-ms:60000}") long timeoutMillis,
+                  @Value("${derp.warmup.max-rosters:200}") int maxRosters,
+                  @Value("${derp.warmup.iterations:20}") int iterations) {
+        this.courseService = courseService;
+        this.scheduledClassService = scheduledClassService;
+        this.scheduleReportService = scheduleReportService;
+        this.enrollmentService = enrollmentService;
+        this.attendanceService = attendanceService;
+        this.gradeService = gradeService;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.timeoutMillis = timeoutMillis;
+        this.maxRosters = maxRosters;
+        this.iterations = iterations;
+    }
+
+    // Checked on every readiness probe, so the timeout needs no timer of its own
+    public WarmUpState getState() {
+        Instant startedAt = started;
+        if (startedAt != null && Instant.now().isAfter(startedAt.plusMillis(timeoutMillis))
+                && (state.compareAndSet(WarmUpState.PENDING, WarmUpState.TIMED_OUT)
+                || state.compareAndSet(WarmUpState.RUNNING, WarmUpState.TIMED_OUT))) {
+            log.warn("Warm-up did not finish within {} ms; reporting ready anyway", timeoutMillis);
+            record(startedAt, WarmUpState.TIMED_OUT);
+        }
+        return state.get();
+    }
+
+    public Long getDurationMillis() {
+        return durationMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            state.set(WarmUpState.COMPLETED);
+            return;
+        }
+        started = Instant.now();
+        // Its own daemon thread: it must not queue behind the scheduler's jobs or hold up shutdown
+        Thread thread = new Thread(() -> run(started), "derp-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run(Instant started) {
+        if (!state.compareAndSet(WarmUpState.PENDING, WarmUpState.RUNNING)) {
+            return;
+        }
+        try {
+            List<CourseResponseDto> courses = step("courses", courseService::getAllCourses);
+            step("timetable", scheduledClassService::getScheduledClassesNow);
+            step("schedule-reports", () -> List.of(scheduleReportService.getRoomUtilization(), scheduleReportService.getInstructorLoad()));
+            step("rosters", () -> courses.stream()
+                    .limit(maxRosters)
+                    .map(course -> enrollmentService.getRoster(course.getId()))
+                    .toList());
+            exerciseReadPaths(courses);
+            if (state.compareAndSet(WarmUpState.RUNNING, WarmUpState.COMPLETED)) {
+                record(started, WarmUpState.COMPLETED);
+                log.info("Warm-up completed in {} ms", durationMillis);
+            }
+        } catch (RuntimeException e) {
+            if (state.compareAndSet(WarmUpState.RUNNING, WarmUpState.FAILED)) {
+                record(started, WarmUpState.FAILED);
+                log.warn("Warm-up failed after {} ms; reporting ready anyway", durationMillis, e);
+            }
+        }
+    }
+
+    // The read paths clients hit hardest at shift change, spread over the week and the first few courses
+    private void exerciseReadPaths(List<CourseResponseDto> courses) {
+        LocalDate monday = LocalDate.now().with(DayOfWeek.MONDAY);
+        for (int i = 0; i < iterations && state.get() == WarmUpState.RUNNING; i++) {
+            LocalDateTime time = LocalDateTime.of(monday.plusDays(i % 5), LocalTime.of(8 + i % 10, (i * 15) % 60));
+            serialize(scheduledClassService.getScheduledClassesAt(time));
+            if (!courses.isEmpty()) {
+                String courseId = courses.get(i % Math.min(courses.size(), 5)).getId();
+                serialize(enrollmentService.getRoster(courseId));
+                serialize(attendanceService.getAttendanceByCourseAndDate(courseId, LocalDate.now()));
+                serialize(gradeService.getGradesByCourseId(courseId));
+            }
+        }
+    }
+
+    private <T> T step(String name, Supplier<T> step) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        T result = step.get();
+        serialize(result);
+        sample.stop(Timer.builder("derp.warmup.step").tag("step", name).register(meterRegistry));
+        return result;
+    }
+
+    private void serialize(Object value) {
+        try {
+            objectMapper.writeValueAsBytes(value);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not serialize warm-up result", e);
+        }
+    }
+
+    private void record(Instant started, WarmUpState outcome) {
+        Duration duration = Duration.between(started, Instant.now());
+        durationMillis = duration.toMillis();
+        Timer.builder("derp.warmup.duration")
+                .description("Time from application ready until warm-up finished, failed or timed out")
+                .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry)
+                .record(duration.toNanos(), TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,27 @@
+package com.derp.erp.warmup;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+// Part of the readiness group (see application.properties): OUT_OF_SERVICE until warm-up has finished or timed out.
+@Component
+@RequiredArgsConstructor
+public class WarmUpHealthIndicator implements HealthIndicator {
+
+    private final WarmUp warmUp;
+
+    @Override
+    public Health health() {
+        WarmUpState state = warmUp.getState();
+        Health.Builder builder = state == WarmUpState.PENDING || state == WarmUpState.RUNNING
+                ? Health.outOfService()
+                : Health.up();
+        builder.withDetail("state", state);
+        if (warmUp.getDurationMillis() != null) {
+            builder.withDetail("durationMillis", warmUp.getDurationMillis());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,9 @@
+package com.derp.erp.warmup;
+
+public enum WarmUpState {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED, // Ready anyway; warm-up only affects latency, never correctness
+    TIMED_OUT // Ready anyway; the remaining preloading carries on in the background
+}
@@ -0,0 +1,198 @@
+package com.derp.erp.benchmarks;
+
+import com.derp.erp.dtos.GradeResponseDto;
+import com.derp.erp.models.Grade;
+import com.derp.erp.streaming.RawRowStreamer;
+import com.derp.erp.streaming.ReferenceCache;
+import com.derp.erp.streaming.StreamedJsonArray;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mongodb.DBRef;
+import com.mongodb.MongoClientSettings;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.convert.DbRefProxyHandler;
+import org.springframework.data.mongodb.core.convert.DbRefResolver;
+import org.springframework.data.mongodb.core.convert.DbRefResolverCallback;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.ReferenceLookupDelegate;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// A course's grade list from raw cursor documents to response bytes: entity + DBRef reads + DTO + List + Jackson
+// (the previous path) against writing fields from the raw BSON (RawRowStreamer). Both start from the bytes the
+// driver hands over and resolve references from memory, so only the decoding and serialization work differs.
+// Setup fails if the two outputs differ. Add -prof gc for the allocation rate per operation.
+// mvn -Pbenchmark verify -Dbenchmark.include=GradeListSerializationBenchmark -Dbenchmark.args="-prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class GradeListSerializationBenchmark {
+
+    // The driver's own Document codec, which turns {$ref, $id} sub-documents into DBRefs as MongoTemplate sees them
+    private static final Codec<Document> DOCUMENT_CODEC = MongoClientSettings.getDefaultCodecRegistry().get(Document.class);
+
+    @Param({"100", "5000"})
+    private int rows;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private final Map<Object, RawBsonDocument> referencedDocuments = new HashMap<>();
+    private final List<RawBsonDocument> gradeRows = new ArrayList<>();
+    // What ReferenceCache would hold after its $in queries
+    private final Map<Object, String[]> studentNames = new HashMap<>();
+    private final Map<Object, String[]> courseNames = new HashMap<>();
+    private MappingMongoConverter converter;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectId courseId = new ObjectId();
+        referencedDocuments.put(courseId, new RawBsonDocument(new Document("_id", courseId).append("courseCode", "CS101")
+                .append("courseName", "Introduction to Programming").append("description", "Basics").append("credits", 4), DOCUMENT_CODEC));
+        courseNames.put(courseId, new String[]{"CS101", "Introduction to Programming"});
+        List<ObjectId> studentIds = new ArrayList<>();
+        for (int s = 0; s < Math.min(rows, 400); s++) {
+            ObjectId studentId = new ObjectId();
+            studentIds.add(studentId);
+            referencedDocuments.put(studentId, new RawBsonDocument(new Document("_id", studentId).append("firstName", "First" + s)
+                    .append("lastName", "Last" + s).append("email", "student" + s + "@derp.edu").append("studentIdNumber", "S" + s)
+                    .append("program", "Computer Science"), DOCUMENT_CODEC));
+            studentNames.put(studentId, new String[]{"First" + s, "Last" + s});
+        }
+        LocalDate firstDate = LocalDate.of(2025, 1, 6);
+        for (int i = 0; i < rows; i++) {
+            Document grade = new Document("_id", new ObjectId())
+                    .append("student", new DBRef("students", studentIds.get(i % studentIds.size())))
+                    .append("course", new DBRef("courses", courseId))
+                    .append("assessmentType", "Assignment " + (i / studentIds.size()))
+                    .append("gradeValue", i % 7 == 0 ? "B+" : "A")
+                    .append("assessmentDate", Date.from(firstDate.plusDays(i % 30).atStartOfDay(ZoneId.systemDefault()).toInstant()))
+                    .append("_class", Grade.class.getName());
+            if (i % 5 == 0) {
+                grade.append("comments", "Well done");
+            }
+            gradeRows.add(new RawBsonDocument(grade, DOCUMENT_CODEC));
+        }
+
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(new InMemoryDbRefResolver(referencedDocuments), mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        String entityJson = new String(entityPath(), StandardCharsets.UTF_8);
+        String streamedJson = new String(streamedPath(), StandardCharsets.UTF_8);
+        if (!objectMapper.readTree(entityJson).equals(objectMapper.readTree(streamedJson))) {
+            throw new IllegalStateException("Streamed output differs from the DTO output:\n" + entityJson + "\n" + streamedJson);
+        }
+    }
+
+    @Benchmark
+    public byte[] entityPath() throws IOException {
+        List<GradeResponseDto> dtos = new ArrayList<>(gradeRows.size());
+        for (RawBsonDocument row : gradeRows) {
+            Grade grade = converter.read(Grade.class, row.decode(DOCUMENT_CODEC));
+            dtos.add(mapToGradeResponseDto(grade));
+        }
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public byte[] streamedPath() throws IOException {
+        ReferenceCache students = RawRowStreamer.studentCache(null);
+        ReferenceCache courses = RawRowStreamer.courseCache(null);
+        studentNames.forEach(students::put);
+        courseNames.forEach(courses::put);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        objectMapper.writeValue(out, new StreamedJsonArray(generator -> {
+            for (RawBsonDocument row : gradeRows) {
+                RawRowStreamer.writeGrade(generator, row, students, courses);
+            }
+        }));
+        return out.toByteArray();
+    }
+
+    // Same as GradeService.mapToGradeResponseDto
+    private static GradeResponseDto mapToGradeResponseDto(Grade grade) {
+        GradeResponseDto dto = new GradeResponseDto();
+        dto.setId(grade.getId());
+        if (grade.getStudent() != null) {
+            dto.setStudentId(grade.getStudent().getId());
+            dto.setStudentFirstName(grade.getStudent().getFirstName());
+            dto.setStudentLastName(grade.getStudent().getLastName());
+        }
+        if (grade.getCourse() != null) {
+            dto.setCourseId(grade.getCourse().getId());
+            dto.setCourseCode(grade.getCourse().getCourseCode());
+            dto.setCourseName(grade.getCourse().getCourseName());
+        }
+        dto.setAssessmentType(grade.getAssessmentType());
+        dto.setGradeValue(grade.getGradeValue());
+        dto.setAssessmentDate(grade.getAssessmentDate());
+        dto.setComments(grade.getComments());
+        return dto;
+    }
+
+    // Serves DBRefs from memory, decoding the stored bytes each time as a fetch from the server would
+    private record InMemoryDbRefResolver(Map<Object, RawBsonDocument> documents) implements DbRefResolver {
+
+        @Override
+        public Object resolveDbRef(MongoPersistentProperty property, DBRef dbref, DbRefResolverCallback callback,
+                                   DbRefProxyHandler proxyHandler) {
+            return callback.resolve(property);
+        }
+
+        @Override
+        public Document fetch(DBRef dbRef) {
+            RawBsonDocument document = documents.get(dbRef.getId());
+            return document == null ? null : document.decode(DOCUMENT_CODEC);
+        }
+
+        @Override
+        public List<Document> bulkFetch(List<DBRef> dbRefs) {
+            return dbRefs.stream().map(this::fetch).toList();
+        }
+
+        @Override
+        public Object resolveReference(MongoPersistentProperty property, Object source,
+                                       ReferenceLookupDelegate referenceLookupDelegate, MongoEntityReader entityReader) {
+            throw new UnsupportedOperationException("Only @DBRef properties are read here");
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.derp.erp.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Cold start of the packaged application up to a refreshed context, and the peak RSS of that JVM, per launch mode.
+// Needs target/extracted from the aot-cds build; RSS is read from /proc, so it is only reported on Linux.
+// mvn -Paot-cds,benchmark verify -Dbenchmark.include=StartupBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final Path EXTRACTED = Path.of("target", "extracted");
+
+    @Param({"baseline", "aot", "aot-cds", "aot-cds-lazy"})
+    private String mode;
+
+    private List<String> command;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public long peakRssKb;
+    }
+
+    @Setup
+    public void setUp() {
+        Path jar = EXTRACTED.resolve("application.jar");
+        if (!Files.exists(jar)) {
+            throw new IllegalStateException(jar + " not found; build it with mvn -Paot-cds package first");
+        }
+        command = new ArrayList<>(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString()));
+        if (mode.startsWith("aot-cds")) {
+            command.add("-XX:SharedArchiveFile=" + EXTRACTED.resolve("application.jsa"));
+        }
+        if (mode.startsWith("aot")) {
+            command.add("-Dspring.aot.enabled=true");
+        }
+        if (mode.endsWith("lazy")) {
+            command.add("-Dspring.profiles.active=fast-start");
+        }
+        command.addAll(List.of("-Dspring.context.exit=onRefresh", "-Dlogging.level.root=WARN", "-jar", jar.toString()));
+    }
+
+    @Benchmark
+    public int startToRefreshed(Footprint footprint) throws Exception {
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        long peakRssKb = 0;
+        while (!process.waitFor(5, TimeUnit.MILLISECONDS)) {
+            peakRssKb = Math.max(peakRssKb, peakRssKb(process.pid()));
+        }
+        if (process.exitValue() != 0) {
+            throw new IllegalStateException("Application exited with " + process.exitValue() + ": " + command);
+        }
+        footprint.peakRssKb = peakRssKb;
+        return process.exitValue();
+    }
+
+    // VmHWM is the high-water mark of the resident set, so sampling misses nothing between polls
+    private static long peakRssKb(long pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // The process exited between polls, or this is not Linux
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,162 @@
+package com.derp.erp.controllers;
+
+import com.derp.erp.models.AttendanceRecord;
+import com.derp.erp.models.AttendanceStatus;
+import com.derp.erp.models.Course;
+import com.derp.erp.models.Enrollment;
+import com.derp.erp.models.Grade;
+import com.derp.erp.models.Role;
+import com.derp.erp.models.ScheduledClass;
+import com.derp.erp.models.Student;
+import com.derp.erp.querycount.MongoCommandCounter;
+import com.derp.erp.security.DerpUserDetails;
+import com.derp.erp.support.QueryBudget;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Per-endpoint budgets for the number of Mongo commands, measured against a course with a full class, so an
+// endpoint that starts resolving references one document at a time fails here instead of in production.
+// The grade and attendance lists resolve references with one $in per cursor batch: the owner, the rows, the $in.
+// A student's own lists take the student's id from the principal instead, so the owner lookup becomes the student $in.
+// Skipped when Docker is not available.
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN")
+@Testcontainers(disabledWithoutDocker = true)
+class EndpointQueryBudgetTest {
+
+    private static final int CLASS_SIZE = 25;
+    private static final LocalDate FIRST_DATE = LocalDate.of(2025, 1, 6);
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoCommandCounter mongoCommandCounter;
+
+    private QueryBudget queryBudget;
+    private String courseId;
+    private String studentId;
+
+    @BeforeEach
+    void seed() {
+        mongoTemplate.getDb().drop();
+        queryBudget = new QueryBudget(mongoCommandCounter);
+        List<Course> courses = List.of(
+                mongoTemplate.insert(new Course("B100", "Budget 100", "Budget 100", 3)),
+                mongoTemplate.insert(new Course("B200", "Budget 200", "Budget 200", 4)));
+        List<Student> students = new ArrayList<>();
+        for (int s = 0; s < CLASS_SIZE; s++) {
+            students.add(mongoTemplate.insert(new Student("First" + s, "Last" + s, "budget" + s + "@derp.edu", "B" + s)));
+        }
+        for (Student student : students) {
+            for (Course course : courses) {
+                mongoTemplate.insert(new Enrollment(student.getId(), course.getId()));
+                for (int d = 0; d < 3; d++) {
+                    mongoTemplate.insert(new AttendanceRecord(student, course, FIRST_DATE.plusDays(d), AttendanceStatus.PRESENT));
+                }
+                mongoTemplate.insert(new Grade(student, course, "Midterm", "B+", FIRST_DATE, null));
+            }
+        }
+        for (Course course : courses) {
+            mongoTemplate.insert(new ScheduledClass(course, DayOfWeek.MONDAY, 540, 630, "R1", "Instructor"));
+            mongoTemplate.insert(new ScheduledClass(course, DayOfWeek.THURSDAY, 540, 630, "R1", "Instructor"));
+        }
+        courseId = courses.get(0).getId();
+        studentId = students.get(0).getId();
+    }
+
+    @Test
+    void roster() throws Exception {
+        withinBudget(3, "/api/enrollments/course/{id}", courseId);
+    }
+
+    @Test
+    void enrollmentsOfStudent() throws Exception {
+        withinBudget(3, "/api/enrollments/student/{id}", studentId);
+    }
+
+    @Test
+    void gradesOfCourse() throws Exception {
+        withinBudget(3, "/api/grades/course/{id}", courseId);
+    }
+
+    @Test
+    void gradesOfStudent() throws Exception {
+        withinBudget(3, "/api/grades/student/{id}", studentId);
+    }
+
+    @Test
+    void attendanceOfCourse() throws Exception {
+        withinBudget(3, "/api/attendance/course/{id}", courseId);
+    }
+
+    @Test
+    void attendanceOfCourseOnDate() throws Exception {
+        withinBudget(3, "/api/attendance/course/{id}/date/{date}", courseId, FIRST_DATE);
+    }
+
+    @Test
+    void attendanceOfStudent() throws Exception {
+        withinBudget(3, "/api/attendance/student/{id}", studentId);
+    }
+
+    @Test
+    void ownGrades() throws Exception {
+        withinBudget(3, asStudent(), "/api/grades/my-grades");
+    }
+
+    @Test
+    void ownAttendance() throws Exception {
+        withinBudget(3, asStudent(), "/api/attendance/my-attendance");
+    }
+
+    @Test
+    void timetableOfCourse() throws Exception {
+        withinBudget(2, "/api/timetable/course/{id}", courseId);
+    }
+
+    private void withinBudget(int maxCommands, String uriTemplate, Object... uriVariables) throws Exception {
+        withinBudget(maxCommands, request -> request, uriTemplate, uriVariables);
+    }
+
+    private void withinBudget(int maxCommands, RequestPostProcessor principal, String uriTemplate,
+                              Object... uriVariables) throws Exception {
+        queryBudget.assertAtMost(maxCommands, "GET " + uriTemplate,
+                () -> mockMvc.perform(get(uriTemplate, uriVariables).with(principal))
+                        .andExpect(status().isOk()));
+    }
+
+    private RequestPostProcessor asStudent() {
+        return user(new DerpUserDetails("budget0@derp.edu", "unused",
+                AuthorityUtils.createAuthorityList(Role.ROLE_STUDENT.name()), studentId));
+    }
+}
@@ -0,0 +1,200 @@
+package com.derp.erp.repositories;
+
+import com.derp.erp.config.MongoIndexInitializer;
+import com.derp.erp.models.AttendanceRecord;
+import com.derp.erp.models.AttendanceStatus;
+import com.derp.erp.models.CascadeJob;
+import com.derp.erp.models.CascadeJobStatus;
+import com.derp.erp.models.CascadeTarget;
+import com.derp.erp.models.Course;
+import com.derp.erp.models.CourseStanding;
+import com.derp.erp.models.Enrollment;
+import com.derp.erp.models.Grade;
+import com.derp.erp.models.ReportJob;
+import com.derp.erp.models.ReportJobStatus;
+import com.derp.erp.models.ReportType;
+import com.derp.erp.models.ScheduledClass;
+import com.derp.erp.models.Student;
+import com.derp.erp.models.StudentStanding;
+import com.derp.erp.models.User;
+import com.derp.erp.support.QueryPlanAuditor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.support.Repositories;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs every derived query method of every repository against representative data and fails on
+// collection scans or poor examined/returned ratios. Skipped when Docker is not available.
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class RepositoryQueryPlanTest {
+
+    private static final double MAX_EXAMINED_PER_RETURNED = 10.0;
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @TestConfiguration
+    static class AuditorConfig {
+
+        @Bean
+        QueryPlanAuditor queryPlanAuditor() {
+            return new QueryPlanAuditor(MAX_EXAMINED_PER_RETURNED);
+        }
+
+        @Bean
+        MongoClientSettingsBuilderCustomizer queryPlanAuditorCustomizer(QueryPlanAuditor queryPlanAuditor) {
+            return builder -> builder.addCommandListener(queryPlanAuditor);
+        }
+    }
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoIndexInitializer mongoIndexInitializer;
+
+    @Autowired
+    private QueryPlanAuditor queryPlanAuditor;
+
+    @Test
+    void everyRepositoryQueryMethodUsesAnIndex() {
+        Map<String, Object> samples = seedRepresentativeData();
+        mongoIndexInitializer.ensureIndexes();
+
+        Repositories repositories = new Repositories(applicationContext);
+        List<QueryPlanAuditor.Finding> findings = new ArrayList<>();
+        for (Class<?> domainType : repositories) {
+            RepositoryInformation information = repositories.getRequiredRepositoryInformation(domainType);
+            Object repository = repositories.getRepositoryFor(domainType).orElseThrow();
+            for (Method method : information.getQueryMethods()) {
+                Object[] arguments = argumentsFor(method, samples);
+                String label = information.getRepositoryInterface().getSimpleName() + "." + method.getName();
+                findings.addAll(queryPlanAuditor.audit(mongoTemplate.getDb(), label, () -> invoke(repository, method, arguments)));
+            }
+        }
+
+        assertTrue(findings.isEmpty(), () -> "Repository queries without a usable index:\n" + findings.stream()
+                .map(QueryPlanAuditor.Finding::toString)
+                .collect(Collectors.joining("\n")));
+    }
+
+    private Map<String, Object> seedRepresentativeData() {
+        LocalDate firstDate = LocalDate.of(2025, 1, 6);
+        List<Course> courses = new ArrayList<>();
+        for (int c = 0; c < 6; c++) {
+            courses.add(mongoTemplate.insert(new Course("C" + c, "Course " + c, "Course " + c, 3)));
+        }
+        List<Student> students = new ArrayList<>();
+        for (int s = 0; s < 30; s++) {
+            students.add(mongoTemplate.insert(new Student("First" + s, "Last" + s, "student" + s + "@derp.edu", "S" + s)));
+        }
+        for (int s = 0; s < students.size(); s++) {
+            for (int c = 0; c < 3; c++) {
+                Course course = courses.get((s + c) % courses.size());
+                mongoTemplate.insert(new Enrollment(students.get(s).getId(), course.getId()));
+                for (int d = 0; d < 10; d++) {
+                    mongoTemplate.insert(new AttendanceRecord(students.get(s), course, firstDate.plusDays(d), AttendanceStatus.PRESENT));
+                }
+                for (String assessment : List.of("Midterm", "Final Exam", "Assignment 1")) {
+                    mongoTemplate.insert(new Grade(students.get(s), course, assessment, "A", firstDate, null));
+                }
+            }
+        }
+        for (int c = 0; c < courses.size(); c++) {
+            mongoTemplate.insert(new ScheduledClass(courses.get(c), DayOfWeek.MONDAY, 540, 630, "R" + c, "Instructor " + c));
+            mongoTemplate.insert(new ScheduledClass(courses.get(c), DayOfWeek.WEDNESDAY, 780, 870, "R" + c, "Instructor " + c));
+        }
+        for (int s = 0; s < students.size(); s++) {
+            StudentStanding standing = new StudentStanding(students.get(s).getId());
+            standing.setProgram("Program " + (s % 3));
+            standing.setGpa(2.0 + (s % 20) / 10.0);
+            CourseStanding courseStanding = new CourseStanding();
+            courseStanding.setCourseId(courses.get(s % courses.size()).getId());
+            standing.getCourses().add(courseStanding);
+            mongoTemplate.insert(standing);
+        }
+        mongoTemplate.insert(new User("admin@derp.edu", "hash"));
+        mongoTemplate.insert(new CascadeJob(CascadeTarget.STUDENT, students.get(0).getId()));
+        mongoTemplate.insert(new ReportJob(ReportType.TRANSCRIPTS, "admin@derp.edu"));
+
+        Map<String, Object> samples = new HashMap<>();
+        samples.put("studentId", students.get(0).getId());
+        samples.put("courseId", courses.get(0).getId());
+        samples.put("courseIds", List.of(courses.get(0).getId(), courses.get(1).getId()));
+        samples.put("studentIds", List.of(students.get(0).getId(), students.get(1).getId()));
+        samples.put("attendanceDate", firstDate);
+        samples.put("assessmentType", "Midterm");
+        samples.put("email", students.get(0).getEmail());
+        samples.put("studentIdNumber", students.get(0).getStudentIdNumber());
+        samples.put("courseCode", courses.get(0).getCourseCode());
+        samples.put("username", "admin@derp.edu");
+        samples.put("dayOfWeek", DayOfWeek.MONDAY);
+        samples.put("instructorName", "Instructor 0");
+        samples.put("roomNumber", "R0");
+        samples.put("targetType", CascadeTarget.STUDENT);
+        samples.put("targetId", students.get(0).getId());
+        samples.put("status", CascadeJobStatus.PENDING);
+        samples.put("statuses", List.of(CascadeJobStatus.PENDING, CascadeJobStatus.RUNNING));
+        // Same parameter name, different type: keyed by name and simple type name
+        samples.put("status:ReportJobStatus", ReportJobStatus.PENDING);
+        samples.put("completedBefore", Instant.now());
+        samples.put("program", "Program 0");
+        samples.put("pageable", PageRequest.of(0, 10));
+        return samples;
+    }
+
+    private static Object[] argumentsFor(Method method, Map<String, Object> samples) {
+        Parameter[] parameters = method.getParameters();
+        Object[] arguments = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            Object sample = samples.get(parameters[i].getName());
+            if (sample != null && !parameters[i].getType().isInstance(sample)) {
+                sample = samples.get(parameters[i].getName() + ":" + parameters[i].getType().getSimpleName());
+            }
+            if (sample == null || !parameters[i].getType().isInstance(sample)) {
+                throw new IllegalStateException("No sample value for parameter '" + parameters[i].getName() + "' of "
+                        + method.getDeclaringClass().getSimpleName() + "." + method.getName() + "; add one to seedRepresentativeData()");
+            }
+            arguments[i] = sample;
+        }
+        return arguments;
+    }
+
+    private static void invoke(Object repository, Method method, Object[] arguments) {
+        try {
+            method.invoke(repository, arguments);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Could not invoke " + method, e);
+        }
+    }
+}
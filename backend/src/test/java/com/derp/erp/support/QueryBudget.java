@@ -0,0 +1,28 @@
+package com.derp.erp.support;
+
+import com.derp.erp.querycount.MongoCommandCounter;
+
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+// Fails when a piece of code sends more Mongo commands than its budget. MockMvc runs the whole request on the
+// calling thread, so wrapping mockMvc.perform(...) counts everything the endpoint sends, body serialization included.
+public class QueryBudget {
+
+    private final MongoCommandCounter counter;
+
+    public QueryBudget(MongoCommandCounter counter) {
+        this.counter = counter;
+    }
+
+    public <T> T assertAtMost(int maxCommands, String label, Callable<T> invocation) throws Exception {
+        try (MongoCommandCounter.Scope scope = counter.open()) {
+            T result = invocation.call();
+            if (scope.count() > maxCommands) {
+                fail(label + " sent " + scope.count() + " Mongo commands; its budget is " + maxCommands);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.derp.erp.support;
+
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Captures the commands issued while running a piece of code, re-runs each one through explain and reports
+// collection scans or plans that examine far more keys/documents than they return, with an index suggestion.
+public class QueryPlanAuditor implements CommandListener {
+
+    private static final Set<String> AUDITED_COMMANDS = Set.of("find", "count", "distinct", "aggregate");
+    private static final Set<String> TRANSPORT_FIELDS = Set.of("$db", "lsid", "$clusterTime", "$readPreference", "txnNumber", "signature", "apiVersion");
+    private static final Set<String> RANGE_OPERATORS = Set.of("$gt", "$gte", "$lt", "$lte", "$ne", "$nin", "$exists", "$regex");
+
+    private final double maxExaminedPerReturned;
+    private final ThreadLocal<List<BsonDocument>> capturedCommands = new ThreadLocal<>();
+
+    public QueryPlanAuditor(double maxExaminedPerReturned) {
+        this.maxExaminedPerReturned = maxExaminedPerReturned;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        List<BsonDocument> commands = capturedCommands.get();
+        if (commands != null && AUDITED_COMMANDS.contains(event.getCommandName())) {
+            commands.add(event.getCommand().clone());
+        }
+    }
+
+    public List<Finding> audit(MongoDatabase database, String label, Runnable invocation) {
+        List<BsonDocument> commands = new ArrayList<>();
+        capturedCommands.set(commands);
+        try {
+            invocation.run();
+        } finally {
+            capturedCommands.remove();
+        }
+
+        List<Finding> findings = new ArrayList<>();
+        for (BsonDocument command : commands) {
+            BsonDocument filter = filterOf(command);
+            if (filter == null || filter.isEmpty()) {
+                continue; // Unfiltered reads are full scans by design
+            }
+            BsonDocument explain = new BsonDocument("explain", stripTransportFields(command))
+                    .append("verbosity", new BsonString("executionStats"));
+            Document result = database.runCommand(explain);
+            analyze(label, command, filter, result).ifPresent(findings::add);
+        }
+        return findings;
+    }
+
+    private Optional<Finding> analyze(String label, BsonDocument command, BsonDocument filter, Document explainResult) {
+        Document winningPlan = findFirst(explainResult, "winningPlan");
+        Document stats = findFirst(explainResult, "executionStats");
+        String suggestion = suggestIndex(filter, sortOf(command));
+
+        if (winningPlan != null && containsStage(winningPlan, "COLLSCAN")) {
+            return Optional.of(new Finding(label, "COLLSCAN", command.toJson(), suggestion));
+        }
+        if (stats != null) {
+            long returned = Math.max(1, toLong(stats.get("nReturned")));
+            long examined = Math.max(toLong(stats.get("totalKeysExamined")), toLong(stats.get("totalDocsExamined")));
+            double ratio = (double) examined / returned;
+            if (ratio > maxExaminedPerReturned) {
+                return Optional.of(new Finding(label,
+                        String.format("examined %d for %d returned (ratio %.1f)", examined, returned, ratio),
+                        command.toJson(), suggestion));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static BsonDocument filterOf(BsonDocument command) {
+        if (command.containsKey("find")) {
+            return command.getDocument("filter", new BsonDocument());
+        }
+        if (command.containsKey("count") || command.containsKey("distinct")) {
+            return command.getDocument("query", new BsonDocument());
+        }
+        if (command.containsKey("aggregate")) {
+            BsonArray pipeline = command.getArray("pipeline", new BsonArray());
+            if (!pipeline.isEmpty() && pipeline.get(0).asDocument().containsKey("$match")) {
+                return pipeline.get(0).asDocument().getDocument("$match");
+            }
+        }
+        return null;
+    }
+
+    private static BsonDocument sortOf(BsonDocument command) {
+        return command.containsKey("find") ? command.getDocument("sort", new BsonDocument()) : new BsonDocument();
+    }
+
+    private static BsonDocument stripTransportFields(BsonDocument command) {
+        BsonDocument stripped = new BsonDocument();
+        command.forEach((key, value) -> {
+            if (!TRANSPORT_FIELDS.contains(key)) {
+                stripped.append(key, value);
+            }
+        });
+        return stripped;
+    }
+
+    // Equality fields first, then sort keys, then range fields (the ESR rule).
+    static String suggestIndex(BsonDocument filter, BsonDocument sort) {
+        Map<String, String> equality = new LinkedHashMap<>();
+        Map<String, String> range = new LinkedHashMap<>();
+        collectFields(filter, equality, range);
+        Map<String, String> keys = new LinkedHashMap<>(equality);
+        sort.forEach((field, direction) -> keys.putIfAbsent(field, String.valueOf(direction.asNumber().intValue())));
+        range.forEach(keys::putIfAbsent);
+
+        StringBuilder definition = new StringBuilder("{");
+        keys.forEach((field, direction) -> {
+            if (definition.length() > 1) {
+                definition.append(", ");
+            }
+            definition.append('\'').append(field).append("': ").append(direction);
+        });
+        return definition.append('}').toString();
+    }
+
+    private static void collectFields(BsonDocument filter, Map<String, String> equality, Map<String, String> range) {
+        for (Map.Entry<String, BsonValue> entry : filter.entrySet()) {
+            String field = entry.getKey();
+            BsonValue value = entry.getValue();
+            if ("$and".equals(field)) {
+                value.asArray().forEach(clause -> collectFields(clause.asDocument(), equality, range));
+            } else if (field.startsWith("$")) {
+                continue; // $or/$nor branches need their own indexes
+            } else if (value.isDocument() && value.asDocument().keySet().stream().anyMatch(RANGE_OPERATORS::contains)) {
+                range.put(field, "1");
+            } else {
+                equality.put(field, "1");
+            }
+        }
+    }
+
+    private static boolean containsStage(Object node, String stage) {
+        if (node instanceof Document document) {
+            if (stage.equals(document.get("stage"))) {
+                return true;
+            }
+            return document.values().stream().anyMatch(value -> containsStage(value, stage));
+        }
+        if (node instanceof List<?> list) {
+            return list.stream().anyMatch(value -> containsStage(value, stage));
+        }
+        return false;
+    }
+
+    private static Document findFirst(Object node, String key) {
+        if (node instanceof Document document) {
+            if (document.get(key) instanceof Document found) {
+                return found;
+            }
+            for (Object value : document.values()) {
+                Document found = findFirst(value, key);
+                if (found != null) {
+                    return found;
+                }
+            }
+        } else if (node instanceof List<?> list) {
+            for (Object value : list) {
+                Document found = findFirst(value, key);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+
+    public record Finding(String method, String problem, String command, String suggestedIndex) {
+
+        @Override
+        public String toString() {
+            return method + ": " + problem + "\n    command: " + command + "\n    suggested index: " + suggestedIndex;
+        }
+    }
+}
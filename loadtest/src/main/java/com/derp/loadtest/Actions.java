@@ -0,0 +1,118 @@
+package com.derp.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// The requests a scenario can mix, by name. Each call builds a fresh request against the seeded dataset.
+public class Actions {
+
+    private final URI baseUri;
+    private final String adminAuthorization;
+    private final Dataset dataset;
+    private final LocalDate attendanceFrom;
+    private final Duration requestTimeout;
+    private final List<Dataset.SeededEnrollment> attendanceOrder;
+    private final AtomicLong attendanceSequence = new AtomicLong();
+    private final Map<String, Supplier<HttpRequest>> actions;
+
+    public Actions(URI baseUri, String adminCredentials, Dataset dataset, LocalDate attendanceFrom, Duration requestTimeout) {
+        this.baseUri = baseUri;
+        this.adminAuthorization = basic(adminCredentials);
+        this.dataset = dataset;
+        this.attendanceFrom = attendanceFrom;
+        this.requestTimeout = requestTimeout;
+        // Tablets mark whole classes at once, in no particular student order
+        List<Dataset.SeededEnrollment> order = new ArrayList<>(dataset.enrollments());
+        Collections.shuffle(order, new Random(42));
+        this.attendanceOrder = List.copyOf(order);
+        this.actions = Map.of(
+                "record-attendance", this::recordAttendance,
+                "my-grades", this::myGrades,
+                "roster", this::roster,
+                "course-attendance", this::courseAttendance,
+                "schedule-now", this::scheduleNow);
+    }
+
+    public HttpRequest build(String action) {
+        return actions.get(action).get();
+    }
+
+    public void validate(Scenario scenario) {
+        for (Scenario.MixEntry entry : scenario.mix()) {
+            if (!actions.containsKey(entry.action())) {
+                throw new IllegalArgumentException("Unknown action '" + entry.action() + "'; available: " + actions.keySet());
+            }
+        }
+        if (dataset.enrollments().isEmpty() || dataset.students().isEmpty()) {
+            throw new IllegalArgumentException("The dataset has no students or enrollments");
+        }
+    }
+
+    // Every enrollment gets one record per day: the first pass covers attendanceFrom, the next the day after, and so on
+    private HttpRequest recordAttendance() {
+        long sequence = attendanceSequence.getAndIncrement();
+        Dataset.SeededEnrollment enrollment = attendanceOrder.get((int) (sequence % attendanceOrder.size()));
+        LocalDate date = attendanceFrom.plusDays(sequence / attendanceOrder.size());
+        String body = String.format("{\"studentId\":\"%s\",\"courseId\":\"%s\",\"attendanceDate\":\"%s\",\"status\":\"%s\"}",
+                enrollment.studentId(), enrollment.courseId(), date, attendanceStatus());
+        return request("/api/attendance", adminAuthorization)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest myGrades() {
+        Dataset.SeededStudent student = dataset.students().get(ThreadLocalRandom.current().nextInt(dataset.students().size()));
+        return request("/api/grades/my-grades", basic(student.email() + ":" + dataset.studentPassword())).GET().build();
+    }
+
+    private HttpRequest roster() {
+        return request("/api/enrollments/course/" + randomCourseId(), adminAuthorization).GET().build();
+    }
+
+    private HttpRequest courseAttendance() {
+        return request("/api/attendance/course/" + randomCourseId() + "/date/" + attendanceFrom, adminAuthorization).GET().build();
+    }
+
+    private HttpRequest scheduleNow() {
+        return request("/api/schedule/now", adminAuthorization).GET().build();
+    }
+
+    private HttpRequest.Builder request(String path, String authorization) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(requestTimeout)
+                .header("Authorization", authorization);
+    }
+
+    private String randomCourseId() {
+        return dataset.courseIds().get(ThreadLocalRandom.current().nextInt(dataset.courseIds().size()));
+    }
+
+    // Roughly what a morning class looks like
+    private static String attendanceStatus() {
+        int roll = ThreadLocalRandom.current().nextInt(100);
+        if (roll < 85) {
+            return "PRESENT";
+        }
+        if (roll < 92) {
+            return "LATE";
+        }
+        return roll < 98 ? "ABSENT" : "EXCUSED";
+    }
+
+    static String basic(String credentials) {
+        return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,183 @@
+package com.derp.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.ConnectionString;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+// Creates courses, their timetable, students and enrollments through the admin API, so the data goes through the
+// same validation, indexes and side effects as production data. Student logins are the exception: registration is
+// rate-limited per IP, so they are written straight to the users collection with one shared BCrypt hash.
+public class DataSeeder {
+
+    private static final int PARALLELISM = 16;
+    private static final int BULK_ENROLLMENT_LIMIT = 1000;
+    private static final String[] DAYS = {"MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY"};
+
+    private final HttpClient httpClient;
+    private final URI baseUri;
+    private final String adminAuthorization;
+    private final ObjectMapper objectMapper;
+    private final PrintStream out;
+
+    public DataSeeder(HttpClient httpClient, URI baseUri, String adminCredentials, ObjectMapper objectMapper, PrintStream out) {
+        this.httpClient = httpClient;
+        this.baseUri = baseUri;
+        this.adminAuthorization = Actions.basic(adminCredentials);
+        this.objectMapper = objectMapper;
+        this.out = out;
+    }
+
+    public Dataset seed(String tag, int studentCount, int courseCount, int coursesPerStudent) {
+        if (coursesPerStudent > courseCount) {
+            throw new IllegalArgumentException("courses-per-student cannot exceed courses");
+        }
+        List<Map<String, Object>> courseBodies = new ArrayList<>();
+        for (int c = 0; c < courseCount; c++) {
+            courseBodies.add(body("courseCode", "LT" + tag + c, "courseName", "Load Test Course " + c,
+                    "description", "Synthetic course for load testing", "credits", 3));
+        }
+        List<String> courseIds = ids(postAll("/api/courses", courseBodies));
+        out.println("Created " + courseIds.size() + " courses");
+
+        // Two sessions a week per course, each course in its own room so the timetable has no conflicts
+        List<Map<String, Object>> classBodies = new ArrayList<>();
+        for (int c = 0; c < courseCount; c++) {
+            String room = "LT" + tag + "-" + c;
+            classBodies.add(body("courseId", courseIds.get(c), "dayOfWeek", DAYS[c % DAYS.length], "startTime", "09:00",
+                    "endTime", "10:30", "roomNumber", room, "instructorName", "Instructor " + c));
+            classBodies.add(body("courseId", courseIds.get(c), "dayOfWeek", DAYS[(c + 2) % DAYS.length], "startTime", "13:00",
+                    "endTime", "14:30", "roomNumber", room, "instructorName", "Instructor " + c));
+        }
+        postAll("/api/timetable", classBodies);
+        out.println("Created " + classBodies.size() + " scheduled classes");
+
+        List<Map<String, Object>> studentBodies = new ArrayList<>();
+        for (int s = 0; s < studentCount; s++) {
+            studentBodies.add(body("firstName", "Load", "lastName", "Student " + s, "email", "lt" + tag + "-" + s + "@derp.edu",
+                    "studentIdNumber", "LT" + tag + s, "program", "Program " + (s % 5)));
+        }
+        List<Dataset.SeededStudent> students = new ArrayList<>();
+        for (JsonNode student : postAll("/api/students", studentBodies)) {
+            students.add(new Dataset.SeededStudent(student.get("id").asText(), student.get("email").asText()));
+        }
+        out.println("Created " + students.size() + " students");
+
+        // Student s takes coursesPerStudent consecutive courses starting at s, which spreads class sizes evenly
+        List<Dataset.SeededEnrollment> enrollments = new ArrayList<>();
+        List<List<String>> courseStudents = new ArrayList<>();
+        courseIds.forEach(courseId -> courseStudents.add(new ArrayList<>()));
+        for (int s = 0; s < students.size(); s++) {
+            for (int k = 0; k < coursesPerStudent; k++) {
+                int c = (s + k) % courseCount;
+                courseStudents.get(c).add(students.get(s).id());
+                enrollments.add(new Dataset.SeededEnrollment(students.get(s).id(), courseIds.get(c)));
+            }
+        }
+        List<Map<String, Object>> bulkBodies = new ArrayList<>();
+        for (int c = 0; c < courseCount; c++) {
+            List<String> studentIds = courseStudents.get(c);
+            for (int from = 0; from < studentIds.size(); from += BULK_ENROLLMENT_LIMIT) {
+                bulkBodies.add(body("courseId", courseIds.get(c),
+                        "studentIds", studentIds.subList(from, Math.min(studentIds.size(), from + BULK_ENROLLMENT_LIMIT))));
+            }
+        }
+        postAll("/api/enrollments/bulk", bulkBodies);
+        out.println("Created " + enrollments.size() + " enrollments");
+        return new Dataset(tag, null, students, courseIds, enrollments);
+    }
+
+    // Upserts one ROLE_STUDENT user per student, named by email and linked by studentId as the /my-* endpoints expect
+    // (the students already exist, so the API's own linking found no account to link)
+    public void createStudentLogins(String mongoUri, List<Dataset.SeededStudent> students, String password, int bcryptStrength) {
+        String hash = "{bcrypt}" + new BCryptPasswordEncoder(bcryptStrength).encode(password);
+        ConnectionString connectionString = new ConnectionString(mongoUri);
+        String database = connectionString.getDatabase() != null ? connectionString.getDatabase() : "test";
+        try (MongoClient mongoClient = MongoClients.create(connectionString)) {
+            MongoCollection<Document> users = mongoClient.getDatabase(database).getCollection("users");
+            List<WriteModel<Document>> writes = new ArrayList<>();
+            for (Dataset.SeededStudent student : students) {
+                writes.add(new ReplaceOneModel<>(Filters.eq("username", student.email()),
+                        new Document("username", student.email())
+                                .append("password", hash)
+                                .append("roles", List.of("ROLE_STUDENT"))
+                                .append("studentId", student.id())
+                                .append("_class", "com.derp.erp.models.User"),
+                        new ReplaceOptions().upsert(true)));
+            }
+            if (!writes.isEmpty()) {
+                users.bulkWrite(writes);
+            }
+        }
+        out.println("Created " + students.size() + " student logins in " + database + ".users");
+    }
+
+    // Posts the bodies with bounded concurrency; results are in the order of the bodies
+    private List<JsonNode> postAll(String path, List<Map<String, Object>> bodies) {
+        Semaphore permits = new Semaphore(PARALLELISM);
+        List<CompletableFuture<JsonNode>> results = new ArrayList<>(bodies.size());
+        for (Map<String, Object> body : bodies) {
+            permits.acquireUninterruptibly();
+            HttpRequest request;
+            try {
+                request = HttpRequest.newBuilder(baseUri.resolve(path))
+                        .timeout(Duration.ofSeconds(30))
+                        .header("Authorization", adminAuthorization)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                        .build();
+            } catch (Exception e) {
+                permits.release();
+                throw new IllegalStateException("Could not serialize " + body, e);
+            }
+            results.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, failure) -> permits.release())
+                    .thenApply(response -> parse(path, response)));
+        }
+        return results.stream().map(CompletableFuture::join).toList();
+    }
+
+    private JsonNode parse(String path, HttpResponse<String> response) {
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("POST " + path + " returned " + response.statusCode() + ": " + response.body());
+        }
+        try {
+            return objectMapper.readTree(response.body());
+        } catch (Exception e) {
+            throw new IllegalStateException("POST " + path + " returned an unreadable body: " + response.body(), e);
+        }
+    }
+
+    private static List<String> ids(List<JsonNode> nodes) {
+        return nodes.stream().map(node -> node.get("id").asText()).toList();
+    }
+
+    private static Map<String, Object> body(Object... keysAndValues) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            body.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return body;
+    }
+}
@@ -0,0 +1,36 @@
+package com.derp.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// What the seeder created, so later runs can address real students, courses and enrollments.
+public record Dataset(String tag,
+                      String studentPassword,
+                      List<SeededStudent> students,
+                      List<String> courseIds,
+                      List<SeededEnrollment> enrollments) {
+
+    public record SeededStudent(String id, String email) {
+    }
+
+    public record SeededEnrollment(String studentId, String courseId) {
+    }
+
+    public static Dataset read(Path path, ObjectMapper objectMapper) throws IOException {
+        if (!Files.exists(path)) {
+            throw new IllegalArgumentException(path + " not found; create it with the seed command first");
+        }
+        return objectMapper.readValue(path.toFile(), Dataset.class);
+    }
+
+    public void write(Path path, ObjectMapper objectMapper) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(path.toFile(), this);
+    }
+}
@@ -0,0 +1,103 @@
+package com.derp.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latencies per action in microseconds, measured from each request's intended start so a stalled server shows up as
+// latency instead of as fewer requests (coordinated omission). Interval histograms feed the progress lines and add up
+// to the totals written at the end.
+public class LatencyReport {
+
+    private final ConcurrentMap<String, ActionStats> stats = new ConcurrentHashMap<>();
+
+    public void record(String action, int status, long latencyNanos) {
+        ActionStats actionStats = statsFor(action);
+        actionStats.recorder.recordValue(Math.max(1, latencyNanos / 1000));
+        actionStats.statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+    }
+
+    public void dropped(String action) {
+        statsFor(action).dropped.increment();
+    }
+
+    // Moves what was recorded since the last call into the totals; returns one progress line
+    public synchronized String interval(Duration elapsed, double targetRate, long inFlight, Duration intervalLength) {
+        Histogram combined = new Histogram(3);
+        for (ActionStats actionStats : stats.values()) {
+            actionStats.interval = actionStats.recorder.getIntervalHistogram(actionStats.interval);
+            actionStats.total.add(actionStats.interval);
+            combined.add(actionStats.interval);
+        }
+        double seconds = intervalLength.toNanos() / 1e9;
+        return String.format("%6ds  target %8.1f/s  completed %8.1f/s  in flight %6d  p50 %8.2f ms  p99 %8.2f ms  max %8.2f ms",
+                elapsed.toSeconds(), targetRate, combined.getTotalCount() / seconds, inFlight,
+                millis(combined.getValueAtPercentile(50)), millis(combined.getValueAtPercentile(99)), millis(combined.getMaxValue()));
+    }
+
+    public synchronized void printSummary(PrintStream out, Duration elapsed) {
+        double seconds = elapsed.toNanos() / 1e9;
+        out.printf("%n%-20s %10s %10s %8s %8s %10s %10s %10s %10s %10s%n",
+                "action", "requests", "req/s", "errors", "dropped", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, ActionStats> entry : new TreeMap<>(stats).entrySet()) {
+            ActionStats actionStats = entry.getValue();
+            Histogram total = actionStats.total;
+            out.printf("%-20s %10d %10.1f %8d %8d %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                    entry.getKey(), total.getTotalCount(), total.getTotalCount() / seconds, actionStats.errors(),
+                    actionStats.dropped.sum(), millis(total.getValueAtPercentile(50)), millis(total.getValueAtPercentile(90)),
+                    millis(total.getValueAtPercentile(99)), millis(total.getValueAtPercentile(99.9)), millis(total.getMaxValue()));
+        }
+        for (Map.Entry<String, ActionStats> entry : new TreeMap<>(stats).entrySet()) {
+            out.printf("%-20s statuses %s%n", entry.getKey(), new TreeMap<>(entry.getValue().statuses));
+        }
+    }
+
+    // One .hgrm percentile distribution per action, in milliseconds, for plotting or comparing releases
+    public synchronized void writeHistograms(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<String, ActionStats> entry : stats.entrySet()) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(entry.getKey() + ".hgrm")))) {
+                entry.getValue().total.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    public synchronized boolean hasErrors() {
+        return stats.values().stream().anyMatch(actionStats -> actionStats.errors() > 0 || actionStats.dropped.sum() > 0);
+    }
+
+    private ActionStats statsFor(String action) {
+        return stats.computeIfAbsent(action, key -> new ActionStats());
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static class ActionStats {
+
+        private final Recorder recorder = new Recorder(3);
+        private final Histogram total = new Histogram(3);
+        // Status -1 stands for a connection failure or timeout
+        private final ConcurrentMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        private final LongAdder dropped = new LongAdder();
+        private Histogram interval;
+
+        long errors() {
+            return statuses.entrySet().stream()
+                    .filter(entry -> entry.getKey() < 200 || entry.getKey() >= 400)
+                    .mapToLong(entry -> entry.getValue().sum())
+                    .sum();
+        }
+    }
+}
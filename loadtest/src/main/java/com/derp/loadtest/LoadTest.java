@@ -0,0 +1,81 @@
+package com.derp.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+// mvn compile exec:java -Dexec.args="seed students=2000 courses=60"
+// mvn compile exec:java -Dexec.args="run scenario=scenarios/start-of-class.scenario"
+// See README.md for every option.
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || !(args[0].equals("seed") || args[0].equals("run"))) {
+            System.err.println("Usage: seed|run [key=value ...]; see README.md");
+            System.exit(2);
+        }
+        Options options = Options.parse(Arrays.copyOfRange(args, 1, args.length));
+        ObjectMapper objectMapper = new ObjectMapper();
+        URI baseUri = URI.create(options.get("base-url", "http://localhost:8080"));
+        String adminCredentials = options.get("admin", "adminuser:adminpass");
+        Path datasetPath = Path.of(options.get("dataset", "target/dataset.json"));
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        if (args[0].equals("seed")) {
+            seed(options, httpClient, baseUri, adminCredentials, datasetPath, objectMapper);
+        } else {
+            int exitCode = run(options, httpClient, baseUri, adminCredentials, datasetPath, objectMapper);
+            System.exit(exitCode);
+        }
+    }
+
+    private static void seed(Options options, HttpClient httpClient, URI baseUri, String adminCredentials,
+                             Path datasetPath, ObjectMapper objectMapper) throws Exception {
+        // Keeps codes and emails unique, so the same database can be seeded more than once
+        String tag = options.get("tag", Long.toString(ThreadLocalRandom.current().nextLong(36L * 36 * 36 * 36, 36L * 36 * 36 * 36 * 36), 36))
+                .toUpperCase(Locale.ROOT);
+        String password = options.get("student-password", "loadtest-pass");
+        DataSeeder seeder = new DataSeeder(httpClient, baseUri, adminCredentials, objectMapper, System.out);
+        Dataset created = seeder.seed(tag, options.getInt("students", 2000), options.getInt("courses", 60),
+                options.getInt("courses-per-student", 4));
+        seeder.createStudentLogins(options.get("mongo-uri", "mongodb://localhost:27017/test"), created.students(), password,
+                options.getInt("bcrypt-strength", 12));
+        Dataset dataset = new Dataset(tag, password, created.students(), created.courseIds(), created.enrollments());
+        dataset.write(datasetPath, objectMapper);
+        System.out.println("Dataset " + tag + " written to " + datasetPath);
+    }
+
+    private static int run(Options options, HttpClient httpClient, URI baseUri, String adminCredentials,
+                           Path datasetPath, ObjectMapper objectMapper) throws Exception {
+        Scenario scenario = ScenarioParser.parse(Path.of(options.get("scenario", "scenarios/start-of-class.scenario")));
+        Dataset dataset = Dataset.read(datasetPath, objectMapper);
+        // POST /api/attendance rejects a second record for the same student, course and day, so a repeat run on
+        // the same dataset needs a later attendance-from
+        LocalDate attendanceFrom = LocalDate.parse(options.get("attendance-from", LocalDate.now().toString()));
+        Actions actions = new Actions(baseUri, adminCredentials, dataset, attendanceFrom,
+                options.getDuration("request-timeout", Duration.ofSeconds(30)));
+        actions.validate(scenario);
+
+        LatencyReport report = new LatencyReport();
+        OpenModelRunner runner = new OpenModelRunner(httpClient, actions, report, options.getDouble("rate-scale", 1.0),
+                options.getInt("max-in-flight", 10_000), options.getDuration("report-interval", Duration.ofSeconds(10)), System.out);
+        System.out.println("Running " + scenario.name() + " against " + baseUri + " with dataset " + dataset.tag());
+        Duration elapsed = runner.run(scenario, options.getDuration("drain-timeout", Duration.ofSeconds(30)));
+
+        report.printSummary(System.out, elapsed);
+        Path reportDirectory = Path.of(options.get("report-dir", "target/loadtest"), scenario.name());
+        report.writeHistograms(reportDirectory);
+        System.out.println("Histograms written to " + reportDirectory);
+        return report.hasErrors() ? 1 : 0;
+    }
+}
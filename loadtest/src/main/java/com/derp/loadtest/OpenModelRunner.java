@@ -0,0 +1,109 @@
+package com.derp.loadtest;
+
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Sends requests at the scenario's arrival rate whether or not earlier ones have completed (an open model, like
+// real tablets), rather than a fixed number of users waiting on each response. When the server falls behind,
+// requests pile up in flight and their latency keeps counting from the moment they were due.
+public class OpenModelRunner {
+
+    private final HttpClient httpClient;
+    private final Actions actions;
+    private final LatencyReport report;
+    private final double rateScale;
+    private final int maxInFlight;
+    private final Duration reportInterval;
+    private final PrintStream out;
+
+    private final AtomicLong inFlight = new AtomicLong();
+    private volatile double currentRate;
+
+    public OpenModelRunner(HttpClient httpClient, Actions actions, LatencyReport report, double rateScale,
+                           int maxInFlight, Duration reportInterval, PrintStream out) {
+        this.httpClient = httpClient;
+        this.actions = actions;
+        this.report = report;
+        this.rateScale = rateScale;
+        this.maxInFlight = maxInFlight;
+        this.reportInterval = reportInterval;
+        this.out = out;
+    }
+
+    public Duration run(Scenario scenario, Duration drainTimeout) {
+        Random random = new Random();
+        long start = System.nanoTime();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "loadtest-report");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> out.println(report.interval(Duration.ofNanos(System.nanoTime() - start),
+                currentRate, inFlight.get(), reportInterval)), reportInterval.toNanos(), reportInterval.toNanos(), TimeUnit.NANOSECONDS);
+        try {
+            long phaseStart = start;
+            long next = start;
+            for (Phase phase : scenario.phases()) {
+                out.println("Phase " + phase.describe());
+                long phaseEnd = phaseStart + phase.duration().toNanos();
+                while (next < phaseEnd) {
+                    double rate = phase.rateAt(next - phaseStart) * rateScale;
+                    currentRate = rate;
+                    if (rate <= 0) {
+                        next += TimeUnit.MILLISECONDS.toNanos(10);
+                        continue;
+                    }
+                    waitUntil(next);
+                    send(scenario.pick(random.nextDouble()), next);
+                    double gapSeconds = scenario.poissonArrivals() ? -Math.log(1 - random.nextDouble()) / rate : 1 / rate;
+                    next += Math.max(1, (long) (gapSeconds * 1e9));
+                }
+                phaseStart = phaseEnd;
+            }
+            currentRate = 0;
+            long drainDeadline = System.nanoTime() + drainTimeout.toNanos();
+            while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            }
+            if (inFlight.get() > 0) {
+                out.println(inFlight.get() + " request(s) still in flight after " + drainTimeout + "; left out of the report");
+            }
+        } finally {
+            reporter.shutdownNow();
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        report.interval(elapsed, 0, inFlight.get(), reportInterval);
+        return elapsed;
+    }
+
+    private void send(String action, long intendedStart) {
+        // Beyond this the generator itself would become the bottleneck; the overflow is reported, not queued
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            report.dropped(action);
+            return;
+        }
+        HttpRequest request = actions.build(action);
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    report.record(action, failure == null ? response.statusCode() : -1, System.nanoTime() - intendedStart);
+                    inFlight.decrementAndGet();
+                });
+    }
+
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
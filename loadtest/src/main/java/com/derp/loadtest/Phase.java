@@ -0,0 +1,18 @@
+package com.derp.loadtest;
+
+import java.time.Duration;
+
+// A stretch of the run with a target arrival rate, constant or ramped linearly from start to end.
+public record Phase(String name, Duration duration, double startPerSecond, double endPerSecond) {
+
+    public double rateAt(long nanosIntoPhase) {
+        double progress = Math.min(1.0, (double) nanosIntoPhase / duration.toNanos());
+        return startPerSecond + (endPerSecond - startPerSecond) * progress;
+    }
+
+    public String describe() {
+        return startPerSecond == endPerSecond
+                ? String.format("%s: %s at %.1f/s", name, duration, startPerSecond)
+                : String.format("%s: %s from %.1f/s to %.1f/s", name, duration, startPerSecond, endPerSecond);
+    }
+}
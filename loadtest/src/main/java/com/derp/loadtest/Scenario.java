@@ -0,0 +1,22 @@
+package com.derp.loadtest;
+
+import java.util.List;
+
+public record Scenario(String name, boolean poissonArrivals, List<Phase> phases, List<MixEntry> mix) {
+
+    public record MixEntry(String action, double weight) {
+    }
+
+    // Picks an action by weight; roll is uniform in [0, 1)
+    public String pick(double roll) {
+        double total = mix.stream().mapToDouble(MixEntry::weight).sum();
+        double target = roll * total;
+        for (MixEntry entry : mix) {
+            target -= entry.weight();
+            if (target < 0) {
+                return entry.action();
+            }
+        }
+        return mix.get(mix.size() - 1).action();
+    }
+}
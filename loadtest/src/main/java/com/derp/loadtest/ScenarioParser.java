@@ -0,0 +1,124 @@
+package com.derp.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reads the scenario format:
+//
+//   scenario start-of-class
+//   arrivals poisson                      # or uniform
+//   phase warm-up 30s 20/s
+//   phase peak 5m 20/s -> 400/s           # ramps linearly
+//   mix 85 record-attendance
+//   mix 15 my-grades
+//
+// Durations take ms, s, m or h; rates are per second (/s) or per minute (/m).
+public final class ScenarioParser {
+
+    private ScenarioParser() {
+    }
+
+    public static Scenario parse(Path path) throws IOException {
+        String fileName = path.getFileName().toString();
+        String name = fileName.endsWith(".scenario") ? fileName.substring(0, fileName.length() - ".scenario".length()) : fileName;
+        boolean poisson = true;
+        List<Phase> phases = new ArrayList<>();
+        List<Scenario.MixEntry> mix = new ArrayList<>();
+
+        List<String> lines = Files.readAllLines(path);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            int comment = line.indexOf('#');
+            String[] tokens = (comment >= 0 ? line.substring(0, comment) : line).trim().split("\\s+");
+            if (tokens[0].isEmpty()) {
+                continue;
+            }
+            try {
+                switch (tokens[0]) {
+                    case "scenario" -> name = expect(tokens, 2)[1];
+                    case "arrivals" -> poisson = switch (expect(tokens, 2)[1]) {
+                        case "poisson" -> true;
+                        case "uniform" -> false;
+                        default -> throw new IllegalArgumentException("arrivals must be poisson or uniform");
+                    };
+                    case "phase" -> phases.add(parsePhase(tokens));
+                    case "mix" -> mix.add(new Scenario.MixEntry(expect(tokens, 3)[2], positive(Double.parseDouble(tokens[1]), "weight")));
+                    default -> throw new IllegalArgumentException("unknown directive '" + tokens[0] + "'");
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException(path + ":" + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        if (phases.isEmpty() || mix.isEmpty()) {
+            throw new IllegalArgumentException(path + ": a scenario needs at least one phase and one mix entry");
+        }
+        return new Scenario(name, poisson, List.copyOf(phases), List.copyOf(mix));
+    }
+
+    private static Phase parsePhase(String[] tokens) {
+        if (tokens.length == 4) {
+            double rate = parseRate(tokens[3]);
+            return new Phase(tokens[1], parseDuration(tokens[2]), rate, rate);
+        }
+        if (tokens.length == 6 && "->".equals(tokens[4])) {
+            return new Phase(tokens[1], parseDuration(tokens[2]), parseRate(tokens[3]), parseRate(tokens[5]));
+        }
+        throw new IllegalArgumentException("expected: phase <name> <duration> <rate> [-> <rate>]");
+    }
+
+    public static Duration parseDuration(String value) {
+        try {
+            if (value.endsWith("ms")) {
+                return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+            }
+            long amount = Long.parseLong(value.substring(0, value.length() - 1));
+            return switch (value.charAt(value.length() - 1)) {
+                case 's' -> Duration.ofSeconds(amount);
+                case 'm' -> Duration.ofMinutes(amount);
+                case 'h' -> Duration.ofHours(amount);
+                default -> throw new IllegalArgumentException("bad duration unit");
+            };
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("'" + value + "' is not a duration like 500ms, 30s, 5m or 1h");
+        }
+    }
+
+    static double parseRate(String value) {
+        try {
+            if (value.endsWith("/s")) {
+                return nonNegative(Double.parseDouble(value.substring(0, value.length() - 2)));
+            }
+            if (value.endsWith("/m")) {
+                return nonNegative(Double.parseDouble(value.substring(0, value.length() - 2))) / 60.0;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("'" + value + "' is not a rate like 200/s or 6000/m");
+    }
+
+    private static String[] expect(String[] tokens, int count) {
+        if (tokens.length != count) {
+            throw new IllegalArgumentException("'" + tokens[0] + "' takes " + (count - 1) + " argument(s)");
+        }
+        return tokens;
+    }
+
+    private static double positive(double value, String what) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(what + " must be positive");
+        }
+        return value;
+    }
+
+    private static double nonNegative(double value) {
+        if (value < 0) {
+            throw new NumberFormatException();
+        }
+        return value;
+    }
+}